@@ -0,0 +1,114 @@
+-- ============================================================
+-- 生产环境表结构升级（prod 使用 ddl-auto: validate，需要手动执行）
+-- 与实体定义保持一致；开发环境由 ddl-auto: update 自动创建
+-- 执行前请先备份数据库
+-- ============================================================
+
+-- 游戏结果：紧凑格式题目详情 + 按创建时间的索引（归档、导出用）
+ALTER TABLE game_results
+    ADD COLUMN question_details_blob MEDIUMBLOB NULL,
+    ADD INDEX idx_created_at (created_at);
+
+-- 玩家战绩索引（每个玩家每局一行）
+CREATE TABLE IF NOT EXISTS player_game_results (
+    id             BIGINT       NOT NULL AUTO_INCREMENT,
+    player_id      VARCHAR(64)  NOT NULL,
+    game_id        BIGINT       NOT NULL,
+    room_code      VARCHAR(255) NOT NULL,
+    score          INT          NOT NULL,
+    player_rank    INT          NOT NULL,
+    player_count   INT          NULL,
+    question_count INT          NULL,
+    end_time       DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_player_game_result (player_id, game_id),
+    KEY idx_player_end_time (player_id, end_time, game_id),
+    KEY idx_game (game_id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+-- 玩家统计汇总
+CREATE TABLE IF NOT EXISTS player_stats (
+    id             BIGINT      NOT NULL AUTO_INCREMENT,
+    player_id      VARCHAR(64) NOT NULL,
+    games_played   INT         NOT NULL,
+    wins           INT         NOT NULL,
+    total_score    BIGINT      NOT NULL,
+    best_score     INT         NULL,
+    worst_score    INT         NULL,
+    best_rank      INT         NULL,
+    rank_sum       BIGINT      NOT NULL,
+    last_game_id   BIGINT      NULL,
+    last_played_at DATETIME(6) NULL,
+    updated_at     DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_player_stats_player (player_id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+-- 玩家按题型（策略）统计
+CREATE TABLE IF NOT EXISTS player_strategy_stats (
+    id                   BIGINT      NOT NULL AUTO_INCREMENT,
+    player_id            VARCHAR(64) NOT NULL,
+    strategy_id          VARCHAR(64) NOT NULL,
+    answers              INT         NOT NULL,
+    score_sum            BIGINT      NOT NULL,
+    best_score           INT         NULL,
+    worst_score          INT         NULL,
+    numeric_choice_sum   DOUBLE      NOT NULL,
+    numeric_choice_count INT         NOT NULL,
+    choice_counts_json   TEXT        NULL,
+    updated_at           DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_player_strategy (player_id, strategy_id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+-- 选项分布（按题型、人数、选项累加）
+CREATE TABLE IF NOT EXISTS choice_histograms (
+    id           BIGINT       NOT NULL AUTO_INCREMENT,
+    strategy_id  VARCHAR(64)  NOT NULL,
+    player_count INT          NOT NULL,
+    choice       VARCHAR(255) NOT NULL,
+    answer_count BIGINT       NOT NULL,
+    updated_at   DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_strategy_players_choice (strategy_id, player_count, choice)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+-- 回填任务进度（选项分布回填、玩家战绩索引回填等，按任务名一行）
+CREATE TABLE IF NOT EXISTS analytics_job_state (
+    job_name    VARCHAR(64) NOT NULL,
+    boundary_id BIGINT      NOT NULL,
+    cursor_id   BIGINT      NOT NULL,
+    completed   BIT(1)      NOT NULL,
+    updated_at  DATETIME(6) NOT NULL,
+    PRIMARY KEY (job_name)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+-- 题目批量导入任务
+CREATE TABLE IF NOT EXISTS question_import_jobs (
+    job_id          VARCHAR(64)  NOT NULL,
+    status          ENUM ('PENDING','VALIDATING','IMPORTING','COMPLETED','FAILED') NOT NULL,
+    file_name       VARCHAR(255) NOT NULL,
+    total_count     BIGINT       NULL,
+    committed_count BIGINT       NOT NULL,
+    message         TEXT         NULL,
+    created_at      DATETIME(6)  NOT NULL,
+    updated_at      DATETIME(6)  NOT NULL,
+    PRIMARY KEY (job_id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+-- 种子数据加载状态（questions.json / question-tags.json 的校验和）
+CREATE TABLE IF NOT EXISTS seed_state (
+    seed_name  VARCHAR(64) NOT NULL,
+    checksum   VARCHAR(64) NOT NULL,
+    item_count BIGINT      NOT NULL,
+    loaded     BIT(1)      NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (seed_name)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+-- 已计入玩家统计的游戏（防止同一局重复累加）
+CREATE TABLE IF NOT EXISTS player_stats_games (
+    game_id     BIGINT      NOT NULL,
+    recorded_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (game_id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
@@ -7,14 +7,16 @@ import org.example.repository.PlayerRepository;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
+import java.time.Instant;
 import java.util.UUID;
 
 /**
  * 开发环境数据初始化器
- * 自动创建测试账号
+ * 自动创建测试账号（后台执行，密码加密较慢，不阻塞启动）
  * ⚠️ 只在开发环境运行（@Profile("dev")）
  */
 @Component
@@ -25,10 +27,11 @@ public class DevDataInitializer implements ApplicationRunner {
 
     private final PlayerRepository playerRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TaskScheduler taskScheduler;
 
     @Override
     public void run(ApplicationArguments args) {
-        createTestAccounts();
+        taskScheduler.schedule(this::createTestAccounts, Instant.now());
     }
 
     /**
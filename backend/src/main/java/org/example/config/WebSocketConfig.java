@@ -1,5 +1,8 @@
 package org.example.config;
 
+import lombok.RequiredArgsConstructor;
+import org.example.websocket.outbound.OutboundSessionHandlerDecorator;
+import org.example.websocket.outbound.SessionOutboundExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -21,8 +24,12 @@ import java.security.Principal;
 
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final SessionOutboundExecutor outboundExecutor;
+    private final WebSocketOutboundProperties outboundProperties;
+
     @Value("${cors.allowed-origins}")
     private String allowedOrigins;
 
@@ -72,11 +79,16 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void configureClientOutboundChannel(ChannelRegistration registration) {
-        // 🔥 出站通道也需要大容量，防止广播消息时队列满
-        registration.taskExecutor()
-                .corePoolSize(32)       // 🔥 从 8 增加到 32
-                .maxPoolSize(64)        // 🔥 从 16 增加到 64
-                .queueCapacity(50000);  // 🔥 从 1000 增加到 50000
+        // 🔥 出站不再使用共享大队列：每个会话独立的有界队列，慢客户端只影响自己
+        registration.executor(outboundExecutor);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // 会话注册到出站执行器；Spring 自带的发送缓冲作为兜底，同样有界
+        registration.addDecoratorFactory(handler -> new OutboundSessionHandlerDecorator(handler, outboundExecutor))
+                .setSendTimeLimit((int) outboundProperties.getSendTimeLimitMs())
+                .setSendBufferSizeLimit(outboundProperties.getMaxBufferBytes());
     }
 
     // WebSocket通道拦截器，用于处理连接和断开事件
@@ -0,0 +1,48 @@
+package org.example.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * WebSocket 出站通道配置（每个会话独立的发送缓冲区）
+ */
+@Configuration
+@ConfigurationProperties(prefix = "websocket.outbound")
+@Data
+public class WebSocketOutboundProperties {
+
+    /**
+     * 单个会话最多积压的消息条数，超出即断开
+     */
+    private int maxQueuedMessages = 500;
+
+    /**
+     * 单个会话最多积压的字节数，超出即断开
+     */
+    private int maxBufferBytes = 512 * 1024;
+
+    /**
+     * 最老一条未发送消息允许等待的时间（毫秒），超出即视为慢客户端
+     */
+    private long sendTimeLimitMs = 10_000;
+
+    /**
+     * 发送线程数（所有会话共享，每个会话同一时刻最多占用一个线程）
+     */
+    private int workerPoolSize = 32;
+
+    /**
+     * 单个会话每轮最多连续发送的消息数，避免长队列独占线程
+     */
+    private int drainBatchSize = 64;
+
+    /**
+     * 可合并的目的地（Ant 风格），队列中只保留同一目的地的最新一条
+     * 默认只合并房间状态快照 /topic/room/{roomCode}
+     */
+    private List<String> coalesceDestinations = new ArrayList<>(List.of("/topic/room/*"));
+}
@@ -0,0 +1,83 @@
+package org.example.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.exception.BusinessException;
+import org.example.service.retention.RetentionService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 数据归档管理 Controller
+ */
+@RestController
+@RequestMapping("/api/admin/retention")
+@RequiredArgsConstructor
+@Slf4j
+public class AdminRetentionController {
+
+    private final RetentionService retentionService;
+
+    /**
+     * 手动执行一次归档
+     */
+    @PostMapping("/run")
+    public ResponseEntity<Map<String, Object>> run() {
+        try {
+            return ResponseEntity.ok(retentionService.runArchive());
+        } catch (BusinessException e) {
+            log.error("数据归档失败: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    /**
+     * 归档配置和最近一次结果
+     */
+    @GetMapping("/status")
+    public ResponseEntity<Map<String, Object>> status() {
+        return ResponseEntity.ok(retentionService.getStatus());
+    }
+
+    /**
+     * 归档文件列表
+     */
+    @GetMapping("/archives")
+    public ResponseEntity<List<String>> listArchives() {
+        return ResponseEntity.ok(retentionService.listArchives());
+    }
+
+    /**
+     * 把归档文件导回 {表名}_restored 表
+     * POST /api/admin/retention/import?path=submissions/20260101-030000_1-5000.ndjson.gz
+     */
+    @PostMapping("/import")
+    public ResponseEntity<Map<String, Object>> importArchive(@RequestParam String path) {
+        try {
+            int rows = retentionService.importArchive(path);
+            return ResponseEntity.ok(Map.of("path", path, "rows", rows));
+        } catch (BusinessException e) {
+            log.error("导入归档失败: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    /**
+     * 生成按月分区 DDL（需人工审核后执行）
+     */
+    @GetMapping(value = "/partition-ddl", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<String> partitionDdl(
+            @RequestParam String table,
+            @RequestParam(defaultValue = "12") Integer months) {
+        try {
+            return ResponseEntity.ok(retentionService.buildPartitionDdl(
+                    RetentionService.ArchiveTable.fromName(table), months));
+        } catch (BusinessException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package org.example.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.example.dto.SessionBacklogDTO;
+import org.example.websocket.outbound.SessionOutboundExecutor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * WebSocket 运行状态 Controller
+ */
+@RestController
+@RequestMapping("/api/admin/websocket")
+@RequiredArgsConstructor
+public class AdminWebSocketController {
+
+    private final SessionOutboundExecutor outboundExecutor;
+
+    /**
+     * 各会话出站积压情况（按积压条数倒序）
+     */
+    @GetMapping("/sessions")
+    public ResponseEntity<Map<String, Object>> getSessionBacklog(
+            @RequestParam(defaultValue = "50") Integer limit
+    ) {
+        List<SessionBacklogDTO> sessions = outboundExecutor.snapshot();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("sessionCount", sessions.size());
+        response.put("totalQueuedMessages", sessions.stream().mapToLong(SessionBacklogDTO::getQueuedMessages).sum());
+        response.put("totalQueuedBytes", sessions.stream().mapToLong(SessionBacklogDTO::getQueuedBytes).sum());
+        response.put("slowDisconnects", outboundExecutor.getSlowDisconnects());
+        response.put("sessions", sessions.subList(0, Math.min(limit, sessions.size())));
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.example.dto.ChatMessage;
+import org.example.service.chat.ChatService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 聊天记录 Controller（最近消息，来自内存）
+ */
+@RestController
+@RequestMapping("/api/rooms/{roomCode}/chat")
+@RequiredArgsConstructor
+public class ChatController {
+
+    private final ChatService chatService;
+
+    /**
+     * 获取房间最近的聊天记录
+     */
+    @GetMapping
+    public ResponseEntity<List<ChatMessage>> getHistory(
+            @PathVariable String roomCode,
+            @RequestParam(defaultValue = "50") Integer limit
+    ) {
+        return ResponseEntity.ok(chatService.getHistory(roomCode, limit));
+    }
+}
@@ -3,37 +3,59 @@ package org.example.controller;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.dto.ChatMessage;
+import org.example.dto.PlayerDTO;
+import org.example.pojo.GameRoom;
+import org.example.service.broadcast.RoomStateBroadcaster;
+import org.example.service.cache.RoomCache;
+import org.example.service.chat.ChatService;
+import org.example.utils.RoomLock;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
+import java.security.Principal;
 import java.time.LocalDateTime;
+import java.util.Map;
 
 @Controller
 @RequiredArgsConstructor
 @Slf4j
 public class ChatWebSocketController {
-    private final SimpMessagingTemplate messagingTemplate;
+    private final ChatService chatService;
+    private final RoomStateBroadcaster broadcaster;
+    private final RoomCache roomCache;
 
     /**
      * 发送聊天消息
      * 客户端发送到: /app/chat/{roomCode}
-     * 广播到: /topic/room/{roomCode}/chat
+     * 广播到: /topic/room/{roomCode}/chat（批量推送，消息体为数组）
      */
     @MessageMapping("/chat/{roomCode}")
     public void sendMessage(@DestinationVariable String roomCode,
-                            @Payload ChatMessage message) {
+                            @Payload ChatMessage message,
+                            SimpMessageHeaderAccessor headerAccessor,
+                            Principal principal) {
+        // 🔥 发送者以连接时认证的 playerId（或加入时记录在 session 中的 playerId）为准，且必须是房间成员
+        PlayerDTO sender = findMember(roomCode, currentPlayerId(headerAccessor, principal));
+        if (sender == null) {
+            log.warn("⚠️ 拒绝非房间成员的聊天消息, roomCode={}, sessionId={}", roomCode, headerAccessor.getSessionId());
+            return;
+        }
+
         // 设置时间戳
         message.setTimestamp(LocalDateTime.now());
         message.setRoomCode(roomCode);
-
-        log.info("房间 {} 收到消息: {} - {}", roomCode, message.getSenderName(), message.getContent());
-
-        // 广播到房间的所有订阅者
-        messagingTemplate.convertAndSend("/topic/room/" + roomCode + "/chat", message);
+        message.setType(ChatMessage.MessageType.CHAT);
+        message.setSenderId(sender.getPlayerId());
+        message.setSenderName(sender.getName());
+
+        // 限流按认证身份，未认证的连接按 STOMP 会话，避免伪造 senderId 绕过
+        String senderKey = principal != null ? principal.getName() : "session:" + headerAccessor.getSessionId();
+        if (!chatService.publish(roomCode, message, senderKey) && principal != null) {
+            broadcaster.sendErrorToPlayer(principal.getName(), "发言太快，请稍后再试");
+        }
     }
 
     /**
@@ -42,20 +64,27 @@ public class ChatWebSocketController {
     @MessageMapping("/room/{roomCode}/join")
     public void playerJoin(@DestinationVariable String roomCode,
                            @Payload ChatMessage message,
-                           SimpMessageHeaderAccessor headerAccessor) {
+                           SimpMessageHeaderAccessor headerAccessor,
+                           Principal principal) {
+        // 只接受已通过 REST 接口加入房间的玩家
+        PlayerDTO player = findMember(roomCode, principal != null ? principal.getName() : message.getSenderId());
+        if (player == null) {
+            log.warn("⚠️ 拒绝非房间成员的加入消息, roomCode={}, senderId={}", roomCode, message.getSenderId());
+            return;
+        }
 
         // 保存玩家信息到 WebSocket session
-        headerAccessor.getSessionAttributes().put("playerId", message.getSenderId());
-        headerAccessor.getSessionAttributes().put("playerName", message.getSenderName());
+        headerAccessor.getSessionAttributes().put("playerId", player.getPlayerId());
+        headerAccessor.getSessionAttributes().put("playerName", player.getName());
         headerAccessor.getSessionAttributes().put("roomCode", roomCode);
 
         // 创建加入消息
-        ChatMessage joinMessage = ChatMessage.join(roomCode, message.getSenderName());
+        ChatMessage joinMessage = ChatMessage.join(roomCode, player.getName());
 
-        log.info("玩家 {} 加入房间 {}", message.getSenderName(), roomCode);
+        log.info("玩家 {} 加入房间 {}", player.getName(), roomCode);
 
         // 广播加入消息
-        messagingTemplate.convertAndSend("/topic/room/" + roomCode + "/chat", joinMessage);
+        chatService.publish(roomCode, joinMessage, null);
     }
 
     /**
@@ -63,18 +92,25 @@ public class ChatWebSocketController {
      */
     @MessageMapping("/room/{roomCode}/ready")
     public void playerReady(@DestinationVariable String roomCode,
-                            @Payload ChatMessage message) {
+                            @Payload ChatMessage message,
+                            SimpMessageHeaderAccessor headerAccessor,
+                            Principal principal) {
+        PlayerDTO player = findMember(roomCode, currentPlayerId(headerAccessor, principal));
+        if (player == null) {
+            log.warn("⚠️ 拒绝非房间成员的准备消息, roomCode={}, sessionId={}", roomCode, headerAccessor.getSessionId());
+            return;
+        }
 
         // 从消息内容中判断是准备还是取消准备
         boolean isReady = message.getType() == ChatMessage.MessageType.READY;
 
-        ChatMessage readyMessage = ChatMessage.ready(roomCode, message.getSenderName(), isReady);
+        ChatMessage readyMessage = ChatMessage.ready(roomCode, player.getName(), isReady);
 
-        log.info("玩家 {} 在房间 {} 中{}", message.getSenderName(), roomCode,
+        log.debug("玩家 {} 在房间 {} 中{}", player.getName(), roomCode,
                 isReady ? "已准备" : "取消准备");
 
         // 广播准备消息
-        messagingTemplate.convertAndSend("/topic/room/" + roomCode + "/chat", readyMessage);
+        chatService.publish(roomCode, readyMessage, null);
     }
 
     /**
@@ -82,7 +118,7 @@ public class ChatWebSocketController {
      */
     public void sendSystemMessage(String roomCode, String content) {
         ChatMessage systemMessage = ChatMessage.system(roomCode, content);
-        messagingTemplate.convertAndSend("/topic/room/" + roomCode + "/chat", systemMessage);
+        chatService.publish(roomCode, systemMessage, null);
     }
 
     /**
@@ -96,7 +132,7 @@ public class ChatWebSocketController {
                 .timestamp(LocalDateTime.now())
                 .build();
 
-        messagingTemplate.convertAndSend("/topic/room/" + roomCode + "/chat", message);
+        chatService.publish(roomCode, message, null);
     }
 
     /**
@@ -110,6 +146,38 @@ public class ChatWebSocketController {
                 .timestamp(LocalDateTime.now())
                 .build();
 
-        messagingTemplate.convertAndSend("/topic/room/" + roomCode + "/chat", message);
+        chatService.publish(roomCode, message, null);
+    }
+
+    // ==================== 私有方法 ====================
+
+    /**
+     * 当前连接对应的玩家：优先取连接时认证的 playerId，其次取加入房间时写入 session 的 playerId
+     */
+    private String currentPlayerId(SimpMessageHeaderAccessor headerAccessor, Principal principal) {
+        if (principal != null) {
+            return principal.getName();
+        }
+        Map<String, Object> attributes = headerAccessor.getSessionAttributes();
+        return attributes != null ? (String) attributes.get("playerId") : null;
+    }
+
+    /**
+     * 房间存在且 playerId 是其成员时返回该玩家，否则返回 null
+     */
+    private PlayerDTO findMember(String roomCode, String playerId) {
+        if (playerId == null) {
+            return null;
+        }
+        GameRoom gameRoom = roomCache.get(roomCode);
+        if (gameRoom == null) {
+            return null;
+        }
+        synchronized (RoomLock.getLock(roomCode)) {
+            return gameRoom.getPlayers().stream()
+                    .filter(p -> playerId.equals(p.getPlayerId()))
+                    .findFirst()
+                    .orElse(null);
+        }
     }
 }
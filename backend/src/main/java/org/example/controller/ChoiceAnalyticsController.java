@@ -0,0 +1,59 @@
+package org.example.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.ChoiceHistogramDTO;
+import org.example.service.analytics.ChoiceAnalyticsService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 选项分布分析 Controller
+ * 按策略（Q001~Q013、QR001/QR002 等）和游戏人数查看玩家的选择分布
+ */
+@RestController
+@RequestMapping("/api/analytics/choices")
+@RequiredArgsConstructor
+@Slf4j
+public class ChoiceAnalyticsController {
+
+    private final ChoiceAnalyticsService choiceAnalyticsService;
+
+    /**
+     * 所有策略的总作答次数
+     */
+    @GetMapping
+    public ResponseEntity<List<ChoiceHistogramDTO>> listStrategies() {
+        return ResponseEntity.ok(choiceAnalyticsService.listStrategies());
+    }
+
+    /**
+     * 某种策略的选项分布，playerCount 不传时返回所有人数分桶
+     */
+    @GetMapping("/{strategyId}")
+    public ResponseEntity<ChoiceHistogramDTO> getHistogram(
+            @PathVariable String strategyId,
+            @RequestParam(required = false) Integer playerCount) {
+        return ResponseEntity.ok(choiceAnalyticsService.getHistogram(strategyId, playerCount));
+    }
+
+    /**
+     * 回填历史提交记录（reset=true 时清空后从头回填，否则从断点继续）
+     */
+    @PostMapping("/backfill")
+    public ResponseEntity<Map<String, Object>> backfill(@RequestParam(defaultValue = "false") boolean reset) {
+        log.info("📊 触发选项分布回填, reset={}", reset);
+        return ResponseEntity.ok(choiceAnalyticsService.startBackfill(reset));
+    }
+
+    /**
+     * 回填进度
+     */
+    @GetMapping("/backfill")
+    public ResponseEntity<Map<String, Object>> backfillStatus() {
+        return ResponseEntity.ok(choiceAnalyticsService.getBackfillStatus());
+    }
+}
@@ -0,0 +1,26 @@
+package org.example.controller;
+
+import org.example.dto.ClockSyncDTO;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.stereotype.Controller;
+
+/**
+ * 时钟同步
+ * 客户端发送到: /app/time/sync，回复到: /user/queue/time（只发给当前会话）
+ */
+@Controller
+public class ClockSyncController {
+
+    @MessageMapping("/time/sync")
+    @SendToUser(destinations = "/queue/time", broadcast = false)
+    public ClockSyncDTO sync(@Payload ClockSyncDTO request) {
+        long received = System.currentTimeMillis();
+        return ClockSyncDTO.builder()
+                .t0(request.getT0())
+                .t1(received)
+                .t2(System.currentTimeMillis())
+                .build();
+    }
+}
@@ -8,14 +8,23 @@ import lombok.extern.slf4j.Slf4j;
 import org.example.dto.*;
 import org.example.exception.BusinessException;
 import org.example.pojo.GameRoom;
+import org.example.pojo.RoomStatus;
 import org.example.service.game.GameService;
 import org.example.service.broadcast.RoomStateBroadcaster;
 import org.example.service.cache.RoomCache;
+import org.example.service.history.GameHistoryService;
+import org.example.service.history.GameResultCache;
+import org.example.service.leaderboard.LeaderboardService;
+import org.example.service.lobby.LobbyIndex;
 import org.example.service.room.RoomLifecycleService;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api")
@@ -27,6 +36,8 @@ public class GameController {
     private final RoomStateBroadcaster broadcaster;
     private final RoomCache roomCache;
     private final RoomLifecycleService roomLifecycleService;
+    private final LeaderboardService leaderboardService;
+    private final GameHistoryService gameHistoryService;
 
     @PostMapping("/rooms")
     public ResponseEntity<RoomDTO> createRoom(
@@ -65,6 +76,62 @@ public class GameController {
         }
     }
 
+    /**
+     * 获取房间某一题的题目内容
+     * 同一房间同一索引的题目不会变化，客户端可按 ETag 长期缓存
+     */
+    @GetMapping("/rooms/{roomCode}/questions/{questionIndex}")
+    public ResponseEntity<RoomQuestionDTO> getRoomQuestion(
+            @PathVariable String roomCode,
+            @PathVariable Integer questionIndex,
+            WebRequest webRequest) {
+        try {
+            RoomQuestionDTO question = roomLifecycleService.toRoomQuestionDTO(roomCode, questionIndex);
+            if (question == null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            String etag = "\"" + question.getVersion() + "\"";
+            if (webRequest.checkNotModified(etag)) {
+                return null;  // 304，由 Spring 处理
+            }
+
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .cacheControl(CacheControl.maxAge(1, TimeUnit.HOURS).cachePrivate())
+                    .body(question);
+        } catch (BusinessException e) {
+            log.error("❌ 获取房间题目失败: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * 获取房间当前完整排行榜（实时排行榜增量跳号时用来重新对齐）
+     */
+    @GetMapping("/rooms/{roomCode}/leaderboard")
+    public ResponseEntity<List<PlayerRankDTO>> getRoomLeaderboard(@PathVariable String roomCode) {
+        GameRoom gameRoom = roomCache.get(roomCode);
+        if (gameRoom == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(leaderboardService.buildLeaderboard(gameRoom));
+    }
+
+    /**
+     * 查询玩家当前名次（只对进行中的房间有效）
+     */
+    @GetMapping("/rooms/{roomCode}/players/{playerId}/rank")
+    public ResponseEntity<Map<String, Object>> getPlayerRank(
+            @PathVariable String roomCode,
+            @PathVariable String playerId) {
+        Integer rank = leaderboardService.getLiveRank(roomCode, playerId);
+        if (rank == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(Map.of("playerId", playerId, "rank", rank));
+    }
+
     @PutMapping("/rooms/{roomCode}/settings")
     public ResponseEntity<RoomDTO> updateRoomSettings(
             @PathVariable String roomCode,
@@ -173,15 +240,27 @@ public class GameController {
         }
     }
 
+    /**
+     * 大厅房间列表（摘要，游标分页）
+     * 新房间在前，下一页传入上一页返回的 nextCursor；变化通过 /topic/lobby 增量推送
+     */
     @GetMapping("/rooms")
-    public ResponseEntity<List<RoomDTO>> getActiveRooms() {
-        try {
-            List<RoomDTO> rooms = gameService.getAllActiveRoom();
-            return ResponseEntity.ok(rooms);
-        } catch (BusinessException e) {
-            log.error(e.getMessage());
-            return ResponseEntity.badRequest().body(null);
-        }
+    public ResponseEntity<LobbyPageDTO> getActiveRooms(
+            @RequestParam(required = false) RoomStatus status,
+            @RequestParam(required = false) Boolean joinable,
+            @RequestParam(required = false) Boolean hasPassword,
+            @RequestParam(required = false) Long tagId,
+            @RequestParam(required = false) String codePrefix,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "20") Integer limit) {
+        LobbyIndex.Filter filter = LobbyIndex.Filter.builder()
+                .status(status)
+                .joinable(joinable)
+                .hasPassword(hasPassword)
+                .tagId(tagId)
+                .codePrefix(codePrefix)
+                .build();
+        return ResponseEntity.ok(gameService.getLobbyRooms(filter, cursor, limit));
     }
 
     /**
@@ -189,10 +268,24 @@ public class GameController {
      * 优先返回已保存的结果，否则返回当前游戏状态
      */
     @GetMapping("/rooms/{roomCode}/history")
-    public ResponseEntity<GameHistoryDTO> getGameHistory(@PathVariable String roomCode) {
+    public ResponseEntity<GameHistoryDTO> getGameHistory(@PathVariable String roomCode, WebRequest webRequest) {
         try {
+            // 🔥 已保存的结果走缓存并支持 304（房间号可能复用，所以每次都要求重新校验）
+            GameResultCache.Entry entry = gameHistoryService.findFinishedHistoryByRoomCode(roomCode);
+            if (entry != null) {
+                if (webRequest.checkNotModified(entry.getEtag())) {
+                    return null;  // 304，由 Spring 处理
+                }
+                return ResponseEntity.ok()
+                        .eTag(entry.getEtag())
+                        .cacheControl(CacheControl.noCache().cachePrivate())
+                        .body(entry.getHistory());
+            }
+
             GameHistoryDTO history = gameService.getGameHistoryByRoomCode(roomCode);
-            return ResponseEntity.ok(history);
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noStore())
+                    .body(history);
         } catch (BusinessException e) {
             log.error("获取游戏历史失败: {}", e.getMessage());
             return ResponseEntity.badRequest().body(null);
@@ -4,11 +4,24 @@ import lombok.extern.slf4j.Slf4j;
 import org.example.dto.*;
 import org.example.exception.BusinessException;
 import org.example.service.game.GameService;
+import org.example.service.history.GameHistoryService;
+import org.example.service.history.GameResultCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/games")
@@ -18,6 +31,9 @@ public class GameHistoryController {
     @Autowired
     private GameService gameService;
 
+    @Autowired
+    private GameHistoryService gameHistoryService;
+
     /**
      * 获取所有历史记录列表
      */
@@ -35,14 +51,76 @@ public class GameHistoryController {
         }
     }
 
+    /**
+     * 获取玩家个人历史（keyset 分页）
+     * 第一页不传 cursor，之后传上一页返回的 nextCursor
+     */
+    @GetMapping("/history/players/{playerId}")
+    public ResponseEntity<GameHistoryPageDTO> getPlayerHistoryPage(
+            @PathVariable String playerId,
+            @RequestParam(required = false) Integer days,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") Integer limit) {
+        try {
+            return ResponseEntity.ok(gameService.getPlayerHistoryPage(playerId, days, cursor, limit));
+        } catch (BusinessException e) {
+            log.error("获取个人历史失败: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    /**
+     * 流式导出游戏历史（NDJSON，每行一场），按主键分批读取，不会一次性加载到内存
+     * GET /api/games/history/export?from=2026-09-01&to=2026-09-30&roomCode=&playerId=&details=true&gzip=true
+     * from / to 为结束日期（含），gzip=true 时下载 .ndjson.gz
+     */
+    @GetMapping("/history/export")
+    public ResponseEntity<StreamingResponseBody> exportHistory(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String roomCode,
+            @RequestParam(required = false) String playerId,
+            @RequestParam(defaultValue = "true") boolean details,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+
+        LocalDateTime start = from != null ? from.atStartOfDay() : null;
+        LocalDateTime end = to != null ? to.plusDays(1).atStartOfDay() : null;
+        String room = roomCode != null && !roomCode.isBlank() ? roomCode : null;
+        String player = playerId != null && !playerId.isBlank() ? playerId : null;
+
+        StreamingResponseBody body = outputStream -> {
+            OutputStream out = gzip ? new GZIPOutputStream(outputStream, 8192) : outputStream;
+            gameHistoryService.exportHistory(start, end, room, player, details, out);
+            if (out instanceof GZIPOutputStream gzipOut) {
+                gzipOut.finish();
+            }
+            out.flush();
+        };
+
+        String filename = "game-history-" + LocalDate.now() + (gzip ? ".ndjson.gz" : ".ndjson");
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip")
+                        : MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .cacheControl(CacheControl.noStore())
+                .body(body);
+    }
+
     /**
      * 获取单场游戏的详细历史（用于弹窗）
+     * 已结束的游戏结果不会变化，带强 ETag 长期缓存，If-None-Match 命中返回 304
      */
     @GetMapping("/history/{gameId}")
-    public ResponseEntity<GameHistoryDTO> getHistoryDetail(@PathVariable Long gameId) {
+    public ResponseEntity<GameHistoryDTO> getHistoryDetail(@PathVariable Long gameId, WebRequest webRequest) {
         try {
-            GameHistoryDTO dto = gameService.getHistoryDetail(gameId);
-            return ResponseEntity.ok(dto);
+            GameResultCache.Entry entry = gameHistoryService.getFinishedHistory(gameId);
+            if (webRequest.checkNotModified(entry.getEtag())) {
+                return null;  // 304，由 Spring 处理
+            }
+            return ResponseEntity.ok()
+                    .eTag(entry.getEtag())
+                    .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable())
+                    .body(entry.getHistory());
         } catch (BusinessException e) {
             log.error("获取游戏详情失败: {}", e.getMessage());
             return ResponseEntity.badRequest().body(null);
@@ -51,4 +129,22 @@ public class GameHistoryController {
             return ResponseEntity.internalServerError().body(null);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 获取单场游戏某一道题的详情（不解压整局）
+     */
+    @GetMapping("/history/{gameId}/questions/{questionIndex}")
+    public ResponseEntity<QuestionDetailDTO> getQuestionDetail(
+            @PathVariable Long gameId,
+            @PathVariable Integer questionIndex) {
+        try {
+            QuestionDetailDTO detail = gameHistoryService.getQuestionDetail(gameId, questionIndex);
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable())
+                    .body(detail);
+        } catch (BusinessException e) {
+            log.error("获取题目详情失败: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.GlobalPlayerRankDTO;
+import org.example.dto.GlobalRankEntryDTO;
+import org.example.service.leaderboard.GlobalLeaderboardService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 全局 / 赛季排行榜 Controller
+ * metric: score（总分） / games（场次） / winrate（胜率）
+ * season: 不传为总榜，current 为当前赛季，或指定赛季（如 2026-10）
+ */
+@RestController
+@RequestMapping("/api/leaderboard")
+@RequiredArgsConstructor
+@Slf4j
+public class GlobalLeaderboardController {
+
+    private final GlobalLeaderboardService globalLeaderboardService;
+
+    /**
+     * 前 N 名
+     */
+    @GetMapping("/{metric}")
+    public ResponseEntity<List<GlobalRankEntryDTO>> getTop(
+            @PathVariable String metric,
+            @RequestParam(required = false) String season,
+            @RequestParam(defaultValue = "20") Integer limit) {
+        return ResponseEntity.ok(globalLeaderboardService.getTop(
+                GlobalLeaderboardService.Metric.fromKey(metric), season, limit));
+    }
+
+    /**
+     * 玩家附近的名次
+     */
+    @GetMapping("/{metric}/around/{playerId}")
+    public ResponseEntity<List<GlobalRankEntryDTO>> getAround(
+            @PathVariable String metric,
+            @PathVariable String playerId,
+            @RequestParam(required = false) String season,
+            @RequestParam(defaultValue = "5") Integer radius) {
+        return ResponseEntity.ok(globalLeaderboardService.getAround(
+                GlobalLeaderboardService.Metric.fromKey(metric), season, playerId, radius));
+    }
+
+    /**
+     * 玩家名次与百分位
+     */
+    @GetMapping("/{metric}/players/{playerId}")
+    public ResponseEntity<GlobalPlayerRankDTO> getPlayerRank(
+            @PathVariable String metric,
+            @PathVariable String playerId,
+            @RequestParam(required = false) String season) {
+        return ResponseEntity.ok(globalLeaderboardService.getPlayerRank(
+                GlobalLeaderboardService.Metric.fromKey(metric), season, playerId));
+    }
+
+    /**
+     * 手动从 MySQL 重建（平时由定时校准任务完成）
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuild() {
+        int games = globalLeaderboardService.rebuild();
+        log.info("✅ 手动重建全局排行榜完成，共 {} 场", games);
+        return ResponseEntity.ok(Map.of("games", games));
+    }
+}
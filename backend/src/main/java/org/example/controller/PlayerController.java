@@ -2,13 +2,16 @@ package org.example.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.dto.PlayerStatsDTO;
 import org.example.entity.PlayerEntity;
 import org.example.exception.BusinessException;
 import org.example.service.player.PlayerService;
+import org.example.service.stats.PlayerStatsService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/players")
@@ -17,6 +20,7 @@ import java.util.List;
 public class PlayerController {
 
     private final PlayerService playerService;
+    private final PlayerStatsService playerStatsService;
 
     /**
      * 获取所有玩家
@@ -39,6 +43,31 @@ public class PlayerController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * 获取玩家累计统计（单行聚合查询）
+     * GET /api/players/{playerId}/stats
+     */
+    @GetMapping("/{playerId}/stats")
+    public ResponseEntity<PlayerStatsDTO> getPlayerStats(@PathVariable String playerId) {
+        return ResponseEntity.ok(playerStatsService.getPlayerStats(playerId));
+    }
+
+    /**
+     * 从历史游戏结果重建玩家统计
+     * POST /api/players/stats/rebuild
+     */
+    @PostMapping("/stats/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildStats() {
+        try {
+            int games = playerStatsService.rebuild();
+            log.info("✅ 玩家统计重建完成，共 {} 场", games);
+            return ResponseEntity.ok(Map.of("games", games));
+        } catch (BusinessException e) {
+            log.error("重建玩家统计失败: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
     /**
      * 更新玩家准备状态
      * PUT /api/players/{playerId}/ready?ready=true
@@ -4,19 +4,32 @@ import lombok.extern.slf4j.Slf4j;
 import org.example.dto.QuestionDTO;
 import org.example.exception.BusinessException;
 import org.example.service.question.QuesService;
+import org.example.utils.QuestionDataInitializer;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @RestController
 @RequestMapping("/api/question")
 public class QuesController {
     private final QuesService questionService;
+    private final QuestionDataInitializer questionDataInitializer;
 
-    public QuesController(QuesService questionService) {
+    public QuesController(QuesService questionService, QuestionDataInitializer questionDataInitializer) {
         this.questionService = questionService;
+        this.questionDataInitializer = questionDataInitializer;
+    }
+
+    /**
+     * 题库是否就绪（种子数据在后台加载，完成前不能开局）
+     * GET /api/question/ready
+     */
+    @GetMapping("/ready")
+    public ResponseEntity<Map<String, Boolean>> ready() {
+        return ResponseEntity.ok(Map.of("ready", questionDataInitializer.isReady()));
     }
 
     /**
@@ -3,14 +3,23 @@ package org.example.controller;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.dto.QuestionDTO;
+import org.example.dto.QuestionImportJobDTO;
 import org.example.entity.QuestionEntity;
+import org.example.exception.BusinessException;
 import org.example.service.question.QuesService;
+import org.example.service.question.QuestionImportService;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -21,6 +30,7 @@ import java.util.Map;
 public class QuestionAdminController {
 
     private final QuesService questionService;
+    private final QuestionImportService questionImportService;
 
     /**
      * 批量导入题目（从JSON）
@@ -44,13 +54,77 @@ public class QuestionAdminController {
     }
 
     /**
-     * 导出所有题目为JSON
+     * 只校验导入文件，不写入（请求体为题目 JSON 数组，流式解析）
+     * POST /api/admin/questions/import/validate
+     */
+    @PostMapping("/import/validate")
+    public ResponseEntity<Map<String, Object>> validateImport(InputStream body) {
+        return ResponseEntity.ok(questionImportService.validate(body));
+    }
+
+    /**
+     * 大批量导入：保存请求体后在后台校验并分批导入，返回任务 ID
+     * POST /api/admin/questions/import/jobs
+     */
+    @PostMapping("/import/jobs")
+    public ResponseEntity<?> createImportJob(InputStream body) {
+        try {
+            return ResponseEntity.ok(questionImportService.createJob(body));
+        } catch (BusinessException e) {
+            log.error("创建导入任务失败: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    /**
+     * 最近的导入任务
+     * GET /api/admin/questions/import/jobs
+     */
+    @GetMapping("/import/jobs")
+    public ResponseEntity<List<QuestionImportJobDTO>> listImportJobs() {
+        return ResponseEntity.ok(questionImportService.listJobs());
+    }
+
+    /**
+     * 导入任务进度
+     * GET /api/admin/questions/import/jobs/{jobId}
+     */
+    @GetMapping("/import/jobs/{jobId}")
+    public ResponseEntity<?> getImportJob(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(questionImportService.getJob(jobId));
+        } catch (BusinessException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    /**
+     * 从上次提交的位置续传
+     * POST /api/admin/questions/import/jobs/{jobId}/resume
+     */
+    @PostMapping("/import/jobs/{jobId}/resume")
+    public ResponseEntity<?> resumeImportJob(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(questionImportService.resumeJob(jobId));
+        } catch (BusinessException e) {
+            log.error("续传导入任务失败: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    /**
+     * 导出所有题目为JSON（流式输出，格式与导入相同）
      * GET /api/admin/questions/export
      */
     @GetMapping("/export")
-    public ResponseEntity<List<QuestionDTO>> exportQuestions() {
-        List<QuestionDTO> questions = questionService.exportAll();
-        return ResponseEntity.ok(questions);
+    public ResponseEntity<StreamingResponseBody> exportQuestions() {
+        StreamingResponseBody body = questionService::exportAll;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"questions-" + LocalDate.now() + ".json\"")
+                .cacheControl(CacheControl.noStore())
+                .body(body);
     }
 
     /**
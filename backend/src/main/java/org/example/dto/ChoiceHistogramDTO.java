@@ -0,0 +1,32 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 某种策略的选项分布（按游戏人数分桶）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChoiceHistogramDTO {
+    private String strategyId;
+    private Long totalAnswers;
+    private List<Bucket> buckets;    // 列表查询时为空
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Bucket {
+        private Integer playerCount;
+        private Long totalAnswers;
+        private Map<String, Long> choiceCounts;   // 按次数降序
+    }
+}
@@ -0,0 +1,21 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 时钟同步（NTP 风格）
+ * t0: 客户端发送时间  t1: 服务端收到时间  t2: 服务端回复时间（均为 epoch 毫秒）
+ * 客户端收到时记 t3，offset = ((t1 - t0) + (t2 - t3)) / 2
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClockSyncDTO {
+    private Long t0;
+    private Long t1;
+    private Long t2;
+}
@@ -0,0 +1,24 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 玩家在全局排行榜中的位置
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GlobalPlayerRankDTO {
+    private String playerId;
+    private String playerName;
+    private String metric;
+    private String season;       // null 表示总榜
+    private Long rank;           // 未上榜为 null
+    private Double value;
+    private Long totalPlayers;
+    private Double percentile;   // 超过了多少百分比的玩家（0~100）
+}
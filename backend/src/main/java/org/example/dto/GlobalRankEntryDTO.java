@@ -0,0 +1,20 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 全局排行榜单行
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GlobalRankEntryDTO {
+    private Long rank;           // 从 1 开始
+    private String playerId;
+    private String playerName;
+    private Double value;        // 指标值（总分 / 场次 / 胜率 0~1）
+}
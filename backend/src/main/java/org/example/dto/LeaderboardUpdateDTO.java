@@ -0,0 +1,35 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 实时排行榜增量（只包含名次发生变化的玩家）
+ * 发送到: /topic/room/{roomCode}/leaderboard
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardUpdateDTO {
+    private String roomCode;
+    private String rankingMode;
+    private Integer questionIndex;   // 刚结算完的题目索引
+    private Long version;            // 单调递增，客户端发现跳号时重新拉取完整榜单
+    private List<RankChange> changes;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RankChange {
+        private String playerId;
+        private Integer rank;
+        private Integer previousRank;  // 首次推送时为 null
+        private Integer totalScore;
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 大厅增量推送
+ * 发送到: /topic/lobby
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LobbyEventDTO {
+
+    public enum EventType {
+        UPSERT,     // 新增或更新
+        REMOVE      // 房间结束/解散
+    }
+
+    private EventType type;
+    private String roomCode;
+    private LobbyRoomDTO room;       // REMOVE 时为 null
+    private Long version;
+}
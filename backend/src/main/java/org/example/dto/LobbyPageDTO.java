@@ -0,0 +1,21 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 大厅房间分页结果
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LobbyPageDTO {
+    private List<LobbyRoomDTO> rooms;
+    private Long nextCursor;         // null 表示没有下一页
+    private Long version;            // 大厅版本号，version 之前的增量推送可以忽略
+}
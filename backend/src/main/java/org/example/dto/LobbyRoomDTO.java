@@ -0,0 +1,27 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.pojo.RoomStatus;
+
+import java.util.List;
+
+/**
+ * 大厅房间摘要（不含玩家列表）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LobbyRoomDTO {
+    private String roomCode;
+    private RoomStatus status;
+    private int currentPlayers;      // 非观战者人数
+    private int spectators;
+    private int maxPlayers;
+    private Boolean hasPassword;
+    private List<Long> tagIds;       // 题目标签筛选
+    private Long seq;                // 创建顺序（分页游标）
+}
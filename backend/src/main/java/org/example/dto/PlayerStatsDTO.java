@@ -0,0 +1,46 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 玩家统计（个人主页）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlayerStatsDTO {
+    private String playerId;
+    private Integer gamesPlayed;
+    private Integer wins;
+    private Double winRate;
+    private Long totalScore;
+    private Double averageScore;
+    private Integer bestScore;
+    private Integer worstScore;
+    private Integer bestRank;
+    private Double averageRank;
+    private LocalDateTime lastPlayedAt;
+    private List<StrategyStats> strategies;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StrategyStats {
+        private String strategyId;
+        private Integer answers;
+        private Double averageScore;
+        private Integer bestScore;
+        private Integer worstScore;
+        private Double averageNumericChoice;     // 数值型选择的平均值（出价类题目）
+        private Map<String, Integer> choiceCounts;
+    }
+}
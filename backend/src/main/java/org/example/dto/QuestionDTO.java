@@ -10,7 +10,7 @@ import org.example.entity.QuestionType;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class QuestionDTO {
@@ -11,6 +11,8 @@ import java.util.Map;
 @Builder
 public class QuestionDetailDTO {
     private Integer questionIndex;
+    private Long questionId;
+    private String strategyId;       // 计分策略ID（统计玩家策略倾向用）
     private String questionText;
     private String optionText;
     private QuestionType questionType;
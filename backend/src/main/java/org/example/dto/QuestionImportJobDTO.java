@@ -0,0 +1,25 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 题目导入任务进度
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuestionImportJobDTO {
+    private String jobId;
+    private String status;
+    private Long totalCount;       // 校验通过的题目数，校验完成前为 null
+    private Long committedCount;   // 已导入的题目数
+    private String message;        // 失败原因 / 完成信息
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -23,8 +23,11 @@ public class RoomDTO {
     private List<PlayerDTO> players;
     private LocalDateTime questionStartTime;
     private Integer timeLimit;
+    private Long questionDeadline;       // 🔥 当前题目截止时间（服务端 epoch 毫秒）
+    private Long serverTime;             // 生成该消息时的服务端时间（epoch 毫秒）
     private Integer currentIndex;
-    private QuestionDTO currentQuestion;
+    private Long currentQuestionId;      // 🔥 题目内容单独推送到 /topic/room/{roomCode}/question
+    private String questionVersion;      // 当前题目版本，与题目推送/接口的 ETag 一致
     private Integer questionCount;
     private Boolean hasPassword;         // 是否有密码保护
     private List<String> submittedPlayerIds; // 🔥 当前题目已提交的玩家ID列表（用于前端验证）
@@ -0,0 +1,22 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 房间当前题目（每个题目索引只推送一次）
+ * 发送到: /topic/room/{roomCode}/question
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomQuestionDTO {
+    private String roomCode;
+    private Integer questionIndex;
+    private Long questionId;
+    private String version;        // 同时作为 REST 接口的 ETag
+    private QuestionDTO question;
+}
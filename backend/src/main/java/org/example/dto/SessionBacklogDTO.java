@@ -0,0 +1,20 @@
+package org.example.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 单个 WebSocket 会话的出站积压统计
+ */
+@Data
+@Builder
+public class SessionBacklogDTO {
+    private String sessionId;
+    private String playerId;
+    private Integer queuedMessages;
+    private Long queuedBytes;
+    private Long oldestQueuedMs;   // 最老一条未发送消息已等待的时间
+    private Long inFlightMs;       // 当前正在发送的消息已耗时（0 表示空闲）
+    private Long sentCount;
+    private Long mergedCount;      // 被新状态覆盖而丢弃的房间更新数
+}
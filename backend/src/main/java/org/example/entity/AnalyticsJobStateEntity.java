@@ -0,0 +1,41 @@
+package org.example.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * 分析回填任务进度（按任务名一行）
+ * boundaryId 之前的数据由回填处理，之后的由实时累加处理；cursorId 用于断点续跑
+ */
+@Entity
+@Table(name = "analytics_job_state")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AnalyticsJobStateEntity {
+    @Id
+    @Column(length = 64)
+    private String jobName;
+
+    @Column(nullable = false)
+    private Long boundaryId;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long cursorId = 0L;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Boolean completed = false;
+
+    @UpdateTimestamp
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,48 @@
+package org.example.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * 选项分布直方图（每种策略、每个人数、每个选项一行）
+ * 每题结束时增量累加，历史数据由回填任务按主键分批补齐
+ */
+@Entity
+@Table(name = "choice_histograms",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_strategy_players_choice",
+                        columnNames = {"strategy_id", "player_count", "choice"})
+        }
+)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ChoiceHistogramEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "strategy_id", nullable = false, length = 64)
+    private String strategyId;
+
+    @Column(name = "player_count", nullable = false)
+    private Integer playerCount;
+
+    @Column(nullable = false)
+    private String choice;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long answerCount = 0L;
+
+    @UpdateTimestamp
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -12,7 +12,11 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "game_results")
+@Table(name = "game_results",
+        indexes = {
+                @Index(name = "idx_created_at", columnList = "created_at")
+        }
+)
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -39,9 +43,15 @@ public class GameResultEntity {
     @Column(columnDefinition = "TEXT")
     private String leaderboardJson;
 
+    // 旧格式（未压缩 JSON），新结果不再写入，后台逐步转换为 questionDetailsBlob
     @Column(columnDefinition = "TEXT")
     private String questionDetailsJson;
 
+    // 紧凑格式：玩家字典 + 每题独立压缩（见 QuestionDetailsCodec）
+    @Lob
+    @Column(columnDefinition = "MEDIUMBLOB")
+    private byte[] questionDetailsBlob;
+
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;  // 创建时间
@@ -0,0 +1,55 @@
+package org.example.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 玩家战绩索引（每个玩家每局一行）
+ * 从 game_results.leaderboardJson 拆出来，个人历史按 (player_id, end_time, game_id) 走索引分页
+ */
+@Entity
+@Table(name = "player_game_results",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_player_game_result", columnNames = {"player_id", "game_id"})
+        },
+        indexes = {
+                @Index(name = "idx_player_end_time", columnList = "player_id,end_time,game_id"),
+                @Index(name = "idx_game", columnList = "game_id")
+        }
+)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PlayerGameResultEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "player_id", nullable = false, length = 64)
+    private String playerId;
+
+    @Column(name = "game_id", nullable = false)
+    private Long gameId;
+
+    @Column(nullable = false)
+    private String roomCode;
+
+    @Column(nullable = false)
+    private Integer score;
+
+    @Column(name = "player_rank", nullable = false)
+    private Integer rank;  // rank 是 MySQL 关键字
+
+    private Integer playerCount;
+
+    private Integer questionCount;
+
+    @Column(name = "end_time", nullable = false)
+    private LocalDateTime endTime;
+}
@@ -0,0 +1,58 @@
+package org.example.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * 玩家累计统计（每个玩家一行，游戏结束时增量更新）
+ */
+@Entity
+@Table(name = "player_stats")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PlayerStatsEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "player_id", nullable = false, unique = true, length = 64)
+    private String playerId;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer gamesPlayed = 0;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer wins = 0;          // 第一名场次
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long totalScore = 0L;
+
+    private Integer bestScore;
+
+    private Integer worstScore;
+
+    private Integer bestRank;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long rankSum = 0L;
+
+    private Long lastGameId;
+
+    private LocalDateTime lastPlayedAt;
+
+    @UpdateTimestamp
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,28 @@
+package org.example.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 已计入玩家统计的游戏（每局一行）
+ * 与统计增量在同一事务中写入，同一局再次计入时插入失败直接跳过
+ */
+@Entity
+@Table(name = "player_stats_games")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PlayerStatsGameEntity {
+    @Id
+    @Column(name = "game_id")
+    private Long gameId;
+
+    @Column(nullable = false)
+    private LocalDateTime recordedAt;
+}
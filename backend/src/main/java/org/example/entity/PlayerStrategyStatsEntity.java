@@ -0,0 +1,63 @@
+package org.example.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * 玩家按计分策略的累计统计（每个玩家每种策略一行）
+ * 数值型选择（出价等）记录总和用于求平均，其余选择记录各选项次数
+ */
+@Entity
+@Table(name = "player_strategy_stats",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_player_strategy", columnNames = {"player_id", "strategy_id"})
+        }
+)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PlayerStrategyStatsEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "player_id", nullable = false, length = 64)
+    private String playerId;
+
+    @Column(name = "strategy_id", nullable = false, length = 64)
+    private String strategyId;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer answers = 0;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long scoreSum = 0L;
+
+    private Integer bestScore;
+
+    private Integer worstScore;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Double numericChoiceSum = 0.0;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer numericChoiceCount = 0;
+
+    @Column(columnDefinition = "TEXT")
+    private String choiceCountsJson;   // {"A": 3, "B": 1}
+
+    @UpdateTimestamp
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,70 @@
+package org.example.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * 题目批量导入任务（上传文件落盘后异步导入）
+ * committedCount 与每批数据在同一事务内更新，失败后从这里续传
+ */
+@Entity
+@Table(name = "question_import_jobs")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class QuestionImportJobEntity {
+
+    public enum Status {
+        PENDING,
+        VALIDATING,
+        IMPORTING,
+        COMPLETED,
+        FAILED
+    }
+
+    @Id
+    @Column(length = 64)
+    private String jobId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    /**
+     * 上传文件的存放路径（相对导入目录）
+     */
+    @Column(nullable = false)
+    private String fileName;
+
+    /**
+     * 校验通过的题目总数（校验完成前为 null）
+     */
+    @Column
+    private Long totalCount;
+
+    /**
+     * 已提交的题目数（按文件中的顺序）
+     */
+    @Column(nullable = false)
+    @Builder.Default
+    private Long committedCount = 0L;
+
+    @Column(columnDefinition = "TEXT")
+    private String message;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
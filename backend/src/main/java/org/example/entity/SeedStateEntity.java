@@ -0,0 +1,48 @@
+package org.example.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * 种子数据文件的校验和（按种子名一行）
+ * 启动时文件校验和与记录一致就直接跳过，不再解析文件
+ */
+@Entity
+@Table(name = "seed_state")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SeedStateEntity {
+    @Id
+    @Column(length = 64)
+    private String seedName;
+
+    /**
+     * 文件内容的 SHA-256（十六进制）
+     */
+    @Column(nullable = false, length = 64)
+    private String checksum;
+
+    /**
+     * 导入的条数（数据库已有数据、未导入时为当时的行数）
+     */
+    @Column(nullable = false)
+    private Long itemCount;
+
+    /**
+     * 数据是否由该版本的种子文件导入
+     */
+    @Column(nullable = false)
+    private Boolean loaded;
+
+    @UpdateTimestamp
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
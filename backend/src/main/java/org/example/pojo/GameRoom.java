@@ -1,18 +1,21 @@
 package org.example.pojo;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.example.dto.PlayerDTO;
 import org.example.dto.QuestionDTO;
-import org.example.entity.QuestionEntity;
 import org.example.entity.RoomEntity;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
  * 游戏房间 - 内存中的运行时状态
@@ -32,6 +35,11 @@ public class GameRoom implements Serializable {
 
     private RoomEntity roomEntity;
 
+    /**
+     * 房间设置（创建/修改设置时构建，构建房间视图时直接使用）
+     */
+    private RoomSettings settings;
+
     /**
      * 最大玩家数
      */
@@ -45,9 +53,17 @@ public class GameRoom implements Serializable {
     private List<PlayerDTO> players = new ArrayList<>();
 
     /**
-     * 题目列表
+     * 每轮的题目 ID（重复题每轮各占一项）
+     * Redis 中只保存这个列表，不再保存完整题目
+     */
+    private List<Long> questionIds = new ArrayList<>();
+
+    /**
+     * 每轮的题目（与 questionIds 一一对应，引用题库中共享的只读 DTO）
+     * 不参与序列化，从 Redis 恢复房间时由 RoomCache 按 questionIds 重新解析
      */
-    private List<QuestionDTO> questions;
+    @JsonIgnore
+    private transient List<QuestionDTO> questions = new ArrayList<>();
 
     /**
      * 当前题目索引（-1 表示未开始）
@@ -94,6 +110,11 @@ public class GameRoom implements Serializable {
      */
     private LocalDateTime questionStartTime;
 
+    /**
+     * 当前题目截止时间（epoch 毫秒，客户端据此本地倒计时）
+     */
+    private Long questionDeadline;
+
     /**
      * 答题时间限制（秒）
      */
@@ -121,9 +142,49 @@ public class GameRoom implements Serializable {
      */
     private Map<String, PlayerGameState> playerGameStates = new ConcurrentHashMap<>();
 
+    /**
+     * 设置本局题目（同时记录题目 ID）
+     */
+    public void setQuestions(List<QuestionDTO> questions) {
+        this.questions = questions;
+        this.questionIds = questions.stream()
+                .map(QuestionDTO::getId)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * 兼容升级前写入 Redis 的快照：当时保存的是完整题目、没有 questionIds
+     * 只从中取出题目 ID（按树读取，不受旧 QuestionDTO 字段变化影响），题目本身仍由 RoomCache 按 ID 重新解析
+     */
+    @JsonProperty(value = "questions", access = JsonProperty.Access.WRITE_ONLY)
+    private void readLegacyQuestions(JsonNode legacy) {
+        if (legacy == null || (questionIds != null && !questionIds.isEmpty())) {
+            return;
+        }
+        // 开启类型信息时列表写成 ["java.util.ArrayList", [...]]
+        JsonNode items = legacy.isArray() && legacy.size() == 2 && legacy.get(0).isTextual() && legacy.get(1).isArray()
+                ? legacy.get(1) : legacy;
+        List<Long> ids = new ArrayList<>();
+        for (JsonNode item : items) {
+            JsonNode id = item.get("id");
+            if (id != null && id.canConvertToLong()) {
+                ids.add(id.asLong());
+            }
+        }
+        this.questionIds = ids;
+    }
+
+    /**
+     * 恢复题目引用（只替换 DTO，不改动 questionIds）
+     */
+    public void restoreQuestions(List<QuestionDTO> resolved) {
+        this.questions = resolved;
+    }
+
     /**
      * 获取当前题目
      */
+    @JsonIgnore
     public QuestionDTO getCurrentQuestion() {
         if (currentIndex < 0 || currentIndex >= questions.size()) {
             return null;
@@ -131,12 +192,23 @@ public class GameRoom implements Serializable {
         return questions.get(currentIndex);
     }
 
+    /**
+     * 题目版本（同一房间同一索引的题目内容不会变化）
+     * @return null-索引无效
+     */
+    public String getQuestionVersion(int index) {
+        if (questionIds == null || index < 0 || index >= questionIds.size()) {
+            return null;
+        }
+        return gameId + "-" + index + "-" + questionIds.get(index);
+    }
+
     /**
      * 推进到下一题
      * @return true-成功推进, false-已是最后一题
      */
     public boolean nextQuestion() {
-        if (currentIndex + 1 < questions.size()) {
+        if (currentIndex + 1 < questionIds.size()) {
             currentIndex++;
             return true;
         } else {
@@ -0,0 +1,77 @@
+package org.example.pojo;
+
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+import org.example.dto.RoomDTO;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 房间设置（不可变）
+ * 在创建房间和修改设置时构建一次，随 GameRoom 缓存
+ * 构建房间视图、排行榜时直接读取，不再查数据库、不再解析 JSON
+ */
+@Value
+@Builder(toBuilder = true)
+@Jacksonized
+public class RoomSettings implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    Integer questionCount;
+    Integer timeLimit;
+    String rankingMode;
+    Integer targetScore;
+    RoomDTO.WinConditions winConditions;
+    List<Long> questionTagIds;
+    boolean hasPassword;
+
+    /**
+     * 通关条件的副本（WinConditions 是可变对象，放进 RoomDTO 前先拷贝，避免外部修改影响缓存的设置）
+     */
+    public RoomDTO.WinConditions copyWinConditions() {
+        return copy(winConditions);
+    }
+
+    /**
+     * 构建设置（对可变参数做防御性拷贝）
+     */
+    public static RoomSettings of(Integer questionCount, Integer timeLimit, String rankingMode, Integer targetScore,
+                                  RoomDTO.WinConditions winConditions, List<Long> questionTagIds, String password) {
+        return RoomSettings.builder()
+                .questionCount(questionCount)
+                .timeLimit(timeLimit)
+                .rankingMode(rankingMode != null ? rankingMode : "standard")
+                .targetScore(targetScore)
+                .winConditions(winConditions)
+                .questionTagIds(questionTagIds)
+                .hasPassword(password != null && !password.isEmpty())
+                .build();
+    }
+
+    private static RoomDTO.WinConditions copy(RoomDTO.WinConditions winConditions) {
+        return winConditions == null ? null : RoomDTO.WinConditions.builder()
+                .minScorePerPlayer(winConditions.getMinScorePerPlayer())
+                .minTotalScore(winConditions.getMinTotalScore())
+                .minAvgScore(winConditions.getMinAvgScore())
+                .build();
+    }
+
+    /**
+     * 构建器（含 Jackson 反序列化）统一在这里做拷贝，保证实例真正不可变
+     */
+    public static class RoomSettingsBuilder {
+
+        public RoomSettingsBuilder winConditions(RoomDTO.WinConditions winConditions) {
+            this.winConditions = copy(winConditions);
+            return this;
+        }
+
+        public RoomSettingsBuilder questionTagIds(List<Long> questionTagIds) {
+            this.questionTagIds = questionTagIds == null ? List.of() : List.copyOf(questionTagIds);
+            return this;
+        }
+    }
+}
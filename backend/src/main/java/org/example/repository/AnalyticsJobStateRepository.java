@@ -0,0 +1,7 @@
+package org.example.repository;
+
+import org.example.entity.AnalyticsJobStateEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface AnalyticsJobStateRepository extends JpaRepository<AnalyticsJobStateEntity, String> {
+}
@@ -0,0 +1,19 @@
+package org.example.repository;
+
+import org.example.entity.ChoiceHistogramEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface ChoiceHistogramRepository extends JpaRepository<ChoiceHistogramEntity, Long> {
+
+    List<ChoiceHistogramEntity> findByStrategyIdOrderByPlayerCountAsc(String strategyId);
+
+    List<ChoiceHistogramEntity> findByStrategyIdAndPlayerCount(String strategyId, Integer playerCount);
+
+    // 各策略的总作答次数
+    @Query("SELECT h.strategyId, SUM(h.answerCount) FROM ChoiceHistogramEntity h " +
+            "GROUP BY h.strategyId ORDER BY h.strategyId")
+    List<Object[]> sumByStrategy();
+}
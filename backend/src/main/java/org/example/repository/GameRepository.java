@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface GameRepository extends JpaRepository<GameEntity, Long> {
@@ -18,4 +19,12 @@ public interface GameRepository extends JpaRepository<GameEntity, Long> {
             "JOIN FETCH g.room r " +
             "WHERE r.roomCode = :roomCode")
     Optional<GameEntity> findByRoomCodeWithRoom(@Param("roomCode") String roomCode);
+
+    @Query("SELECT COALESCE(MAX(g.id), 0) FROM GameEntity g")
+    Long findMaxId();
+
+    // 分界内仍未结束的游戏数（createdAt 早于 createdAfter 的视为已中断）
+    @Query("SELECT COUNT(g) FROM GameEntity g " +
+            "WHERE g.id <= :maxId AND g.endTime IS NULL AND g.createdAt > :createdAfter")
+    long countOpenGamesUpTo(@Param("maxId") Long maxId, @Param("createdAfter") LocalDateTime createdAfter);
 }
@@ -4,6 +4,7 @@ import io.lettuce.core.dynamic.annotation.Param;
 import org.example.entity.GameEntity;
 import org.example.entity.GameResultEntity;
 import org.example.entity.RoomEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
@@ -41,4 +42,96 @@ public interface GameResultRepository extends JpaRepository<GameResultEntity, Lo
             "JOIN FETCH g.room " +
             "ORDER BY gr.createdAt DESC")
     List<GameResultEntity> findAllByOrderByCreatedAtDesc();
+
+    // 按主键分批扫描正式游戏结果（玩家统计重建用）
+    @Query("SELECT gr FROM GameResultEntity gr " +
+            "JOIN FETCH gr.game g " +
+            "WHERE gr.id > :afterId AND g.isTest = false " +
+            "ORDER BY gr.id ASC")
+    List<GameResultEntity> findNonTestBatchAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    // 某时间之后创建的正式游戏结果（玩家统计重建结束后补上扫描期间新结束的游戏）
+    @Query("SELECT gr FROM GameResultEntity gr " +
+            "JOIN FETCH gr.game g " +
+            "WHERE gr.id > :afterId AND gr.createdAt >= :since AND g.isTest = false " +
+            "ORDER BY gr.id ASC")
+    List<GameResultEntity> findNonTestBatchCreatedSince(@Param("since") LocalDateTime since,
+                                                        @Param("afterId") Long afterId,
+                                                        Pageable pageable);
+
+    /**
+     * 全局排行榜校准只需要排行榜 JSON，不加载题目详情
+     */
+    interface LeaderboardRow {
+        Long getId();
+        Long getGameId();
+        String getLeaderboardJson();
+        LocalDateTime getFinishedAt();
+    }
+
+    // 按主键分批扫描正式游戏的排行榜（全局排行榜校准用）
+    @Query("SELECT gr.id AS id, g.id AS gameId, gr.leaderboardJson AS leaderboardJson, " +
+            "COALESCE(g.endTime, gr.createdAt) AS finishedAt " +
+            "FROM GameResultEntity gr JOIN gr.game g " +
+            "WHERE gr.id > :afterId AND g.isTest = false " +
+            "ORDER BY gr.id ASC")
+    List<LeaderboardRow> findLeaderboardRowsAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    // 某时间之后创建的正式游戏排行榜（校准结束后补上扫描期间新结束的游戏）
+    @Query("SELECT gr.id AS id, g.id AS gameId, gr.leaderboardJson AS leaderboardJson, " +
+            "COALESCE(g.endTime, gr.createdAt) AS finishedAt " +
+            "FROM GameResultEntity gr JOIN gr.game g " +
+            "WHERE gr.id > :afterId AND gr.createdAt >= :since AND g.isTest = false " +
+            "ORDER BY gr.id ASC")
+    List<LeaderboardRow> findLeaderboardRowsCreatedSince(@Param("since") LocalDateTime since,
+                                                         @Param("afterId") Long afterId,
+                                                         Pageable pageable);
+
+    // 按主键分批扫描尚未写入玩家战绩索引的结果（回填用）
+    @Query("SELECT gr FROM GameResultEntity gr " +
+            "JOIN FETCH gr.game g " +
+            "JOIN FETCH g.room " +
+            "WHERE gr.id > :afterId AND gr.id <= :maxId " +
+            "AND NOT EXISTS (SELECT 1 FROM PlayerGameResultEntity p WHERE p.gameId = g.id) " +
+            "ORDER BY gr.id ASC")
+    List<GameResultEntity> findUnindexedBatchAfterId(@Param("afterId") Long afterId,
+                                                     @Param("maxId") Long maxId,
+                                                     Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(gr.id), 0) FROM GameResultEntity gr")
+    Long findMaxId();
+
+    // 按主键分批扫描仍为旧 JSON 格式的题目详情（转换紧凑格式用）
+    @Query("SELECT gr FROM GameResultEntity gr " +
+            "JOIN FETCH gr.game " +
+            "WHERE gr.id > :afterId " +
+            "AND gr.questionDetailsBlob IS NULL AND gr.questionDetailsJson IS NOT NULL " +
+            "ORDER BY gr.id ASC")
+    List<GameResultEntity> findLegacyDetailsBatchAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    // 按主键分批导出（时间范围、房间、玩家过滤；玩家过滤走战绩索引）
+    @Query("SELECT gr FROM GameResultEntity gr " +
+            "JOIN FETCH gr.game g " +
+            "JOIN FETCH g.room r " +
+            "WHERE gr.id > :afterId AND gr.id <= :maxId " +
+            "AND gr.createdAt >= :from AND gr.createdAt < :to " +
+            "AND (:roomCode IS NULL OR r.roomCode = :roomCode) " +
+            "AND (:playerId IS NULL OR g.id IN " +
+            "(SELECT p.gameId FROM PlayerGameResultEntity p WHERE p.playerId = :playerId)) " +
+            "ORDER BY gr.id ASC")
+    List<GameResultEntity> findExportBatchAfterId(@Param("afterId") Long afterId,
+                                                  @Param("maxId") Long maxId,
+                                                  @Param("from") LocalDateTime from,
+                                                  @Param("to") LocalDateTime to,
+                                                  @Param("roomCode") String roomCode,
+                                                  @Param("playerId") String playerId,
+                                                  Pageable pageable);
+
+    // 时间范围内的第一条结果（导出时直接从这里开始按主键扫描）
+    @Query("SELECT MIN(gr.id) FROM GameResultEntity gr WHERE gr.createdAt >= :from")
+    Long findFirstIdCreatedFrom(@Param("from") LocalDateTime from);
+
+    // 时间范围内的最后一条结果（导出的主键上界，扫到这里就结束，不再读之后的新结果）
+    @Query("SELECT MAX(gr.id) FROM GameResultEntity gr WHERE gr.createdAt < :to")
+    Long findLastIdCreatedBefore(@Param("to") LocalDateTime to);
 }
@@ -4,7 +4,10 @@ import org.example.entity.GameEntity;
 import org.example.entity.PlayerEntity;
 import org.example.entity.PlayerGameEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,4 +18,9 @@ public interface PlayerGameRepository extends JpaRepository<PlayerGameEntity, Lo
 
     // 按分数排序查找游戏排行榜
     List<PlayerGameEntity> findByGameOrderByScoreDesc(GameEntity game);
+
+    // 批量统计每局参与人数 [gameId, count]
+    @Query("SELECT pg.game.id, COUNT(pg) FROM PlayerGameEntity pg " +
+            "WHERE pg.game.id IN :gameIds GROUP BY pg.game.id")
+    List<Object[]> countPlayersByGameIds(@Param("gameIds") Collection<Long> gameIds);
 }
@@ -0,0 +1,32 @@
+package org.example.repository;
+
+import org.example.entity.PlayerGameResultEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface PlayerGameResultRepository extends JpaRepository<PlayerGameResultEntity, Long> {
+
+    // 玩家战绩第一页（按结束时间倒序）
+    @Query("SELECT r FROM PlayerGameResultEntity r " +
+            "WHERE r.playerId = :playerId AND r.endTime > :after " +
+            "ORDER BY r.endTime DESC, r.gameId DESC")
+    List<PlayerGameResultEntity> findFirstPage(@Param("playerId") String playerId,
+                                               @Param("after") LocalDateTime after,
+                                               Pageable pageable);
+
+    // 玩家战绩后续页（keyset：从上一页最后一条之后继续）
+    @Query("SELECT r FROM PlayerGameResultEntity r " +
+            "WHERE r.playerId = :playerId AND r.endTime > :after " +
+            "AND (r.endTime < :cursorTime OR (r.endTime = :cursorTime AND r.gameId < :cursorGameId)) " +
+            "ORDER BY r.endTime DESC, r.gameId DESC")
+    List<PlayerGameResultEntity> findPageBefore(@Param("playerId") String playerId,
+                                                @Param("after") LocalDateTime after,
+                                                @Param("cursorTime") LocalDateTime cursorTime,
+                                                @Param("cursorGameId") Long cursorGameId,
+                                                Pageable pageable);
+}
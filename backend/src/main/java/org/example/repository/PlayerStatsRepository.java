@@ -0,0 +1,11 @@
+package org.example.repository;
+
+import org.example.entity.PlayerStatsEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface PlayerStatsRepository extends JpaRepository<PlayerStatsEntity, Long> {
+
+    Optional<PlayerStatsEntity> findByPlayerId(String playerId);
+}
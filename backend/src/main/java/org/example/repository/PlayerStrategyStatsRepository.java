@@ -0,0 +1,11 @@
+package org.example.repository;
+
+import org.example.entity.PlayerStrategyStatsEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface PlayerStrategyStatsRepository extends JpaRepository<PlayerStrategyStatsEntity, Long> {
+
+    List<PlayerStrategyStatsEntity> findByPlayerIdOrderByStrategyIdAsc(String playerId);
+}
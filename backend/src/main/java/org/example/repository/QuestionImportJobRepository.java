@@ -0,0 +1,14 @@
+package org.example.repository;
+
+import org.example.entity.QuestionImportJobEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface QuestionImportJobRepository extends JpaRepository<QuestionImportJobEntity, String> {
+
+    List<QuestionImportJobEntity> findByStatusIn(Collection<QuestionImportJobEntity.Status> statuses);
+
+    List<QuestionImportJobEntity> findTop20ByOrderByCreatedAtDesc();
+}
@@ -1,5 +1,6 @@
 package org.example.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.query.Param;
 import org.example.entity.QuestionEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -39,4 +40,14 @@ public interface QuestionRepository extends JpaRepository<QuestionEntity, Long>
             "LEFT JOIN FETCH q.bidConfig " +
             "WHERE q.strategyId = :strategyId")
     Optional<QuestionEntity> findByStrategyIdWithConfigs(@Param("strategyId") String strategyId);
+
+    /**
+     * 导出用：按主键游标分批读取，关联加载配置
+     */
+    @Query("SELECT q FROM QuestionEntity q " +
+            "LEFT JOIN FETCH q.choiceConfig " +
+            "LEFT JOIN FETCH q.bidConfig " +
+            "WHERE q.id > :afterId " +
+            "ORDER BY q.id ASC")
+    List<QuestionEntity> findExportBatchAfterId(@Param("afterId") Long afterId, Pageable pageable);
 }
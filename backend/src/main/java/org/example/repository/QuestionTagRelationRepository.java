@@ -2,7 +2,9 @@ package org.example.repository;
 
 import org.example.entity.QuestionTagRelationEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -20,4 +22,11 @@ public interface QuestionTagRelationRepository extends JpaRepository<QuestionTag
      * 根据题目ID列表批量查询
      */
     List<QuestionTagRelationEntity> findByQuestionIdIn(List<Long> questionIds);
+
+    /**
+     * 删除某个标签的全部关联（一条 DELETE 语句）
+     */
+    @Modifying
+    @Query("DELETE FROM QuestionTagRelationEntity r WHERE r.tagId = :tagId")
+    int deleteByTagId(@Param("tagId") Long tagId);
 }
@@ -2,9 +2,16 @@ package org.example.repository;
 
 import org.example.entity.RoomEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface RoomRepository extends JpaRepository<RoomEntity, Long> {
     Optional<RoomEntity> findByRoomCode(String roomCode);
+
+    @Query("SELECT r.roomCode FROM RoomEntity r WHERE r.roomCode IN :roomCodes")
+    List<String> findExistingRoomCodes(@Param("roomCodes") Collection<String> roomCodes);
 }
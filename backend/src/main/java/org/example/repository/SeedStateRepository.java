@@ -0,0 +1,7 @@
+package org.example.repository;
+
+import org.example.entity.SeedStateEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface SeedStateRepository extends JpaRepository<SeedStateEntity, String> {
+}
@@ -4,7 +4,10 @@ import org.example.entity.GameEntity;
 import org.example.entity.PlayerEntity;
 import org.example.entity.QuestionEntity;
 import org.example.entity.SubmissionEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -17,4 +20,13 @@ public interface SubmissionRepository extends JpaRepository<SubmissionEntity, Lo
 
     // 查找某个玩家在某个游戏的所有提交
     List<SubmissionEntity> findByGameAndPlayer(GameEntity game, PlayerEntity player);
-}
\ No newline at end of file
+
+    // 按主键分批读取游戏ID不超过 maxGameId 的 [id, gameId, strategyId, choice]，不加载实体（统计回填用，排除测试游戏）
+    @Query("SELECT s.id, s.game.id, s.question.strategyId, s.choice FROM SubmissionEntity s " +
+            "WHERE s.id > :afterId AND s.game.id <= :maxGameId " +
+            "AND (s.game.isTest = false OR s.game.isTest IS NULL) " +
+            "ORDER BY s.id")
+    List<Object[]> findChoiceRowsUpToGame(@Param("afterId") Long afterId,
+                                          @Param("maxGameId") Long maxGameId,
+                                          Pageable pageable);
+}
@@ -0,0 +1,41 @@
+package org.example.service.analytics;
+
+import org.example.dto.ChoiceHistogramDTO;
+import org.example.pojo.GameRoom;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 选项分布分析服务
+ * 每题结束时把本题的选项次数累加到（策略, 人数）直方图，查询时不再扫描 submissions 表
+ */
+public interface ChoiceAnalyticsService {
+
+    /**
+     * 累加当前题目的选项分布（调用方需持有房间锁，测试房间和 Bot 不统计）
+     */
+    void recordQuestion(GameRoom gameRoom);
+
+    /**
+     * 所有策略的总作答次数
+     */
+    List<ChoiceHistogramDTO> listStrategies();
+
+    /**
+     * 查询某种策略的直方图
+     * @param playerCount 为空时返回所有人数分桶
+     */
+    ChoiceHistogramDTO getHistogram(String strategyId, Integer playerCount);
+
+    /**
+     * 启动（或继续）历史数据回填
+     * @param reset true 时清空直方图并从头回填
+     */
+    Map<String, Object> startBackfill(boolean reset);
+
+    /**
+     * 回填进度
+     */
+    Map<String, Object> getBackfillStatus();
+}
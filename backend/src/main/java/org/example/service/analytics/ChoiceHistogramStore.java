@@ -0,0 +1,61 @@
+package org.example.service.analytics;
+
+import lombok.RequiredArgsConstructor;
+import org.example.entity.AnalyticsJobStateEntity;
+import org.example.repository.AnalyticsJobStateRepository;
+import org.example.repository.ChoiceHistogramRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 直方图写入（增量合并和回填进度在同一事务内提交，回填中断后可从 cursorId 继续）
+ * 调用方负责串行化回填与重置
+ */
+@Component
+@RequiredArgsConstructor
+public class ChoiceHistogramStore {
+
+    private final ChoiceHistogramRepository histogramRepository;
+    private final AnalyticsJobStateRepository jobStateRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public record Key(String strategyId, int playerCount, String choice) {
+    }
+
+    /**
+     * 增量累加：由数据库原子地加到现有计数上，不先读后写，多节点同时合并也不会丢失
+     */
+    @Transactional
+    public void merge(Map<Key, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO choice_histograms (strategy_id, player_count, choice, answer_count, updated_at) " +
+                        "VALUES (?, ?, ?, ?, NOW(6)) " +
+                        "ON DUPLICATE KEY UPDATE answer_count = answer_count + ?, updated_at = NOW(6)",
+                deltas.entrySet().stream().map(delta -> new Object[]{
+                        delta.getKey().strategyId(), delta.getKey().playerCount(), delta.getKey().choice(),
+                        delta.getValue(), delta.getValue()
+                }).collect(Collectors.toList()));
+    }
+
+    @Transactional
+    public void mergeBackfillChunk(Map<Key, Long> deltas, AnalyticsJobStateEntity state) {
+        merge(deltas);
+        jobStateRepository.save(state);
+    }
+
+    @Transactional
+    public AnalyticsJobStateEntity reset(String jobName, long boundaryId) {
+        histogramRepository.deleteAllInBatch();
+        return jobStateRepository.save(AnalyticsJobStateEntity.builder()
+                .jobName(jobName)
+                .boundaryId(boundaryId)
+                .build());
+    }
+}
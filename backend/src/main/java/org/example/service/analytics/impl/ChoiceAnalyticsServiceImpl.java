@@ -0,0 +1,332 @@
+package org.example.service.analytics.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.ChoiceHistogramDTO;
+import org.example.dto.QuestionDTO;
+import org.example.entity.AnalyticsJobStateEntity;
+import org.example.entity.ChoiceHistogramEntity;
+import org.example.pojo.GameRoom;
+import org.example.repository.AnalyticsJobStateRepository;
+import org.example.repository.ChoiceHistogramRepository;
+import org.example.repository.GameRepository;
+import org.example.repository.PlayerGameRepository;
+import org.example.repository.SubmissionRepository;
+import org.example.service.analytics.ChoiceAnalyticsService;
+import org.example.service.analytics.ChoiceHistogramStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * 选项分布分析服务实现
+ *
+ * 实时部分：每题结束时把选项次数累加到内存缓冲，定时批量合并到 choice_histograms，不占用房间锁时间
+ * 回填部分：首次启动时记下 games 的最大主键作为分界，按游戏划分：
+ *          分界内（含当时仍在进行）的游戏整局由回填负责，按 submissions 主键分批读取，等这些游戏都结束后才标记完成；
+ *          分界之后开始的游戏只由实时累加负责。同一道题不会被两边同时计数
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ChoiceAnalyticsServiceImpl implements ChoiceAnalyticsService {
+
+    // 分界按游戏ID划分（旧任务 choice_histograms 按提交ID划分，换任务名后首次启动会清空重算）
+    private static final String BACKFILL_JOB = "choice_histograms_by_game";
+    private static final Duration BACKFILL_RETRY_DELAY = Duration.ofMinutes(1);
+
+    private final ChoiceHistogramRepository histogramRepository;
+    private final AnalyticsJobStateRepository jobStateRepository;
+    private final SubmissionRepository submissionRepository;
+    private final PlayerGameRepository playerGameRepository;
+    private final GameRepository gameRepository;
+    private final ChoiceHistogramStore histogramStore;
+    private final TaskScheduler taskScheduler;
+
+    @Value("${analytics.choices.flush-interval-seconds:10}")
+    private long flushIntervalSeconds;
+
+    @Value("${analytics.choices.backfill-batch-size:1000}")
+    private int backfillBatchSize;
+
+    @Value("${analytics.choices.open-game-timeout-minutes:180}")
+    private long openGameTimeoutMinutes;
+
+    // 游戏ID不超过分界的由回填负责，实时累加跳过（由 pendingLock 保护，定时从库里刷新，与其他节点的重置保持一致）
+    private long boundaryGameId = Long.MAX_VALUE;
+
+    // 待合并的增量（由 pendingLock 保护）
+    private Map<ChoiceHistogramStore.Key, Long> pending = new HashMap<>();
+    private final Object pendingLock = new Object();
+
+    // 合并和回填串行写入
+    private final Object writeLock = new Object();
+
+    private final AtomicBoolean backfilling = new AtomicBoolean(false);
+
+    @PostConstruct
+    public void start() {
+        // 先确定分界，保证之后的实时累加和回填范围不重叠
+        try {
+            AnalyticsJobStateEntity state = jobStateRepository.findById(BACKFILL_JOB).orElse(null);
+            if (state == null) {
+                // 首次使用：已有的计数可能来自旧口径，清空后由回填重算
+                state = histogramStore.reset(BACKFILL_JOB, gameRepository.findMaxId());
+                log.info("📊 选项分布回填分界: gameId <= {}", state.getBoundaryId());
+            }
+            synchronized (pendingLock) {
+                boundaryGameId = state.getBoundaryId();
+            }
+        } catch (Exception e) {
+            log.error("❌ 初始化选项分布回填状态失败", e);
+        }
+
+        taskScheduler.scheduleWithFixedDelay(this::flush,
+                Instant.now().plusSeconds(flushIntervalSeconds),
+                Duration.ofSeconds(flushIntervalSeconds));
+        // 启动后自动继续未完成的回填
+        taskScheduler.schedule(() -> startBackfill(false), Instant.now().plusSeconds(30));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    @Override
+    public void recordQuestion(GameRoom gameRoom) {
+        if (gameRoom.isTestRoom()) {
+            return;
+        }
+        QuestionDTO question = gameRoom.getCurrentQuestion();
+        Map<String, String> submissions = gameRoom.getSubmissions().get(gameRoom.getCurrentIndex());
+        if (question == null || question.getStrategyId() == null || submissions == null) {
+            return;
+        }
+
+        // 与 player_game 的口径一致：非观战、非 Bot
+        int playerCount = (int) gameRoom.getPlayers().stream()
+                .filter(p -> !Boolean.TRUE.equals(p.getSpectator()))
+                .filter(p -> !p.getPlayerId().startsWith("BOT_"))
+                .count();
+
+        synchronized (pendingLock) {
+            // 分界内的游戏整局由回填统计（未初始化分界时也先跳过，宁缺不重）
+            if (gameRoom.getGameId() == null || gameRoom.getGameId() <= boundaryGameId) {
+                return;
+            }
+            for (Map.Entry<String, String> submission : submissions.entrySet()) {
+                if (submission.getKey().startsWith("BOT_") || submission.getValue() == null) {
+                    continue;
+                }
+                pending.merge(new ChoiceHistogramStore.Key(question.getStrategyId(), playerCount,
+                        submission.getValue()), 1L, Long::sum);
+            }
+        }
+    }
+
+    @Override
+    public List<ChoiceHistogramDTO> listStrategies() {
+        List<ChoiceHistogramDTO> result = new ArrayList<>();
+        for (Object[] row : histogramRepository.sumByStrategy()) {
+            result.add(ChoiceHistogramDTO.builder()
+                    .strategyId((String) row[0])
+                    .totalAnswers(((Number) row[1]).longValue())
+                    .build());
+        }
+        return result;
+    }
+
+    @Override
+    public ChoiceHistogramDTO getHistogram(String strategyId, Integer playerCount) {
+        List<ChoiceHistogramEntity> rows = playerCount != null
+                ? histogramRepository.findByStrategyIdAndPlayerCount(strategyId, playerCount)
+                : histogramRepository.findByStrategyIdOrderByPlayerCountAsc(strategyId);
+
+        Map<Integer, List<ChoiceHistogramEntity>> byPlayerCount = rows.stream()
+                .collect(Collectors.groupingBy(ChoiceHistogramEntity::getPlayerCount, TreeMap::new, Collectors.toList()));
+
+        List<ChoiceHistogramDTO.Bucket> buckets = new ArrayList<>();
+        long total = 0;
+        for (Map.Entry<Integer, List<ChoiceHistogramEntity>> entry : byPlayerCount.entrySet()) {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            long bucketTotal = 0;
+            List<ChoiceHistogramEntity> sorted = new ArrayList<>(entry.getValue());
+            sorted.sort(Comparator.comparing(ChoiceHistogramEntity::getAnswerCount).reversed()
+                    .thenComparing(ChoiceHistogramEntity::getChoice));
+            for (ChoiceHistogramEntity row : sorted) {
+                counts.put(row.getChoice(), row.getAnswerCount());
+                bucketTotal += row.getAnswerCount();
+            }
+            buckets.add(ChoiceHistogramDTO.Bucket.builder()
+                    .playerCount(entry.getKey())
+                    .totalAnswers(bucketTotal)
+                    .choiceCounts(counts)
+                    .build());
+            total += bucketTotal;
+        }
+
+        return ChoiceHistogramDTO.builder()
+                .strategyId(strategyId)
+                .totalAnswers(total)
+                .buckets(buckets)
+                .build();
+    }
+
+    @Override
+    public Map<String, Object> startBackfill(boolean reset) {
+        if (!backfilling.compareAndSet(false, true)) {
+            return getBackfillStatus();
+        }
+        try {
+            if (reset) {
+                synchronized (writeLock) {
+                    // 进行中的游戏都在新分界之内，缓冲中的增量由回填重新计入
+                    synchronized (pendingLock) {
+                        pending = new HashMap<>();
+                        boundaryGameId = histogramStore.reset(BACKFILL_JOB, gameRepository.findMaxId()).getBoundaryId();
+                    }
+                }
+                log.info("🧹 选项分布已清空，重新回填");
+            }
+            taskScheduler.schedule(this::runBackfill, Instant.now());
+        } catch (Exception e) {
+            backfilling.set(false);
+            throw e;
+        }
+        return getBackfillStatus();
+    }
+
+    @Override
+    public Map<String, Object> getBackfillStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", backfilling.get());
+        jobStateRepository.findById(BACKFILL_JOB).ifPresent(state -> {
+            status.put("boundaryId", state.getBoundaryId());
+            status.put("cursorId", state.getCursorId());
+            status.put("completed", state.getCompleted());
+        });
+        return status;
+    }
+
+    // ==================== 私有方法 ====================
+
+    private void flush() {
+        refreshBoundary();
+        Map<ChoiceHistogramStore.Key, Long> batch;
+        synchronized (writeLock) {
+            synchronized (pendingLock) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new HashMap<>();
+            }
+            try {
+                histogramStore.merge(batch);
+                log.debug("📊 合并选项分布增量 {} 项", batch.size());
+            } catch (Exception e) {
+                // 放回缓冲，下次重试
+                synchronized (pendingLock) {
+                    batch.forEach((key, count) -> pending.merge(key, count, Long::sum));
+                }
+                log.error("❌ 合并选项分布失败，稍后重试", e);
+            }
+        }
+    }
+
+    /**
+     * 其他节点重置后分界会前移，跟着更新，避免把新分界内的游戏再实时计一次
+     */
+    private void refreshBoundary() {
+        try {
+            jobStateRepository.findById(BACKFILL_JOB).ifPresent(state -> {
+                synchronized (pendingLock) {
+                    boundaryGameId = state.getBoundaryId();
+                }
+            });
+        } catch (Exception e) {
+            log.warn("⚠️ 刷新选项分布回填分界失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 按主键分批读取分界内游戏（gameId <= boundaryId）的提交记录，每批合并和进度在同一事务内提交
+     * 读完时分界内仍有进行中的游戏，则稍后继续，不标记完成
+     */
+    private void runBackfill() {
+        try {
+            AnalyticsJobStateEntity state = jobStateRepository.findById(BACKFILL_JOB).orElse(null);
+            if (state == null || Boolean.TRUE.equals(state.getCompleted())) {
+                return;
+            }
+            log.info("📊 开始回填选项分布: submissionId > {}, gameId <= {}", state.getCursorId(), state.getBoundaryId());
+
+            long processed = 0;
+            while (true) {
+                List<Object[]> rows = submissionRepository.findChoiceRowsUpToGame(
+                        state.getCursorId(), state.getBoundaryId(), PageRequest.of(0, backfillBatchSize));
+                if (rows.isEmpty()) {
+                    long openGames = gameRepository.countOpenGamesUpTo(state.getBoundaryId(),
+                            LocalDateTime.now().minusMinutes(openGameTimeoutMinutes));
+                    if (openGames > 0) {
+                        log.info("📊 分界内还有 {} 场游戏进行中，稍后继续回填", openGames);
+                        taskScheduler.schedule(() -> startBackfill(false), Instant.now().plus(BACKFILL_RETRY_DELAY));
+                        break;
+                    }
+                    state.setCompleted(true);
+                    synchronized (writeLock) {
+                        histogramStore.mergeBackfillChunk(Map.of(), state);
+                    }
+                    log.info("✅ 选项分布回填完成");
+                    break;
+                }
+
+                Set<Long> gameIds = rows.stream().map(row -> (Long) row[1]).collect(Collectors.toSet());
+                Map<Long, Integer> playerCounts = new HashMap<>();
+                for (Object[] row : playerGameRepository.countPlayersByGameIds(gameIds)) {
+                    playerCounts.put((Long) row[0], ((Number) row[1]).intValue());
+                }
+
+                Map<ChoiceHistogramStore.Key, Long> deltas = new HashMap<>();
+                for (Object[] row : rows) {
+                    String strategyId = (String) row[2];
+                    String choice = (String) row[3];
+                    Integer playerCount = playerCounts.get((Long) row[1]);
+                    if (strategyId != null && choice != null && playerCount != null) {
+                        deltas.merge(new ChoiceHistogramStore.Key(strategyId, playerCount, choice), 1L, Long::sum);
+                    }
+                }
+
+                state.setCursorId((Long) rows.get(rows.size() - 1)[0]);
+                synchronized (writeLock) {
+                    histogramStore.mergeBackfillChunk(deltas, state);
+                }
+                processed += rows.size();
+                log.info("📊 选项分布回填进度: submissionId={}, 本次累计 {} 条", state.getCursorId(), processed);
+            }
+            log.info("📊 选项分布回填本次处理 {} 条提交", processed);
+        } catch (Exception e) {
+            log.error("❌ 选项分布回填失败，可重新触发从断点继续", e);
+        } finally {
+            backfilling.set(false);
+        }
+    }
+}
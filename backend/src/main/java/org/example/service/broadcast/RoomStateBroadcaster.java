@@ -2,7 +2,9 @@ package org.example.service.broadcast;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.dto.LeaderboardUpdateDTO;
 import org.example.dto.RoomDTO;
+import org.example.dto.RoomQuestionDTO;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Component;
 
@@ -36,6 +38,35 @@ public class RoomStateBroadcaster {
         }
     }
 
+    /**
+     * 广播当前题目（每个题目索引只推送一次，房间更新中只带索引和题目ID）
+     * 发送到: /topic/room/{roomCode}/question
+     */
+    public void sendQuestion(String roomCode, RoomQuestionDTO question) {
+        if (question == null) {
+            return;
+        }
+        try {
+            messagingTemplate.convertAndSend("/topic/room/" + roomCode + "/question", question);
+            log.debug("✅ 广播题目: {} 索引 {}", roomCode, question.getQuestionIndex());
+        } catch (Exception e) {
+            log.error("❌ 广播题目失败, roomCode={}: {}", roomCode, e.getMessage());
+        }
+    }
+
+    /**
+     * 广播实时排行榜名次变化
+     * 发送到: /topic/room/{roomCode}/leaderboard
+     */
+    public void sendLeaderboardUpdate(String roomCode, LeaderboardUpdateDTO update) {
+        try {
+            messagingTemplate.convertAndSend("/topic/room/" + roomCode + "/leaderboard", update);
+            log.debug("✅ 广播排行榜变化: {} 共 {} 人", roomCode, update.getChanges().size());
+        } catch (Exception e) {
+            log.error("❌ 广播排行榜变化失败, roomCode={}: {}", roomCode, e.getMessage());
+        }
+    }
+
     /**
      * 广播房间删除消息
      * 发送到: /topic/room/{roomCode}/deleted
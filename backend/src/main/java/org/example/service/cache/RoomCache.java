@@ -1,14 +1,24 @@
 package org.example.service.cache;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.exception.BusinessException;
 import org.example.pojo.GameRoom;
+import org.example.repository.RoomRepository;
+import org.example.service.lobby.LobbyIndex;
+import org.example.service.question.QuestionCatalog;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
@@ -23,6 +33,10 @@ import java.util.concurrent.TimeUnit;
 public class RoomCache {
 
     private final RedisTemplate<String, Object> redisTemplate;
+    private final LobbyIndex lobbyIndex;  // 🔥 房间变化时增量维护大厅索引
+    private final QuestionCatalog questionCatalog;  // 🔥 Redis 中只存题目 ID，恢复时从题库解析
+    private final RoomRepository roomRepository;
+    private final TaskScheduler taskScheduler;
 
     /**
      * L1 缓存：本地内存缓存
@@ -35,9 +49,19 @@ public class RoomCache {
     // 房间过期时间（毫秒）：30分钟
     private static final long ROOM_EXPIRY_MS = 30 * 60 * 1000;
 
+    // 定时清理间隔（毫秒）：1分钟
+    private static final long SWEEP_INTERVAL_MS = 60 * 1000;
+
     // Redis key 前缀
     private static final String REDIS_KEY_PREFIX = "game:room:";
 
+    @PostConstruct
+    public void start() {
+        taskScheduler.scheduleWithFixedDelay(this::sweep,
+                Instant.now().plusMillis(SWEEP_INTERVAL_MS),
+                Duration.ofMillis(SWEEP_INTERVAL_MS));
+    }
+
     /**
      * 存入房间（双写：本地缓存 + Redis）
      */
@@ -45,6 +69,7 @@ public class RoomCache {
         // 1. 写入本地缓存
         localCache.put(roomCode, room);
         roomCreationTime.put(roomCode, System.currentTimeMillis());
+        lobbyIndex.refresh(room);
 
         // 2. 写入 Redis（异步，30分钟过期）
         try {
@@ -82,9 +107,13 @@ public class RoomCache {
             Object redisValue = redisTemplate.opsForValue().get(getRedisKey(roomCode));
             if (redisValue instanceof GameRoom) {
                 room = (GameRoom) redisValue;
+                if (room.getQuestionIds() != null && !room.getQuestionIds().isEmpty()) {
+                    room.restoreQuestions(questionCatalog.resolveQuestions(room.getQuestionIds()));
+                }
                 // 加载到本地缓存
                 localCache.put(roomCode, room);
                 roomCreationTime.put(roomCode, System.currentTimeMillis());
+                lobbyIndex.refresh(room);
                 log.info("🔄 从 Redis 恢复房间: {}", roomCode);
                 return room;
             }
@@ -142,6 +171,7 @@ public class RoomCache {
      */
     public void clear() {
         log.warn("⚠️ 清空所有房间缓存，当前房间数: {}", localCache.size());
+        localCache.keySet().forEach(lobbyIndex::remove);
         localCache.clear();
         roomCreationTime.clear();
         // 注意：不清空 Redis，保留持久化数据
@@ -154,6 +184,7 @@ public class RoomCache {
         // 1. 删除本地缓存
         localCache.remove(roomCode);
         roomCreationTime.remove(roomCode);
+        lobbyIndex.remove(roomCode);
 
         // 2. 删除 Redis
         try {
@@ -164,6 +195,44 @@ public class RoomCache {
         }
     }
 
+    /**
+     * 定时清理（原先由大厅查询顺带完成，大厅改为索引后由这里兜底）
+     * 1. 过期房间
+     * 2. 数据库中已不存在的房间（刚创建的跳过，其事务可能还没提交）
+     * 3. 大厅索引中残留、本地缓存里已没有的房间
+     */
+    private void sweep() {
+        try {
+            for (String roomCode : List.copyOf(localCache.keySet())) {
+                if (isExpired(roomCode)) {
+                    log.info("⏰ 房间 {} 已过期，清理", roomCode);
+                    remove(roomCode);
+                }
+            }
+
+            Set<String> listed = lobbyIndex.roomCodes();
+            if (listed.isEmpty()) {
+                return;
+            }
+            Set<String> existing = new HashSet<>(roomRepository.findExistingRoomCodes(listed));
+            long now = System.currentTimeMillis();
+            for (String roomCode : listed) {
+                if (!localCache.containsKey(roomCode)) {
+                    lobbyIndex.remove(roomCode);
+                    continue;
+                }
+                Long createdAt = roomCreationTime.get(roomCode);
+                boolean recent = createdAt != null && now - createdAt < SWEEP_INTERVAL_MS;
+                if (!recent && !existing.contains(roomCode)) {
+                    log.warn("⚠️ 房间 {} 在缓存中但数据库中不存在，已清理", roomCode);
+                    remove(roomCode);
+                }
+            }
+        } catch (Exception e) {
+            log.error("❌ 房间定时清理失败", e);
+        }
+    }
+
     /**
      * 检查房间是否过期
      */
@@ -186,6 +255,7 @@ public class RoomCache {
     public void syncToRedis(String roomCode) {
         GameRoom room = localCache.get(roomCode);
         if (room != null) {
+            lobbyIndex.refresh(room);
             try {
                 redisTemplate.opsForValue().set(
                     getRedisKey(roomCode),
@@ -0,0 +1,31 @@
+package org.example.service.chat;
+
+import org.example.dto.ChatMessage;
+
+import java.util.List;
+
+/**
+ * 房间聊天服务
+ * 负责聊天限流、最近消息缓存和批量推送
+ */
+public interface ChatService {
+
+    /**
+     * 发布消息到房间（CHAT 类型按发送者限流）
+     * 消息不会立即推送，而是在下一个批量窗口合并成一帧发送到 /topic/room/{roomCode}/chat
+     * @param senderKey 限流使用的发送者标识（一般为 playerId）
+     * @return false-发送过快被限流
+     */
+    boolean publish(String roomCode, ChatMessage message, String senderKey);
+
+    /**
+     * 获取房间最近的聊天记录（按时间正序）
+     * @param limit 最多返回条数
+     */
+    List<ChatMessage> getHistory(String roomCode, int limit);
+
+    /**
+     * 清理房间聊天状态
+     */
+    void clearRoom(String roomCode);
+}
@@ -0,0 +1,216 @@
+package org.example.service.chat.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.ChatMessage;
+import org.example.service.chat.ChatService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 房间聊天服务实现
+ * 1. 每个房间一个固定容量的环形缓冲区，保存最近消息，重连/后加入的玩家直接从内存拉取
+ * 2. 每个发送者一个令牌桶，刷屏直接丢弃，入站线程只做 O(1) 的工作
+ * 3. 同一房间一个批量窗口内的消息合并成一帧推送，推送在独立线程上进行
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ChatServiceImpl implements ChatService {
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    @Value("${chat.history-size:50}")
+    private int historySize;
+
+    @Value("${chat.batch-window-ms:100}")
+    private long batchWindowMs;
+
+    @Value("${chat.rate-limit.capacity:5}")
+    private int bucketCapacity;
+
+    @Value("${chat.rate-limit.refill-per-second:1}")
+    private double refillPerSecond;
+
+    // 房间空闲多久后清理聊天状态（与房间缓存过期时间一致）
+    private static final long ROOM_IDLE_MS = 30 * 60 * 1000;
+
+    private final Map<String, RoomChat> rooms = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "chat-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void start() {
+        if (historySize < 1) {
+            throw new IllegalStateException("chat.history-size 必须大于等于 1，当前为 " + historySize);
+        }
+        flusher.scheduleWithFixedDelay(this::flushAll, batchWindowMs, batchWindowMs, TimeUnit.MILLISECONDS);
+        flusher.scheduleWithFixedDelay(this::evictIdle, 1, 1, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+    }
+
+    @Override
+    public boolean publish(String roomCode, ChatMessage message, String senderKey) {
+        if (message.getType() == ChatMessage.MessageType.CHAT && senderKey != null) {
+            TokenBucket bucket = buckets.computeIfAbsent(senderKey, k -> new TokenBucket(bucketCapacity));
+            if (!bucket.tryAcquire(bucketCapacity, refillPerSecond)) {
+                log.debug("⚠️ 房间 {} 发送者 {} 发言过快，消息被丢弃", roomCode, senderKey);
+                return false;
+            }
+        }
+
+        // 与 evictIdle 竞争时可能拿到刚被关闭的房间，移除后重新创建再追加
+        RoomChat chat;
+        while (!(chat = rooms.computeIfAbsent(roomCode, k -> new RoomChat(historySize))).append(message)) {
+            rooms.remove(roomCode, chat);
+        }
+        log.debug("房间 {} 收到消息: {} - {}", roomCode, message.getSenderName(), message.getType());
+        return true;
+    }
+
+    @Override
+    public List<ChatMessage> getHistory(String roomCode, int limit) {
+        RoomChat chat = rooms.get(roomCode);
+        if (chat == null) {
+            return Collections.emptyList();
+        }
+        return chat.recent(limit);
+    }
+
+    @Override
+    public void clearRoom(String roomCode) {
+        rooms.remove(roomCode);
+    }
+
+    /**
+     * 批量推送：每个房间窗口内的消息合并为一个 JSON 数组
+     */
+    private void flushAll() {
+        for (Map.Entry<String, RoomChat> entry : rooms.entrySet()) {
+            List<ChatMessage> batch = entry.getValue().drainPending();
+            if (batch.isEmpty()) {
+                continue;
+            }
+            try {
+                messagingTemplate.convertAndSend("/topic/room/" + entry.getKey() + "/chat", batch);
+            } catch (Exception e) {
+                log.error("❌ 推送聊天消息失败, roomCode={}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        rooms.forEach((roomCode, chat) -> {
+            if (chat.closeIfIdle(now)) {
+                rooms.remove(roomCode, chat);
+            }
+        });
+        // 令牌桶空闲到已经回满，没必要继续保留
+        long fullRefillMs = (long) (bucketCapacity / refillPerSecond * 1000);
+        buckets.entrySet().removeIf(e -> now - e.getValue().lastRefill > fullRefillMs);
+    }
+
+    /**
+     * 单个房间的聊天状态：环形缓冲区 + 待推送消息
+     */
+    private static final class RoomChat {
+        private final ChatMessage[] ring;
+        private int next;
+        private int size;
+        private List<ChatMessage> pending = new ArrayList<>();
+        private long lastActive = System.currentTimeMillis();
+        private boolean closed;
+
+        RoomChat(int capacity) {
+            this.ring = new ChatMessage[capacity];
+        }
+
+        /**
+         * @return false 表示该房间已被空闲清理移除，调用方需要重新获取
+         */
+        synchronized boolean append(ChatMessage message) {
+            if (closed) {
+                return false;
+            }
+            ring[next] = message;
+            next = (next + 1) % ring.length;
+            size = Math.min(size + 1, ring.length);
+            pending.add(message);
+            lastActive = System.currentTimeMillis();
+            return true;
+        }
+
+        /**
+         * 空闲超时则标记关闭（与 append 互斥，关闭后的追加会失败并重建房间）
+         */
+        synchronized boolean closeIfIdle(long now) {
+            if (now - lastActive > ROOM_IDLE_MS) {
+                closed = true;
+            }
+            return closed;
+        }
+
+        synchronized List<ChatMessage> drainPending() {
+            if (pending.isEmpty()) {
+                return Collections.emptyList();
+            }
+            List<ChatMessage> batch = pending;
+            pending = new ArrayList<>();
+            return batch;
+        }
+
+        synchronized List<ChatMessage> recent(int limit) {
+            int count = Math.min(Math.max(limit, 0), size);
+            List<ChatMessage> result = new ArrayList<>(count);
+            int start = next - count + ring.length;
+            for (int i = 0; i < count; i++) {
+                result.add(ring[(start + i) % ring.length]);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 令牌桶：容量 capacity，每秒回复 refillPerSecond 个
+     */
+    private static final class TokenBucket {
+        private double tokens;
+        private volatile long lastRefill = System.currentTimeMillis();
+
+        TokenBucket(int capacity) {
+            this.tokens = capacity;
+        }
+
+        synchronized boolean tryAcquire(int capacity, double refillPerSecond) {
+            long now = System.currentTimeMillis();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) / 1000.0 * refillPerSecond);
+            lastRefill = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+    }
+}
@@ -1,9 +1,8 @@
 package org.example.service.flow.impl;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.dto.LeaderboardUpdateDTO;
 import org.example.dto.PlayerDTO;
 import org.example.dto.QuestionDTO;
 import org.example.entity.*;
@@ -11,10 +10,14 @@ import org.example.exception.BusinessException;
 import org.example.pojo.GameRoom;
 import org.example.pojo.RoomStatus;
 import org.example.repository.*;
+import org.example.service.analytics.ChoiceAnalyticsService;
+import org.example.service.question.QuestionDeckPool;
 import org.example.service.question.QuestionSelectorService;
 import org.example.service.broadcast.RoomStateBroadcaster;
 import org.example.service.cache.RoomCache;
+import org.example.service.chat.ChatService;
 import org.example.service.flow.GameFlowService;
+import org.example.service.leaderboard.LeaderboardService;
 import org.example.service.persistence.GamePersistenceService;
 import org.example.service.room.RoomLifecycleService;
 import org.example.service.scoring.ScoringResult;
@@ -48,14 +51,17 @@ public class GameFlowServiceImpl implements GameFlowService {
     private final PlayerRepository playerRepository;
     private final PlayerGameRepository playerGameRepository;
     private final QuestionSelectorService questionSelector;
+    private final QuestionDeckPool questionDeckPool;
     private final SubmissionService submissionService;
     private final ScoringService scoringService;
     private final QuestionTimerService timerService;
     private final RoomStateBroadcaster broadcaster;
     private final RoomLifecycleService roomLifecycleService;
     private final GamePersistenceService gamePersistenceService;
+    private final LeaderboardService leaderboardService;
+    private final ChoiceAnalyticsService choiceAnalyticsService;
+    private final ChatService chatService;
     private final TaskScheduler taskScheduler;
-    private final ObjectMapper objectMapper;
 
     /**
      * 推进锁（防止并发推进）
@@ -119,36 +125,35 @@ public class GameFlowServiceImpl implements GameFlowService {
                     .filter(p -> !Boolean.TRUE.equals(p.getSpectator()))
                     .count();
 
-            // 🔥 解析标签筛选
-            List<Long> questionTagIds = null;
-            if (room.getQuestionTagIdsJson() != null && !room.getQuestionTagIdsJson().isEmpty()) {
-                try {
-                    questionTagIds = objectMapper.readValue(
-                            room.getQuestionTagIdsJson(),
-                            new TypeReference<List<Long>>() {}
-                    );
-                } catch (Exception e) {
-                    log.error("解析questionTagIds失败", e);
-                }
-            }
+            // 🔥 标签筛选（设置中已解析好）
+            List<Long> questionTagIds = roomLifecycleService.resolveSettings(gameRoom).getQuestionTagIds();
 
-            List<QuestionDTO> questions = questionSelector.selectQuestions(
+            // 🔥 优先取后台预生成的题组，没有时再同步选题
+            List<QuestionDTO> questions = questionDeckPool.take(
                     room.getQuestionCount(),
                     nonSpectatorCount,
                     questionTagIds
             );
+            if (questions == null) {
+                questions = questionSelector.selectQuestions(
+                        room.getQuestionCount(),
+                        nonSpectatorCount,
+                        questionTagIds
+                );
+            }
 
             // 初始化游戏房间状态
-            gameRoom.setQuestions(questions);  // ✅ 直接设置 DTO
+            gameRoom.setQuestions(questions);  // ✅ 引用共享 DTO，Redis 中只保存题目 ID
             gameRoom.setGameId(savedGame.getId());
             gameRoom.setStarted(true);
             gameRoom.setCurrentIndex(0);
-            gameRoom.setQuestionStartTime(LocalDateTime.now());
             gameRoom.setTimeLimit(30);
 
             // 启动第一题的定时器
-            timerService.scheduleTimeout(roomCode, defaultQuestionTimeoutSeconds,
-                    () -> advanceQuestion(roomCode, "timeout", true));
+            beginCurrentQuestion(roomCode, gameRoom);
+
+            // 🔥 建立实时排行榜（之后每题只增量更新）
+            leaderboardService.startLiveLeaderboard(gameRoom);
 
             log.info("🎮 房间 {} 开始游戏，题目数: {}, 玩家数: {} (观战者: {})",
                     roomCode, questions.size(), nonSpectatorCount,
@@ -157,7 +162,8 @@ public class GameFlowServiceImpl implements GameFlowService {
             // 🔥 同步到 Redis
             roomCache.syncToRedis(roomCode);
 
-            // 广播
+            // 广播（先推题目，再推房间状态）
+            broadcastCurrentQuestion(roomCode, gameRoom);
             broadcaster.sendRoomUpdate(roomCode, roomLifecycleService.toRoomDTO(roomCode));
         }
     }
@@ -188,6 +194,7 @@ public class GameFlowServiceImpl implements GameFlowService {
 
                 // 3. 应用分数到房间
                 applyScoresToGameRoom(gameRoom, result);
+                choiceAnalyticsService.recordQuestion(gameRoom);
 
                 // 4. 重置玩家准备状态
                 gameRoom.getPlayers().forEach(p -> p.setReady(false));
@@ -198,9 +205,7 @@ public class GameFlowServiceImpl implements GameFlowService {
                 if (shouldRepeat) {
                     // 🔥 重复题：继续下一轮（同一题）
                     if (gameRoom.nextQuestion()) {
-                        gameRoom.setQuestionStartTime(LocalDateTime.now());
-                        timerService.scheduleTimeout(roomCode, defaultQuestionTimeoutSeconds,
-                                () -> advanceQuestion(roomCode, "timeout", true));
+                        beginCurrentQuestion(roomCode, gameRoom);
 
                         log.info("🔁 房间 {} 重复题下一轮，题目索引 {} (轮次 {}/{})",
                                 roomCode, gameRoom.getCurrentIndex(),
@@ -209,6 +214,7 @@ public class GameFlowServiceImpl implements GameFlowService {
                         // 🔥 同步到 Redis
                         roomCache.syncToRedis(roomCode);
 
+                        broadcastCurrentQuestion(roomCode, gameRoom);
                         broadcaster.sendRoomUpdate(roomCode, roomLifecycleService.toRoomDTO(roomCode));
                     } else {
                         // 异常情况：重复题还没完成但无法推进
@@ -225,15 +231,14 @@ public class GameFlowServiceImpl implements GameFlowService {
                     }
 
                     if (gameRoom.nextQuestion()) {
-                        gameRoom.setQuestionStartTime(LocalDateTime.now());
-                        timerService.scheduleTimeout(roomCode, defaultQuestionTimeoutSeconds,
-                                () -> advanceQuestion(roomCode, "timeout", true));
+                        beginCurrentQuestion(roomCode, gameRoom);
 
                         log.info("➡️ 房间 {} 推进到题目索引 {}", roomCode, gameRoom.getCurrentIndex());
 
                         // 🔥 同步到 Redis
                         roomCache.syncToRedis(roomCode);
 
+                        broadcastCurrentQuestion(roomCode, gameRoom);
                         broadcaster.sendRoomUpdate(roomCode, roomLifecycleService.toRoomDTO(roomCode));
                     } else {
                         // 没有更多题目，游戏结束
@@ -342,6 +347,8 @@ public class GameFlowServiceImpl implements GameFlowService {
                     try {
                         timerService.cancelTimeout(roomCode);
                         roomCache.remove(roomCode);
+                        chatService.clearRoom(roomCode);
+                        leaderboardService.removeLiveLeaderboard(roomCode);
                         broadcaster.sendRoomDeleted(roomCode);
                         log.info("✅ 游戏结束后自动删除房间: {}", roomCode);
                     } catch (Exception e) {
@@ -354,6 +361,25 @@ public class GameFlowServiceImpl implements GameFlowService {
 
     // ==================== 私有方法 ====================
 
+    /**
+     * 开始当前题目：记录开始时间和截止时间（epoch 毫秒），启动超时定时器
+     * 截止时间随房间更新下发，客户端结合时钟同步结果本地倒计时
+     */
+    private void beginCurrentQuestion(String roomCode, GameRoom gameRoom) {
+        gameRoom.setQuestionStartTime(LocalDateTime.now());
+        gameRoom.setQuestionDeadline(System.currentTimeMillis() + defaultQuestionTimeoutSeconds * 1000);
+        timerService.scheduleTimeout(roomCode, defaultQuestionTimeoutSeconds,
+                () -> advanceQuestion(roomCode, "timeout", true));
+    }
+
+    /**
+     * 推送当前题目（每个题目索引只推送一次）
+     */
+    private void broadcastCurrentQuestion(String roomCode, GameRoom gameRoom) {
+        broadcaster.sendQuestion(roomCode,
+                roomLifecycleService.toRoomQuestionDTO(roomCode, gameRoom.getCurrentIndex()));
+    }
+
     /**
      * 应用分数到游戏房间
      */
@@ -380,6 +406,13 @@ public class GameFlowServiceImpl implements GameFlowService {
         // 记录本题得分详情
         gameRoom.getQuestionScores().put(currentIndex, result.getScoreDetails());
 
+        // 🔥 增量更新实时排行榜，只推送名次变化
+        LeaderboardUpdateDTO leaderboardUpdate =
+                leaderboardService.updateLiveScores(gameRoom, result.getFinalScores().keySet());
+        if (leaderboardUpdate != null) {
+            broadcaster.sendLeaderboardUpdate(gameRoom.getRoomCode(), leaderboardUpdate);
+        }
+
         log.info("✅ 房间 {} 题目索引 {} 分数计算完成", gameRoom.getRoomCode(), currentIndex);
     }
 }
\ No newline at end of file
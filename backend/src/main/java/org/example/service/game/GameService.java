@@ -6,8 +6,11 @@ import org.example.entity.GameEntity;
 import org.example.entity.GameResultEntity;
 import org.example.entity.PlayerGameEntity;
 import org.example.dto.GameHistoryDTO;
+import org.example.dto.GameHistoryPageDTO;
+import org.example.dto.LobbyPageDTO;
 import org.example.dto.RoomDTO;
 import org.example.pojo.GameRoom;
+import org.example.service.lobby.LobbyIndex;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -67,7 +70,10 @@ public interface GameService {
      */
     void removeRoom(String roomCode);
 
-    List<RoomDTO> getAllActiveRoom();
+    /**
+     * 大厅房间列表（摘要 + 游标分页）
+     */
+    LobbyPageDTO getLobbyRooms(LobbyIndex.Filter filter, Long cursor, int limit);
 
     /**
      * 玩家主动离开房间
@@ -83,6 +89,11 @@ public interface GameService {
      */
     List<GameHistorySummaryDTO> getHistoryList(Integer days, String playerId);
 
+    /**
+     * 获取玩家个人历史（keyset 分页，委托给 GameHistoryService）
+     */
+    GameHistoryPageDTO getPlayerHistoryPage(String playerId, Integer days, String cursor, int limit);
+
     /**
      * 获取单场游戏的详细历史（委托给 GameHistoryService）
      */
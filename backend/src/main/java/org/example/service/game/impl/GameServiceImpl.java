@@ -10,9 +10,12 @@ import org.example.pojo.*;
 import org.example.repository.*;
 import org.example.service.broadcast.RoomStateBroadcaster;
 import org.example.service.cache.RoomCache;
+import org.example.service.chat.ChatService;
 import org.example.service.flow.GameFlowService;
 import org.example.service.game.GameService;
 import org.example.service.history.GameHistoryService;
+import org.example.service.leaderboard.LeaderboardService;
+import org.example.service.lobby.LobbyIndex;
 import org.example.service.room.RoomLifecycleService;
 import org.example.service.submission.SubmissionService;
 import org.example.service.timer.QuestionTimerService;
@@ -38,6 +41,9 @@ public class GameServiceImpl implements GameService {
     private final QuestionTimerService timerService;
     private final RoomStateBroadcaster broadcaster;
     private final GameHistoryService gameHistoryService;
+    private final ChatService chatService;
+    private final LeaderboardService leaderboardService;
+    private final LobbyIndex lobbyIndex;
 
     // 数据库依赖
     private final GameRepository gameRepository;
@@ -154,25 +160,15 @@ public class GameServiceImpl implements GameService {
     public void removeRoom(String roomCode) {
         timerService.cancelTimeout(roomCode);
         roomCache.remove(roomCode);
+        chatService.clearRoom(roomCode);
+        leaderboardService.removeLiveLeaderboard(roomCode);
         log.info("🗑️ 移除房间: {}", roomCode);
     }
 
     @Override
-    public List<RoomDTO> getAllActiveRoom() {
-        return roomCache.getAll().stream()
-                .filter(gameRoom -> !gameRoom.isFinished())
-                .map(gameRoom -> {
-                    try {
-                        return roomLifecycleService.toRoomDTO(gameRoom.getRoomCode());
-                    } catch (BusinessException e) {
-                        // 🔥 房间在缓存中但数据库中不存在，跳过并清理
-                        log.warn("⚠️ 房间 {} 在缓存中但数据库中不存在，已清理", gameRoom.getRoomCode());
-                        roomCache.remove(gameRoom.getRoomCode());
-                        return null;
-                    }
-                })
-                .filter(roomDTO -> roomDTO != null)  // 过滤掉null值
-                .toList();
+    public LobbyPageDTO getLobbyRooms(LobbyIndex.Filter filter, Long cursor, int limit) {
+        // 🔥 直接读大厅索引，不再逐个房间 toRoomDTO
+        return lobbyIndex.query(filter, cursor, limit);
     }
 
     // ==================== 游戏流程（委托给 GameFlowService） ====================
@@ -238,6 +234,11 @@ public class GameServiceImpl implements GameService {
         return gameHistoryService.getHistoryList(days, playerId);
     }
 
+    @Override
+    public GameHistoryPageDTO getPlayerHistoryPage(String playerId, Integer days, String cursor, int limit) {
+        return gameHistoryService.getPlayerHistoryPage(playerId, days, cursor, limit);
+    }
+
     @Override
     public GameHistoryDTO getHistoryDetail(Long gameId) {
         return gameHistoryService.getHistoryDetail(gameId);
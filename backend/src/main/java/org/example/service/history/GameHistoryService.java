@@ -1,8 +1,15 @@
 package org.example.service.history;
 
 import org.example.dto.GameHistoryDTO;
+import org.example.dto.GameHistoryPageDTO;
 import org.example.dto.GameHistorySummaryDTO;
+import org.example.dto.PlayerRankDTO;
+import org.example.dto.QuestionDetailDTO;
+import org.example.entity.GameResultEntity;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -28,4 +35,59 @@ public interface GameHistoryService {
      * 根据房间号获取游戏历史（优先返回已保存的结果，否则返回当前状态）
      */
     GameHistoryDTO getGameHistoryByRoomCode(String roomCode);
-}
\ No newline at end of file
+
+    /**
+     * 已保存的单场结果（带 ETag，走已结束结果缓存）
+     * @throws org.example.exception.BusinessException 结果不存在
+     */
+    GameResultCache.Entry getFinishedHistory(Long gameId);
+
+    /**
+     * 单道题的详情（紧凑格式下只解压这一道题）
+     */
+    QuestionDetailDTO getQuestionDetail(Long gameId, int questionIndex);
+
+    /**
+     * 按房间号查已保存的结果（带 ETag），游戏尚未保存结果时返回 null
+     */
+    GameResultCache.Entry findFinishedHistoryByRoomCode(String roomCode);
+
+    /**
+     * 玩家个人历史（keyset 分页，只读玩家战绩索引）
+     * @param playerId 玩家ID
+     * @param days 查询最近几天的记录（null表示全部）
+     * @param cursor 上一页返回的 nextCursor（null表示第一页）
+     * @param limit 每页条数
+     */
+    GameHistoryPageDTO getPlayerHistoryPage(String playerId, Integer days, String cursor, int limit);
+
+    /**
+     * 游戏结束保存结果后写入玩家战绩索引
+     */
+    void indexGameResult(GameResultEntity result, List<PlayerRankDTO> leaderboard);
+
+    /**
+     * 从已有 game_results 回填玩家战绩索引（幂等，已有索引的游戏会跳过；进度记录在 analytics_job_state，完成后不再扫描）
+     * @return 回填的游戏场数
+     */
+    int backfillPlayerIndex();
+
+    /**
+     * 把旧格式（JSON）的题目详情转换为紧凑格式（幂等）
+     * @return 转换的游戏场数
+     */
+    int compactLegacyDetails();
+
+    /**
+     * 流式导出游戏历史，每行一个 GameHistoryDTO（NDJSON）
+     * 按主键分批读取并逐批写出，内存占用与导出总量无关，数据库连接只在每批查询期间占用
+     * @param from 起始时间（含，null 表示不限）
+     * @param to 结束时间（不含，null 表示不限）
+     * @param roomCode 房间号（可选）
+     * @param playerId 玩家ID（可选）
+     * @param includeDetails 是否包含每题详情
+     * @return 导出的游戏场数
+     */
+    long exportHistory(LocalDateTime from, LocalDateTime to, String roomCode, String playerId,
+                       boolean includeDetails, OutputStream out) throws IOException;
+}
@@ -0,0 +1,277 @@
+package org.example.service.history;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.GameHistoryDTO;
+import org.example.dto.PlayerRankDTO;
+import org.example.dto.PlayerSubmissionDTO;
+import org.example.dto.QuestionDetailDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 已结束游戏结果缓存
+ *
+ * 游戏结束后结果不会再变，解析好的 GameHistoryDTO 按 gameId 缓存，同时记录 roomCode → gameId：
+ * 1. 按权重（原始 JSON 字符数）做 LRU 淘汰，总权重不超过上限
+ * 2. 同一 gameId 并发未命中时只有一个线程去查库解析，其余线程等待同一结果（结束瞬间全员打开结果页）
+ * 3. 每条结果带一个强 ETag，Controller 用它回 304
+ * 4. DTO 是可变的，读取时返回副本，调用方改了也不会污染缓存
+ */
+@Component
+@Slf4j
+public class GameResultCache {
+
+    @Value("${history.cache.max-weight:33554432}")
+    private long maxWeight;
+
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, Long> gameIdByRoomCode = new ConcurrentHashMap<>();
+    // 反向映射，淘汰结果时 O(1) 清掉对应房间号（只在 synchronized 内访问）
+    private final Map<Long, String> roomCodeByGameId = new HashMap<>();
+    private final Map<Long, CompletableFuture<Entry>> loading = new ConcurrentHashMap<>();
+    private long totalWeight;
+    private long hits;
+    private long misses;
+
+    /**
+     * 缓存的单场结果
+     */
+    public static final class Entry {
+        private final GameHistoryDTO history;
+        @Getter
+        private final String etag;
+        @Getter
+        private final long weight;
+
+        public Entry(GameHistoryDTO history, String etag, long weight) {
+            this.history = history;
+            this.etag = etag;
+            this.weight = weight;
+        }
+
+        /**
+         * 整局结果（副本）
+         */
+        public GameHistoryDTO getHistory() {
+            return copy(history);
+        }
+
+        /**
+         * 单道题详情（副本），不存在时返回 null
+         */
+        public QuestionDetailDTO findQuestion(int questionIndex) {
+            if (history.getQuestionDetails() == null) {
+                return null;
+            }
+            return history.getQuestionDetails().stream()
+                    .filter(detail -> Objects.equals(detail.getQuestionIndex(), questionIndex))
+                    .findFirst()
+                    .map(GameResultCache::copy)
+                    .orElse(null);
+        }
+    }
+
+    /**
+     * 按 gameId 读取，未命中时调用 loader（同一 gameId 同时只加载一次）
+     * loader 返回 null 表示结果不存在，不缓存
+     */
+    public Entry get(Long gameId, Supplier<Entry> loader) {
+        Entry cached = peek(gameId);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<Entry> future = new CompletableFuture<>();
+        CompletableFuture<Entry> inFlight = loading.putIfAbsent(gameId, future);
+        if (inFlight != null) {
+            return join(inFlight);
+        }
+
+        try {
+            Entry loaded = loader.get();
+            if (loaded != null) {
+                put(gameId, loaded);
+            }
+            future.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(gameId, future);
+        }
+    }
+
+    /**
+     * 只查缓存，不加载
+     */
+    public synchronized Entry getIfPresent(Long gameId) {
+        return entries.get(gameId);
+    }
+
+    /**
+     * 房间号对应的已结束游戏ID（只有加载过的才有）
+     */
+    public Long findGameId(String roomCode) {
+        return gameIdByRoomCode.get(roomCode);
+    }
+
+    /**
+     * 记录房间号 → 游戏ID，只在结果已缓存时记录（过大未缓存的结果不留映射，随结果一起淘汰）
+     */
+    public synchronized void rememberRoom(String roomCode, Long gameId) {
+        if (!entries.containsKey(gameId)) {
+            return;
+        }
+        Long previous = gameIdByRoomCode.put(roomCode, gameId);
+        if (previous != null && !previous.equals(gameId)) {
+            roomCodeByGameId.remove(previous);
+        }
+        roomCodeByGameId.put(gameId, roomCode);
+    }
+
+    /**
+     * 房间号被新一局使用时清掉旧映射
+     */
+    public synchronized void evictRoom(String roomCode) {
+        Long gameId = gameIdByRoomCode.remove(roomCode);
+        if (gameId != null) {
+            roomCodeByGameId.remove(gameId);
+        }
+    }
+
+    public synchronized void evict(Long gameId) {
+        Entry removed = entries.remove(gameId);
+        if (removed != null) {
+            totalWeight -= removed.weight;
+            forgetRoom(gameId);
+        }
+    }
+
+    public synchronized Map<String, Object> stats() {
+        return Map.of(
+                "entries", entries.size(),
+                "weight", totalWeight,
+                "maxWeight", maxWeight,
+                "hits", hits,
+                "misses", misses
+        );
+    }
+
+    // ==================== 私有方法 ====================
+
+    private synchronized Entry peek(Long gameId) {
+        Entry entry = entries.get(gameId);
+        if (entry != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return entry;
+    }
+
+    private synchronized void put(Long gameId, Entry entry) {
+        if (entry.weight > maxWeight) {
+            log.debug("游戏 {} 结果过大（{}），不缓存", gameId, entry.weight);
+            return;
+        }
+        Entry previous = entries.put(gameId, entry);
+        if (previous != null) {
+            totalWeight -= previous.weight;
+        }
+        totalWeight += entry.weight;
+
+        // 按访问顺序淘汰最久未用的
+        Iterator<Map.Entry<Long, Entry>> iterator = entries.entrySet().iterator();
+        while (totalWeight > maxWeight && iterator.hasNext()) {
+            Map.Entry<Long, Entry> eldest = iterator.next();
+            if (eldest.getKey().equals(gameId)) {
+                continue;
+            }
+            iterator.remove();
+            totalWeight -= eldest.getValue().weight;
+            forgetRoom(eldest.getKey());
+        }
+    }
+
+    private void forgetRoom(Long gameId) {
+        String roomCode = roomCodeByGameId.remove(gameId);
+        if (roomCode != null) {
+            gameIdByRoomCode.remove(roomCode, gameId);
+        }
+    }
+
+    private static GameHistoryDTO copy(GameHistoryDTO history) {
+        return GameHistoryDTO.builder()
+                .gameId(history.getGameId())
+                .roomCode(history.getRoomCode())
+                .startTime(history.getStartTime())
+                .endTime(history.getEndTime())
+                .questionCount(history.getQuestionCount())
+                .playerCount(history.getPlayerCount())
+                .leaderboard(history.getLeaderboard() == null ? null
+                        : history.getLeaderboard().stream().map(GameResultCache::copy).toList())
+                .questionDetails(history.getQuestionDetails() == null ? null
+                        : history.getQuestionDetails().stream().map(GameResultCache::copy).toList())
+                .build();
+    }
+
+    private static PlayerRankDTO copy(PlayerRankDTO rank) {
+        return PlayerRankDTO.builder()
+                .playerId(rank.getPlayerId())
+                .playerName(rank.getPlayerName())
+                .totalScore(rank.getTotalScore())
+                .rank(rank.getRank())
+                .passed(rank.getPassed())
+                .build();
+    }
+
+    private static QuestionDetailDTO copy(QuestionDetailDTO detail) {
+        return QuestionDetailDTO.builder()
+                .questionIndex(detail.getQuestionIndex())
+                .questionId(detail.getQuestionId())
+                .strategyId(detail.getStrategyId())
+                .questionText(detail.getQuestionText())
+                .optionText(detail.getOptionText())
+                .questionType(detail.getQuestionType())
+                .playerSubmissions(detail.getPlayerSubmissions() == null ? null
+                        : detail.getPlayerSubmissions().stream().map(GameResultCache::copy).toList())
+                .choiceCounts(detail.getChoiceCounts() == null ? null
+                        : new LinkedHashMap<>(detail.getChoiceCounts()))
+                .build();
+    }
+
+    private static PlayerSubmissionDTO copy(PlayerSubmissionDTO submission) {
+        return PlayerSubmissionDTO.builder()
+                .playerId(submission.getPlayerId())
+                .playerName(submission.getPlayerName())
+                .choice(submission.getChoice())
+                .baseScore(submission.getBaseScore())
+                .finalScore(submission.getFinalScore())
+                .submittedAt(submission.getSubmittedAt())
+                .build();
+    }
+
+    private static Entry join(CompletableFuture<Entry> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package org.example.service.history;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.example.dto.PlayerSubmissionDTO;
+import org.example.dto.QuestionDetailDTO;
+import org.example.entity.QuestionType;
+import org.example.exception.BusinessException;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 题目详情紧凑存储格式（game_results.question_details_blob）
+ *
+ * 布局：
+ *   "QD" + 版本(1 字节) + 原始总长度(int)
+ *   题目数 n(int) + n 个题目索引(int)
+ *   字典段长度(int) + n 个题目段长度(int)
+ *   字典段 + n 个题目段，每段单独 deflate
+ *
+ * 字典段：[[playerId, playerName], ...]，每局只存一次
+ * 题目段：[题目文本, 选项文本, 题型, [[玩家序号, 选择, 基础分, 最终分], ...], 题目ID, 策略ID]
+ * choiceCounts 由提交记录推导，不单独存储
+ *
+ * 每段独立压缩，读单道题只需解压字典段和该题所在段
+ */
+@Component
+@RequiredArgsConstructor
+public class QuestionDetailsCodec {
+
+    private static final byte[] MAGIC = {'Q', 'D'};
+    private static final byte VERSION = 1;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 编码题目详情列表
+     */
+    public byte[] encode(List<QuestionDetailDTO> details) {
+        try {
+            // 1️⃣ 玩家字典
+            Map<String, Integer> playerIndex = new LinkedHashMap<>();
+            List<List<String>> dictionary = new ArrayList<>();
+            for (QuestionDetailDTO detail : details) {
+                if (detail.getPlayerSubmissions() == null) {
+                    continue;
+                }
+                for (PlayerSubmissionDTO submission : detail.getPlayerSubmissions()) {
+                    if (!playerIndex.containsKey(submission.getPlayerId())) {
+                        playerIndex.put(submission.getPlayerId(), dictionary.size());
+                        dictionary.add(Arrays.asList(submission.getPlayerId(), submission.getPlayerName()));
+                    }
+                }
+            }
+
+            // 2️⃣ 各段原始内容
+            List<byte[]> rawSegments = new ArrayList<>();
+            rawSegments.add(objectMapper.writeValueAsBytes(dictionary));
+            for (QuestionDetailDTO detail : details) {
+                List<List<Object>> submissions = new ArrayList<>();
+                if (detail.getPlayerSubmissions() != null) {
+                    for (PlayerSubmissionDTO submission : detail.getPlayerSubmissions()) {
+                        submissions.add(Arrays.asList(
+                                playerIndex.get(submission.getPlayerId()),
+                                submission.getChoice(),
+                                submission.getBaseScore(),
+                                submission.getFinalScore()));
+                    }
+                }
+                rawSegments.add(objectMapper.writeValueAsBytes(Arrays.asList(
+                        detail.getQuestionText(),
+                        detail.getOptionText(),
+                        detail.getQuestionType() != null ? detail.getQuestionType().name() : null,
+                        submissions,
+                        detail.getQuestionId(),
+                        detail.getStrategyId())));
+            }
+
+            // 3️⃣ 写头部和压缩后的段
+            int rawSize = 0;
+            List<byte[]> segments = new ArrayList<>();
+            for (byte[] raw : rawSegments) {
+                rawSize += raw.length;
+                segments.add(deflate(raw));
+            }
+
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(buffer);
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(rawSize);
+            out.writeInt(details.size());
+            for (QuestionDetailDTO detail : details) {
+                out.writeInt(detail.getQuestionIndex() != null ? detail.getQuestionIndex() : -1);
+            }
+            for (byte[] segment : segments) {
+                out.writeInt(segment.length);
+            }
+            for (byte[] segment : segments) {
+                out.write(segment);
+            }
+            out.flush();
+            return buffer.toByteArray();
+        } catch (IOException e) {
+            throw new BusinessException("题目详情编码失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 解码全部题目
+     */
+    public List<QuestionDetailDTO> decodeAll(byte[] blob) {
+        Header header = readHeader(blob);
+        List<List<String>> dictionary = readDictionary(blob, header);
+        List<QuestionDetailDTO> details = new ArrayList<>(header.questionIndexes.length);
+        for (int i = 0; i < header.questionIndexes.length; i++) {
+            details.add(readQuestion(blob, header, i, dictionary));
+        }
+        return details;
+    }
+
+    /**
+     * 只解码某一道题（按题目索引），不存在返回 null
+     */
+    public QuestionDetailDTO decodeQuestion(byte[] blob, int questionIndex) {
+        Header header = readHeader(blob);
+        for (int i = 0; i < header.questionIndexes.length; i++) {
+            if (header.questionIndexes[i] == questionIndex) {
+                return readQuestion(blob, header, i, readDictionary(blob, header));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 解压后的原始字节数（缓存权重用），只读头部
+     */
+    public int rawSize(byte[] blob) {
+        return readHeader(blob).rawSize;
+    }
+
+    // ==================== 私有方法 ====================
+
+    /**
+     * 头部：各段在 blob 中的位置
+     */
+    private static final class Header {
+        int rawSize;
+        int[] questionIndexes;
+        int[] offsets;   // 第 0 段为字典
+        int[] lengths;
+    }
+
+    private Header readHeader(byte[] blob) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(blob));
+            if (in.readByte() != MAGIC[0] || in.readByte() != MAGIC[1]) {
+                throw new BusinessException("题目详情格式错误");
+            }
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new BusinessException("不支持的题目详情版本: " + version);
+            }
+            Header header = new Header();
+            header.rawSize = in.readInt();
+            int count = in.readInt();
+            header.questionIndexes = new int[count];
+            for (int i = 0; i < count; i++) {
+                header.questionIndexes[i] = in.readInt();
+            }
+            header.lengths = new int[count + 1];
+            for (int i = 0; i <= count; i++) {
+                header.lengths[i] = in.readInt();
+            }
+            // 头部固定长度：魔数 2 + 版本 1 + 原始长度 4 + 题目数 4 + 索引 4n + 段长度 4(n+1)
+            int offset = 2 + 1 + 4 + 4 + 4 * count + 4 * (count + 1);
+            header.offsets = new int[count + 1];
+            for (int i = 0; i <= count; i++) {
+                header.offsets[i] = offset;
+                offset += header.lengths[i];
+            }
+            return header;
+        } catch (IOException e) {
+            throw new BusinessException("题目详情格式错误: " + e.getMessage());
+        }
+    }
+
+    private List<List<String>> readDictionary(byte[] blob, Header header) {
+        JsonNode node = readSegment(blob, header, 0);
+        List<List<String>> dictionary = new ArrayList<>(node.size());
+        for (JsonNode entry : node) {
+            dictionary.add(Arrays.asList(textOrNull(entry.get(0)), textOrNull(entry.get(1))));
+        }
+        return dictionary;
+    }
+
+    private QuestionDetailDTO readQuestion(byte[] blob, Header header, int position, List<List<String>> dictionary) {
+        JsonNode node = readSegment(blob, header, position + 1);
+
+        List<PlayerSubmissionDTO> submissions = new ArrayList<>();
+        Map<String, Integer> choiceCounts = new LinkedHashMap<>();
+        for (JsonNode row : node.get(3)) {
+            List<String> player = dictionary.get(row.get(0).asInt());
+            String choice = textOrNull(row.get(1));
+            submissions.add(PlayerSubmissionDTO.builder()
+                    .playerId(player.get(0))
+                    .playerName(player.get(1))
+                    .choice(choice)
+                    .baseScore(row.get(2).isNull() ? null : row.get(2).asInt())
+                    .finalScore(row.get(3).isNull() ? null : row.get(3).asInt())
+                    .build());
+            choiceCounts.merge(choice, 1, Integer::sum);
+        }
+
+        String type = textOrNull(node.get(2));
+        JsonNode questionId = node.get(4);
+        return QuestionDetailDTO.builder()
+                .questionIndex(header.questionIndexes[position])
+                .questionId(questionId == null || questionId.isNull() ? null : questionId.asLong())
+                .strategyId(textOrNull(node.get(5)))
+                .questionText(textOrNull(node.get(0)))
+                .optionText(textOrNull(node.get(1)))
+                .questionType(type != null ? QuestionType.valueOf(type) : null)
+                .playerSubmissions(submissions)
+                .choiceCounts(choiceCounts)
+                .build();
+    }
+
+    private JsonNode readSegment(byte[] blob, Header header, int segment) {
+        try {
+            return objectMapper.readTree(inflate(blob, header.offsets[segment], header.lengths[segment]));
+        } catch (IOException | DataFormatException e) {
+            throw new BusinessException("题目详情解码失败: " + e.getMessage());
+        }
+    }
+
+    private static String textOrNull(JsonNode node) {
+        return node == null || node.isNull() ? null : node.asText();
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] chunk = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] blob, int offset, int length) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(blob, offset, length);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(length * 4);
+            byte[] chunk = new byte[4096];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(chunk);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("数据不完整");
+                }
+                out.write(chunk, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+}
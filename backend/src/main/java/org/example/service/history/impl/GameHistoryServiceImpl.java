@@ -2,11 +2,14 @@ package org.example.service.history.impl;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.dto.*;
+import org.example.entity.AnalyticsJobStateEntity;
 import org.example.entity.GameEntity;
 import org.example.entity.GameResultEntity;
+import org.example.entity.PlayerGameResultEntity;
 import org.example.entity.QuestionOption;
 import org.example.entity.QuestionType;
 import org.example.exception.BusinessException;
@@ -14,12 +17,24 @@ import org.example.pojo.GameRoom;
 import org.example.repository.*;
 import org.example.service.cache.RoomCache;
 import org.example.service.history.GameHistoryService;
+import org.example.service.history.GameResultCache;
+import org.example.service.history.QuestionDetailsCodec;
 import org.example.service.leaderboard.LeaderboardService;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.zip.CRC32;
 
 /**
  * 游戏历史服务实现
@@ -36,13 +51,62 @@ public class GameHistoryServiceImpl implements GameHistoryService {
     private final LeaderboardService leaderboardService;
     private final ChoiceQuestionConfigRepository choiceConfigRepository;
     private final BidQuestionConfigRepository bidConfigRepository;
-
+    private final PlayerGameResultRepository playerGameResultRepository;
+    private final TaskScheduler taskScheduler;
+    private final GameResultCache gameResultCache;
+    private final QuestionDetailsCodec questionDetailsCodec;
+    private final AnalyticsJobStateRepository jobStateRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int BACKFILL_BATCH_SIZE = 200;
+    private static final String INDEX_BACKFILL_JOB = "player_game_results";
+    // days 为空时的查询下界
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(2000, 1, 1, 0, 0);
+    private static final LocalDateTime FAR_FUTURE = LocalDateTime.of(9999, 1, 1, 0, 0);
+    private static final int EXPORT_BATCH_SIZE = 200;
+    private static final byte[] NEWLINE = {'\n'};
+
+    @PostConstruct
+    public void scheduleBackfill() {
+        // 启动后在后台回填，不阻塞启动
+        taskScheduler.schedule(() -> {
+            try {
+                int games = backfillPlayerIndex();
+                if (games > 0) {
+                    log.info("✅ 玩家战绩索引回填完成，共 {} 场", games);
+                }
+            } catch (Exception e) {
+                log.error("❌ 玩家战绩索引回填失败", e);
+            }
+            try {
+                int compacted = compactLegacyDetails();
+                if (compacted > 0) {
+                    log.info("✅ 旧格式题目详情转换完成，共 {} 场", compacted);
+                }
+            } catch (Exception e) {
+                log.error("❌ 旧格式题目详情转换失败", e);
+            }
+        }, Instant.now().plusSeconds(10));
+    }
 
     @Override
     public List<GameHistorySummaryDTO> getHistoryList(Integer days, String playerId) {
         log.info("=== 获取历史记录列表 ===");
         log.info("days: {}, playerId: {}", days, playerId);
 
+        // 🔥 指定玩家时直接查战绩索引，只读该玩家自己的记录
+        if (playerId != null) {
+            List<GameHistorySummaryDTO> summaries = playerGameResultRepository
+                    .findFirstPage(playerId, windowStart(days), Pageable.unpaged())
+                    .stream()
+                    .map(this::toSummary)
+                    .collect(Collectors.toList());
+            log.info("✅ 返回 {} 条符合条件的记录", summaries.size());
+            return summaries;
+        }
+
         // 查询游戏结果
         List<GameResultEntity> results = queryGameResults(days);
 
@@ -65,55 +129,319 @@ public class GameHistoryServiceImpl implements GameHistoryService {
 
     @Override
     public GameHistoryDTO getHistoryDetail(Long gameId) {
-        log.info("=== 获取游戏详情 ===");
-        log.info("gameId: {}", gameId);
+        return getFinishedHistory(gameId).getHistory();
+    }
+
+    @Override
+    public GameHistoryDTO getGameHistoryByRoomCode(String roomCode) {
+        log.debug("根据房间号获取游戏历史: {}", roomCode);
+
+        GameResultCache.Entry entry = findFinishedHistoryByRoomCode(roomCode);
+        if (entry != null) {
+            return entry.getHistory();
+        }
 
         try {
-            // 查询游戏实体
-            GameEntity game = gameRepository.findById(gameId)
-                    .orElseThrow(() -> new BusinessException("游戏不存在"));
+            log.info("⚠️ 未找到已保存的游戏结果，返回当前游戏状态");
+            return getCurrentGameStatus(roomCode);
+        } catch (Exception e) {
+            log.error("获取游戏历史失败: roomCode={}", roomCode, e);
+            throw new BusinessException("获取游戏历史失败: " + e.getMessage());
+        }
+    }
 
-            // 查询游戏结果
-            GameResultEntity result = gameResultRepository.findByGameIdWithDetails(gameId)
-                    .orElseThrow(() -> new BusinessException("游戏结果不存在"));
+    @Override
+    public GameResultCache.Entry getFinishedHistory(Long gameId) {
+        // 🔥 已结束的结果不会再变，解析一次后走缓存
+        GameResultCache.Entry entry = gameResultCache.get(gameId, () ->
+                gameResultRepository.findByGameIdWithDetails(gameId)
+                        .map(this::toCacheEntry)
+                        .orElse(null));
+        if (entry == null) {
+            throw new BusinessException("游戏结果不存在");
+        }
+        return entry;
+    }
 
-            // 解析JSON并构建DTO
-            return parseGameResultEntity(result);
+    @Override
+    public QuestionDetailDTO getQuestionDetail(Long gameId, int questionIndex) {
+        // 整局已在缓存中就直接取
+        GameResultCache.Entry cached = gameResultCache.getIfPresent(gameId);
+        if (cached != null) {
+            QuestionDetailDTO detail = cached.findQuestion(questionIndex);
+            if (detail == null) {
+                throw new BusinessException("题目不存在");
+            }
+            return detail;
+        }
 
-        } catch (BusinessException e) {
-            log.error("获取游戏详情失败: {}", e.getMessage());
-            throw e;
-        } catch (Exception e) {
-            log.error("解析游戏结果失败: gameId={}", gameId, e);
-            throw new BusinessException("获取游戏详情失败: " + e.getMessage());
+        GameResultEntity result = gameResultRepository.findByGameIdWithDetails(gameId)
+                .orElseThrow(() -> new BusinessException("游戏结果不存在"));
+
+        // 🔥 紧凑格式只解压这一道题
+        if (result.getQuestionDetailsBlob() != null) {
+            QuestionDetailDTO detail = questionDetailsCodec.decodeQuestion(result.getQuestionDetailsBlob(), questionIndex);
+            if (detail == null) {
+                throw new BusinessException("题目不存在");
+            }
+            return detail;
         }
+
+        QuestionDetailDTO detail = toCacheEntry(result).findQuestion(questionIndex);
+        if (detail == null) {
+            throw new BusinessException("题目不存在");
+        }
+        return detail;
     }
 
     @Override
-    public GameHistoryDTO getGameHistoryByRoomCode(String roomCode) {
-        log.info("=== 根据房间号获取游戏历史 ===");
-        log.info("roomCode: {}", roomCode);
+    public GameResultCache.Entry findFinishedHistoryByRoomCode(String roomCode) {
+        Long gameId = gameResultCache.findGameId(roomCode);
+        if (gameId != null) {
+            return getFinishedHistory(gameId);
+        }
 
-        try {
-            // ✅ 改：使用新方法
-            Optional<GameResultEntity> resultOpt = gameResultRepository.findByRoomCodeWithDetails(roomCode);
+        Optional<GameResultEntity> resultOpt = gameResultRepository.findByRoomCodeWithDetails(roomCode);
+        if (resultOpt.isEmpty()) {
+            return null;
+        }
+        GameResultEntity result = resultOpt.get();
+        Long resultGameId = result.getGame().getId();
+        GameResultCache.Entry entry = gameResultCache.get(resultGameId, () -> toCacheEntry(result));
+        gameResultCache.rememberRoom(roomCode, resultGameId);
+        return entry;
+    }
 
-            if (resultOpt.isPresent()) {
-                log.info("✅ 找到已保存的游戏结果");
-                GameResultEntity result = resultOpt.get();
-                return parseGameResultEntity(result);
-            } else {
-                log.info("⚠️ 未找到已保存的游戏结果，返回当前游戏状态");
-                return getCurrentGameStatus(roomCode);
+    @Override
+    public GameHistoryPageDTO getPlayerHistoryPage(String playerId, Integer days, String cursor, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // 多取一条用来判断是否还有下一页
+        Pageable pageable = PageRequest.of(0, size + 1);
+        LocalDateTime after = windowStart(days);
+
+        List<PlayerGameResultEntity> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = playerGameResultRepository.findFirstPage(playerId, after, pageable);
+        } else {
+            int separator = cursor.lastIndexOf('_');
+            if (separator <= 0) {
+                throw new BusinessException("无效的分页游标");
             }
-        } catch (Exception e) {
-            log.error("获取游戏历史失败: roomCode={}", roomCode, e);
-            throw new BusinessException("获取游戏历史失败: " + e.getMessage());
+            try {
+                LocalDateTime cursorTime = LocalDateTime.parse(cursor.substring(0, separator));
+                Long cursorGameId = Long.parseLong(cursor.substring(separator + 1));
+                rows = playerGameResultRepository.findPageBefore(playerId, after, cursorTime, cursorGameId, pageable);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new BusinessException("无效的分页游标");
+            }
+        }
+
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            PlayerGameResultEntity last = rows.get(rows.size() - 1);
+            nextCursor = last.getEndTime() + "_" + last.getGameId();
+        }
+
+        return GameHistoryPageDTO.builder()
+                .items(rows.stream().map(this::toSummary).collect(Collectors.toList()))
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    @Override
+    public void indexGameResult(GameResultEntity result, List<PlayerRankDTO> leaderboard) {
+        List<PlayerGameResultEntity> rows = toIndexRows(result, leaderboard);
+        if (!rows.isEmpty()) {
+            playerGameResultRepository.saveAll(rows);
+        }
+    }
+
+    /**
+     * 边界为首次回填时 game_results 的最大 ID，之后的结果由 indexGameResult 实时写入
+     * 游标按批保存，重启后从断点继续；只有机器人的游戏没有索引行，靠游标跳过，不会每次启动重扫
+     */
+    @Override
+    public int backfillPlayerIndex() {
+        AnalyticsJobStateEntity state = jobStateRepository.findById(INDEX_BACKFILL_JOB)
+                .orElseGet(() -> jobStateRepository.save(AnalyticsJobStateEntity.builder()
+                        .jobName(INDEX_BACKFILL_JOB)
+                        .boundaryId(gameResultRepository.findMaxId())
+                        .build()));
+        if (Boolean.TRUE.equals(state.getCompleted())) {
+            return 0;
+        }
+
+        int games = 0;
+        long lastId = state.getCursorId();
+        while (true) {
+            List<GameResultEntity> batch = gameResultRepository.findUnindexedBatchAfterId(
+                    lastId, state.getBoundaryId(), PageRequest.of(0, BACKFILL_BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
+            List<PlayerGameResultEntity> rows = new ArrayList<>();
+            for (GameResultEntity result : batch) {
+                lastId = result.getId();
+                try {
+                    List<PlayerRankDTO> leaderboard = objectMapper.readValue(
+                            result.getLeaderboardJson(),
+                            new TypeReference<List<PlayerRankDTO>>() {}
+                    );
+                    rows.addAll(toIndexRows(result, leaderboard));
+                    games++;
+                } catch (Exception e) {
+                    log.warn("⚠️ 解析排行榜失败，跳过回填: resultId={}", result.getId());
+                }
+            }
+            insertIgnoringDuplicates(rows);
+            state.setCursorId(lastId);
+            state = jobStateRepository.save(state);
+            log.info("📇 玩家战绩索引回填进度: 已处理到 resultId={}, 累计 {} 场", lastId, games);
+        }
+
+        state.setCompleted(true);
+        jobStateRepository.save(state);
+        return games;
+    }
+
+    /**
+     * 回填与实时写入可能写同一行，INSERT IGNORE 跳过已存在的 (player_id, game_id)，不会中断整个回填
+     */
+    private void insertIgnoringDuplicates(List<PlayerGameResultEntity> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT IGNORE INTO player_game_results " +
+                        "(player_id, game_id, room_code, score, player_rank, player_count, question_count, end_time) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                rows.stream().map(r -> new Object[]{
+                        r.getPlayerId(), r.getGameId(), r.getRoomCode(), r.getScore(), r.getRank(),
+                        r.getPlayerCount(), r.getQuestionCount(), r.getEndTime()
+                }).collect(Collectors.toList()));
+    }
+
+    @Override
+    public int compactLegacyDetails() {
+        int compacted = 0;
+        long lastId = 0L;
+        while (true) {
+            List<GameResultEntity> batch = gameResultRepository.findLegacyDetailsBatchAfterId(
+                    lastId, PageRequest.of(0, BACKFILL_BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
+            List<GameResultEntity> converted = new ArrayList<>();
+            for (GameResultEntity result : batch) {
+                lastId = result.getId();
+                try {
+                    List<QuestionDetailDTO> details = objectMapper.readValue(
+                            result.getQuestionDetailsJson(),
+                            new TypeReference<List<QuestionDetailDTO>>() {}
+                    );
+                    result.setQuestionDetailsBlob(questionDetailsCodec.encode(details));
+                    result.setQuestionDetailsJson(null);
+                    converted.add(result);
+                } catch (Exception e) {
+                    log.warn("⚠️ 解析旧格式题目详情失败，跳过: resultId={}", result.getId());
+                }
+            }
+            gameResultRepository.saveAll(converted);
+            compacted += converted.size();
+            log.info("🗜️ 题目详情转换进度: 已处理到 resultId={}, 累计 {} 场", lastId, compacted);
         }
+        return compacted;
+    }
+
+    @Override
+    public long exportHistory(LocalDateTime from, LocalDateTime to, String roomCode, String playerId,
+                              boolean includeDetails, OutputStream out) throws IOException {
+        LocalDateTime start = from != null ? from : BEGINNING;
+        LocalDateTime end = to != null ? to : FAR_FUTURE;
+
+        // 直接从时间范围内的第一条开始、到最后一条结束，不必扫描范围外的主键
+        Long firstId = gameResultRepository.findFirstIdCreatedFrom(start);
+        Long maxId = gameResultRepository.findLastIdCreatedBefore(end);
+        if (firstId == null || maxId == null || maxId < firstId) {
+            return 0;
+        }
+
+        long exported = 0;
+        long lastId = firstId - 1;
+        while (true) {
+            List<GameResultEntity> batch = gameResultRepository.findExportBatchAfterId(
+                    lastId, maxId, start, end, roomCode, playerId, PageRequest.of(0, EXPORT_BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (GameResultEntity result : batch) {
+                lastId = result.getId();
+                try {
+                    out.write(objectMapper.writeValueAsBytes(parseGameResultEntity(result, includeDetails)));
+                    out.write(NEWLINE);
+                    exported++;
+                } catch (IOException e) {
+                    throw e;
+                } catch (Exception e) {
+                    log.warn("⚠️ 导出时解析游戏结果失败，跳过: gameId={}", result.getGame().getId());
+                }
+            }
+            out.flush();
+        }
+
+        log.info("📤 导出游戏历史 {} 场: from={}, to={}, roomCode={}, playerId={}",
+                exported, from, to, roomCode, playerId);
+        return exported;
     }
 
     // ==================== 私有方法 ====================
 
+    private LocalDateTime windowStart(Integer days) {
+        return days != null ? LocalDateTime.now().minusDays(days) : BEGINNING;
+    }
+
+    /**
+     * 拆出每个玩家一行（Bot 不建索引）
+     */
+    private List<PlayerGameResultEntity> toIndexRows(GameResultEntity result, List<PlayerRankDTO> leaderboard) {
+        GameEntity game = result.getGame();
+        LocalDateTime endTime = game.getEndTime() != null ? game.getEndTime() : result.getCreatedAt();
+        if (endTime == null) {
+            endTime = LocalDateTime.now();
+        }
+
+        List<PlayerGameResultEntity> rows = new ArrayList<>();
+        for (PlayerRankDTO player : leaderboard) {
+            if (player.getPlayerId() == null || player.getPlayerId().startsWith("BOT_")) {
+                continue;
+            }
+            rows.add(PlayerGameResultEntity.builder()
+                    .playerId(player.getPlayerId())
+                    .gameId(game.getId())
+                    .roomCode(game.getRoom().getRoomCode())
+                    .score(player.getTotalScore() != null ? player.getTotalScore() : 0)
+                    .rank(player.getRank() != null ? player.getRank() : 0)
+                    .playerCount(result.getPlayerCount())
+                    .questionCount(result.getQuestionCount())
+                    .endTime(endTime)
+                    .build());
+        }
+        return rows;
+    }
+
+    private GameHistorySummaryDTO toSummary(PlayerGameResultEntity row) {
+        return GameHistorySummaryDTO.builder()
+                .gameId(row.getGameId())
+                .roomCode(row.getRoomCode())
+                .endTime(row.getEndTime())
+                .questionCount(row.getQuestionCount())
+                .playerCount(row.getPlayerCount())
+                .myScore(row.getScore())
+                .myRank(row.getRank())
+                .build();
+    }
+
     /**
      * 查询游戏结果（支持时间过滤）
      */
@@ -175,19 +503,61 @@ public class GameHistoryServiceImpl implements GameHistoryService {
         }
     }
 
+    /**
+     * 解析结果并计算 ETag（存储内容的 CRC32）与缓存权重（解压后的原始字节数）
+     */
+    private GameResultCache.Entry toCacheEntry(GameResultEntity result) {
+        try {
+            GameHistoryDTO history = parseGameResultEntity(result);
+
+            String leaderboardJson = Objects.toString(result.getLeaderboardJson(), "");
+            CRC32 crc = new CRC32();
+            crc.update(leaderboardJson.getBytes(StandardCharsets.UTF_8));
+            long weight = leaderboardJson.length();
+            if (result.getQuestionDetailsBlob() != null) {
+                crc.update(result.getQuestionDetailsBlob());
+                weight += questionDetailsCodec.rawSize(result.getQuestionDetailsBlob());
+            } else {
+                String questionDetailsJson = Objects.toString(result.getQuestionDetailsJson(), "");
+                crc.update(questionDetailsJson.getBytes(StandardCharsets.UTF_8));
+                weight += questionDetailsJson.length();
+            }
+            String etag = "\"" + history.getGameId() + "-" + Long.toHexString(crc.getValue()) + "\"";
+
+            return new GameResultCache.Entry(history, etag, weight);
+        } catch (Exception e) {
+            log.error("解析游戏结果失败: gameId={}", result.getGame().getId(), e);
+            throw new BusinessException("获取游戏详情失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 解析 GameResultEntity 为详细DTO
      */
     private GameHistoryDTO parseGameResultEntity(GameResultEntity result) throws Exception {
+        return parseGameResultEntity(result, true);
+    }
+
+    private GameHistoryDTO parseGameResultEntity(GameResultEntity result, boolean includeDetails) throws Exception {
         List<PlayerRankDTO> leaderboard = objectMapper.readValue(
                 result.getLeaderboardJson(),
                 new TypeReference<List<PlayerRankDTO>>() {}
         );
 
-        List<QuestionDetailDTO> questionDetails = objectMapper.readValue(
-                result.getQuestionDetailsJson(),
-                new TypeReference<List<QuestionDetailDTO>>() {}
-        );
+        // 紧凑格式优先，旧数据仍是 JSON
+        List<QuestionDetailDTO> questionDetails;
+        if (!includeDetails) {
+            questionDetails = null;
+        } else if (result.getQuestionDetailsBlob() != null) {
+            questionDetails = questionDetailsCodec.decodeAll(result.getQuestionDetailsBlob());
+        } else if (result.getQuestionDetailsJson() != null) {
+            questionDetails = objectMapper.readValue(
+                    result.getQuestionDetailsJson(),
+                    new TypeReference<List<QuestionDetailDTO>>() {}
+            );
+        } else {
+            questionDetails = new ArrayList<>();
+        }
 
         return GameHistoryDTO.builder()
                 .gameId(result.getGame().getId())
@@ -278,6 +648,8 @@ public class GameHistoryServiceImpl implements GameHistoryService {
 
             details.add(QuestionDetailDTO.builder()
                     .questionIndex(i)
+                    .questionId(question.getId())
+                    .strategyId(question.getStrategyId())
                     .questionText(question.getText())
                     .optionText(optionText)
                     .questionType(question.getType())
@@ -0,0 +1,75 @@
+package org.example.service.leaderboard;
+
+import org.example.dto.GlobalPlayerRankDTO;
+import org.example.dto.GlobalRankEntryDTO;
+import org.example.dto.PlayerRankDTO;
+import org.example.exception.BusinessException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 全局 / 赛季排行榜服务
+ * 数据保存在 Redis 有序集合中，游戏结束时增量更新，定期从 MySQL 全量校准
+ * 查询只读 Redis，不扫描结果表
+ */
+public interface GlobalLeaderboardService {
+
+    /**
+     * 排行指标
+     */
+    enum Metric {
+        SCORE("score"),      // 累计总分
+        GAMES("games"),      // 参与场次
+        WIN_RATE("winrate"); // 胜率（第一名场次 / 参与场次）
+
+        private final String key;
+
+        Metric(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public static Metric fromKey(String key) {
+            for (Metric metric : values()) {
+                if (metric.key.equalsIgnoreCase(key)) {
+                    return metric;
+                }
+            }
+            throw new BusinessException("不支持的排行指标: " + key);
+        }
+    }
+
+    /**
+     * 记录一场已结束的游戏（同一 gameId 只计一次）
+     * @param gameId 游戏ID
+     * @param finishedAt 结束时间（决定计入哪个赛季）
+     * @param leaderboard 本局最终排行榜
+     */
+    void recordGame(Long gameId, LocalDateTime finishedAt, List<PlayerRankDTO> leaderboard);
+
+    /**
+     * 前 N 名
+     * @param season null 表示总榜，"current" 表示当前赛季，否则为赛季标识（如 2026-10）
+     */
+    List<GlobalRankEntryDTO> getTop(Metric metric, String season, int limit);
+
+    /**
+     * 玩家附近的名次（前后各 radius 名）
+     */
+    List<GlobalRankEntryDTO> getAround(Metric metric, String season, String playerId, int radius);
+
+    /**
+     * 玩家名次与百分位
+     */
+    GlobalPlayerRankDTO getPlayerRank(Metric metric, String season, String playerId);
+
+    /**
+     * 从 MySQL 全量重建（定时校准任务也调用这里）
+     * @return 参与重建的游戏场数
+     */
+    int rebuild();
+}
@@ -1,8 +1,10 @@
 package org.example.service.leaderboard;
 
+import org.example.dto.LeaderboardUpdateDTO;
 import org.example.dto.PlayerRankDTO;
 import org.example.pojo.GameRoom;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -17,4 +19,27 @@ public interface LeaderboardService {
      * @return 排行榜列表
      */
     List<PlayerRankDTO> buildLeaderboard(GameRoom gameRoom);
-}
\ No newline at end of file
+
+    /**
+     * 开始游戏时为房间建立实时排行榜（所有非观战玩家 0 分入榜）
+     */
+    void startLiveLeaderboard(GameRoom gameRoom);
+
+    /**
+     * 分数变化后更新实时排行榜
+     * @param gameRoom 游戏房间（分数已写入）
+     * @param playerIds 分数发生变化的玩家
+     * @return 名次变化增量，没有变化时返回 null
+     */
+    LeaderboardUpdateDTO updateLiveScores(GameRoom gameRoom, Collection<String> playerIds);
+
+    /**
+     * 查询玩家当前名次（O(log n)），房间没有实时排行榜或玩家不在榜上时返回 null
+     */
+    Integer getLiveRank(String roomCode, String playerId);
+
+    /**
+     * 移除房间的实时排行榜
+     */
+    void removeLiveLeaderboard(String roomCode);
+}
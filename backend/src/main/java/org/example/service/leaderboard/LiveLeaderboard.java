@@ -0,0 +1,176 @@
+package org.example.service.leaderboard;
+
+import org.example.dto.LeaderboardUpdateDTO;
+import org.example.utils.ScoreRankTree;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 单个房间的实时排行榜
+ *
+ * 分数存放在按 (分数, 加入顺序) 排序的顺序统计树中，任何排名模式下查询单个玩家名次都是 O(log n)：
+ * - standard：分数降序
+ * - closest_to_avg / closest_to_target：按与中心值（平均分 / 目标分）的距离升序，
+ *   距离为 d 的玩家名次 = 分数落在 (中心-d, 中心+d) 内的人数 + 同距离中排在前面的人数 + 1，
+ *   平均分移动时无需重新排序
+ * 距离相同时分数高者在前，分数也相同时先加入者在前
+ *
+ * 所有方法由实例锁保护
+ */
+public class LiveLeaderboard {
+
+    public static final String STANDARD = "standard";
+    public static final String CLOSEST_TO_AVG = "closest_to_avg";
+    public static final String CLOSEST_TO_TARGET = "closest_to_target";
+
+    private final String rankingMode;
+    private final Integer targetScore;
+    private final ScoreRankTree tree = new ScoreRankTree();
+    private final Map<String, Integer> scores = new LinkedHashMap<>();
+    // 玩家第一次入榜的次序，作为同分时的排序依据
+    private final Map<String, Integer> joinOrder = new HashMap<>();
+    private final Map<String, Integer> publishedRanks = new HashMap<>();
+    private long totalScore;
+    private long version;
+
+    public LiveLeaderboard(String rankingMode, Integer targetScore) {
+        // 没有目标分的 closest_to_target 退化为标准排名（与原排序逻辑一致）
+        if (CLOSEST_TO_TARGET.equals(rankingMode) && targetScore == null) {
+            rankingMode = STANDARD;
+        }
+        this.rankingMode = rankingMode != null ? rankingMode : STANDARD;
+        this.targetScore = targetScore;
+    }
+
+    public String getRankingMode() {
+        return rankingMode;
+    }
+
+    public synchronized int size() {
+        return scores.size();
+    }
+
+    /**
+     * 设置玩家总分（不存在则按加入顺序排在末尾）
+     */
+    public synchronized void put(String playerId, int score) {
+        int order = joinOrder.computeIfAbsent(playerId, k -> joinOrder.size());
+        Integer previous = scores.put(playerId, score);
+        if (previous != null) {
+            if (previous == score) {
+                return;
+            }
+            tree.remove(previous, order);
+            totalScore -= previous;
+        }
+        tree.insert(score, order);
+        totalScore += score;
+    }
+
+    public synchronized Integer getScore(String playerId) {
+        return scores.get(playerId);
+    }
+
+    /**
+     * 玩家当前名次（从 1 开始），不在榜上返回 null
+     */
+    public synchronized Integer rankOf(String playerId) {
+        Integer score = scores.get(playerId);
+        if (score == null) {
+            return null;
+        }
+        return switch (rankingMode) {
+            case CLOSEST_TO_AVG -> rankByDistance(playerId, score, totalScore, scores.size());
+            case CLOSEST_TO_TARGET -> rankByDistance(playerId, score, targetScore, 1);
+            default -> standardRank(playerId, score);
+        };
+    }
+
+    /**
+     * 按当前名次排好序的 playerId 列表
+     */
+    public synchronized List<String> orderedPlayerIds() {
+        Map<String, Integer> ranks = new HashMap<>();
+        for (String playerId : scores.keySet()) {
+            ranks.put(playerId, rankOf(playerId));
+        }
+        List<String> ordered = new ArrayList<>(scores.keySet());
+        ordered.sort(Comparator.comparing(ranks::get));
+        return ordered;
+    }
+
+    /**
+     * 与上次推送相比名次发生变化的玩家（第一次调用返回全部玩家）
+     * 调用后以当前名次作为新的基准
+     */
+    public synchronized LeaderboardUpdateDTO diffSinceLastPublish(String roomCode, Integer questionIndex) {
+        List<LeaderboardUpdateDTO.RankChange> changes = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : scores.entrySet()) {
+            String playerId = entry.getKey();
+            Integer rank = rankOf(playerId);
+            Integer previousRank = publishedRanks.put(playerId, rank);
+            if (!rank.equals(previousRank)) {
+                changes.add(LeaderboardUpdateDTO.RankChange.builder()
+                        .playerId(playerId)
+                        .rank(rank)
+                        .previousRank(previousRank)
+                        .totalScore(entry.getValue())
+                        .build());
+            }
+        }
+        if (changes.isEmpty()) {
+            return null;
+        }
+        changes.sort(Comparator.comparing(LeaderboardUpdateDTO.RankChange::getRank));
+        return LeaderboardUpdateDTO.builder()
+                .roomCode(roomCode)
+                .rankingMode(rankingMode)
+                .questionIndex(questionIndex)
+                .version(++version)
+                .changes(changes)
+                .build();
+    }
+
+    // ==================== 私有方法 ====================
+
+    private int standardRank(String playerId, int score) {
+        int higher = tree.countScoreBetween((long) score + 1, Integer.MAX_VALUE);
+        int sameScoreBefore = tree.countLess(score, joinOrder.get(playerId)) - tree.countScoreLess(score);
+        return higher + sameScoreBefore + 1;
+    }
+
+    /**
+     * 按与中心值 center/divisor 的距离排名
+     * 全部换算成 score * divisor 与 center 的整数比较，避免浮点误差
+     */
+    private int rankByDistance(String playerId, int score, long center, long divisor) {
+        long distance = Math.abs((long) score * divisor - center);
+
+        // 距离严格更小：score * divisor ∈ (center - distance, center + distance)
+        int closer = 0;
+        if (distance > 0) {
+            long low = Math.floorDiv(center - distance, divisor) + 1;
+            long high = ceilDiv(center + distance, divisor) - 1;
+            closer = tree.countScoreBetween(low, high);
+        }
+
+        // 同距离的另一侧（分数更高的一侧排在前面）
+        int sameDistanceAhead = 0;
+        long above = center + distance;
+        if (distance > 0 && (long) score * divisor < above && above % divisor == 0) {
+            sameDistanceAhead = tree.countScoreBetween(above / divisor, above / divisor);
+        }
+
+        int sameScoreBefore = tree.countLess(score, joinOrder.get(playerId)) - tree.countScoreLess(score);
+        return closer + sameDistanceAhead + sameScoreBefore + 1;
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return -Math.floorDiv(-x, y);
+    }
+}
@@ -0,0 +1,498 @@
+package org.example.service.leaderboard.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.GlobalPlayerRankDTO;
+import org.example.dto.GlobalRankEntryDTO;
+import org.example.dto.PlayerRankDTO;
+import org.example.repository.GameResultRepository;
+import org.example.service.leaderboard.GlobalLeaderboardService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 全局排行榜服务实现
+ *
+ * Redis 键：
+ * - leaderboard:global:{scope}:score / games / wins / winrate   有序集合，member 为 playerId
+ *   scope 为 all（总榜）或 season:{赛季}
+ * - leaderboard:global:names     玩家昵称（hash）
+ * - leaderboard:global:games     已计入的 gameId（set，防止重复累加）
+ *
+ * 调用方需在游戏结果提交之后再调用 recordGame，否则回滚的游戏会被计入并标记为已计入
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GlobalLeaderboardServiceImpl implements GlobalLeaderboardService {
+
+    private static final String KEY_PREFIX = "leaderboard:global:";
+    private static final String NAMES_KEY = KEY_PREFIX + "names";
+    private static final String GAMES_KEY = KEY_PREFIX + "games";
+    private static final String ALL_SCOPE = "all";
+    private static final String WINS = "wins";
+    private static final String TEMP_SUFFIX = ":rebuild";
+    private static final int REBUILD_BATCH_SIZE = 500;
+    private static final int MAX_PAGE_SIZE = 100;
+    // 校准替换正式键后，向前回看这么久补录新结束的游戏（覆盖扫描开始前已开始、之后才提交的事务）
+    private static final Duration CATCH_UP_MARGIN = Duration.ofMinutes(5);
+
+    /**
+     * KEYS: 已计入集合, 昵称, 然后每个范围依次为 总分/场次/胜场/胜率
+     * ARGV: gameId, 计算胜率的最少场次, 然后每个玩家依次为 playerId/昵称/得分/是否胜利
+     * 返回 0 表示该游戏已计入过
+     */
+    private static final RedisScript<Long> RECORD_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('SADD', KEYS[1], ARGV[1]) == 0 then
+                return 0
+            end
+            local minGames = tonumber(ARGV[2])
+            for i = 3, #ARGV, 4 do
+                local playerId = ARGV[i]
+                redis.call('HSET', KEYS[2], playerId, ARGV[i + 1])
+                for base = 3, #KEYS, 4 do
+                    redis.call('ZINCRBY', KEYS[base], ARGV[i + 2], playerId)
+                    local games = tonumber(redis.call('ZINCRBY', KEYS[base + 1], 1, playerId))
+                    local wins = tonumber(redis.call('ZINCRBY', KEYS[base + 2], ARGV[i + 3], playerId))
+                    if games >= minGames then
+                        redis.call('ZADD', KEYS[base + 3], wins / games, playerId)
+                    end
+                end
+            end
+            return 1
+            """, Long.class);
+
+    /**
+     * KEYS: ARGV[1] 对 (临时键, 正式键)，之后为需要删除的旧键
+     */
+    private static final RedisScript<Long> SWAP_SCRIPT = new DefaultRedisScript<>("""
+            local count = tonumber(ARGV[1])
+            for i = 1, count do
+                redis.call('RENAME', KEYS[2 * i - 1], KEYS[2 * i])
+            end
+            for i = 2 * count + 1, #KEYS do
+                redis.call('DEL', KEYS[i])
+            end
+            return count
+            """, Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final GameResultRepository gameResultRepository;
+    private final ObjectMapper objectMapper;
+    private final TaskScheduler taskScheduler;
+
+    @Value("${leaderboard.global.season-pattern:yyyy-MM}")
+    private String seasonPattern;
+
+    @Value("${leaderboard.global.min-games-for-win-rate:3}")
+    private int minGamesForWinRate;
+
+    @Value("${leaderboard.global.reconcile-interval-minutes:60}")
+    private long reconcileIntervalMinutes;
+
+    private DateTimeFormatter seasonFormatter;
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+
+    @PostConstruct
+    public void start() {
+        seasonFormatter = DateTimeFormatter.ofPattern(seasonPattern);
+        if (reconcileIntervalMinutes > 0) {
+            // 启动后先校准一次，之后定期校准
+            taskScheduler.scheduleWithFixedDelay(this::reconcile,
+                    Instant.now().plus(Duration.ofMinutes(1)),
+                    Duration.ofMinutes(reconcileIntervalMinutes));
+        }
+    }
+
+    @Override
+    public void recordGame(Long gameId, LocalDateTime finishedAt, List<PlayerRankDTO> leaderboard) {
+        if (gameId == null || leaderboard == null || leaderboard.isEmpty()) {
+            return;
+        }
+        try {
+            record(gameId, finishedAt, leaderboard);
+        } catch (Exception e) {
+            // 排行榜失败不影响游戏结束流程，下次校准会补上
+            log.error("❌ 更新全局排行榜失败: gameId={}", gameId, e);
+        }
+    }
+
+    /**
+     * 累加一场游戏（标记 gameId、累加各项、刷新胜率在同一个 Lua 脚本中完成）
+     * @return false 表示该游戏已计入过
+     */
+    private boolean record(Long gameId, LocalDateTime finishedAt, List<PlayerRankDTO> leaderboard) {
+        List<String> keys = new ArrayList<>();
+        keys.add(GAMES_KEY);
+        keys.add(NAMES_KEY);
+        for (String scope : List.of(ALL_SCOPE, seasonScope(finishedAt))) {
+            keys.add(key(scope, Metric.SCORE.getKey()));
+            keys.add(key(scope, Metric.GAMES.getKey()));
+            keys.add(key(scope, WINS));
+            keys.add(key(scope, Metric.WIN_RATE.getKey()));
+        }
+
+        List<String> args = new ArrayList<>();
+        args.add(gameId.toString());
+        args.add(String.valueOf(minGamesForWinRate));
+        int players = 0;
+        for (PlayerRankDTO player : leaderboard) {
+            if (player.getPlayerId() == null || player.getPlayerId().startsWith("BOT_")) {
+                continue;
+            }
+            args.add(player.getPlayerId());
+            args.add(nameOf(player));
+            args.add(String.valueOf(player.getTotalScore() != null ? player.getTotalScore() : 0));
+            args.add(Integer.valueOf(1).equals(player.getRank()) ? "1" : "0");
+            players++;
+        }
+
+        Long recorded = stringRedisTemplate.execute(RECORD_SCRIPT, keys, args.toArray());
+        if (recorded == null || recorded == 0) {
+            log.debug("游戏 {} 已计入全局排行榜，跳过", gameId);
+            return false;
+        }
+        log.info("🏆 游戏 {} 已计入全局排行榜，玩家数: {}", gameId, players);
+        return true;
+    }
+
+    @Override
+    public List<GlobalRankEntryDTO> getTop(Metric metric, String season, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Set<ZSetOperations.TypedTuple<String>> tuples = stringRedisTemplate.opsForZSet()
+                .reverseRangeWithScores(key(resolveScope(season), metric.getKey()), 0, size - 1);
+        return toEntries(tuples, 0);
+    }
+
+    @Override
+    public List<GlobalRankEntryDTO> getAround(Metric metric, String season, String playerId, int radius) {
+        String key = key(resolveScope(season), metric.getKey());
+        Long rank = stringRedisTemplate.opsForZSet().reverseRank(key, playerId);
+        if (rank == null) {
+            return Collections.emptyList();
+        }
+        int span = Math.max(0, Math.min(radius, MAX_PAGE_SIZE / 2));
+        long start = Math.max(0, rank - span);
+        Set<ZSetOperations.TypedTuple<String>> tuples = stringRedisTemplate.opsForZSet()
+                .reverseRangeWithScores(key, start, rank + span);
+        return toEntries(tuples, start);
+    }
+
+    @Override
+    public GlobalPlayerRankDTO getPlayerRank(Metric metric, String season, String playerId) {
+        String scope = resolveScope(season);
+        String key = key(scope, metric.getKey());
+
+        List<Object> results = stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                operations.opsForZSet().reverseRank(key, playerId);
+                operations.opsForZSet().score(key, playerId);
+                operations.opsForZSet().zCard(key);
+                operations.opsForHash().get(NAMES_KEY, playerId);
+                return null;
+            }
+        });
+
+        Long rank = results.get(0) != null ? ((Number) results.get(0)).longValue() : null;
+        Double value = results.get(1) != null ? ((Number) results.get(1)).doubleValue() : null;
+        long total = results.get(2) != null ? ((Number) results.get(2)).longValue() : 0L;
+
+        Double percentile = null;
+        if (rank != null) {
+            // 排在自己后面的人数占其他玩家的比例
+            percentile = total <= 1 ? 100.0 : (total - rank - 1) * 100.0 / (total - 1);
+        }
+
+        return GlobalPlayerRankDTO.builder()
+                .playerId(playerId)
+                .playerName(results.get(3) != null ? results.get(3).toString() : null)
+                .metric(metric.getKey())
+                .season(ALL_SCOPE.equals(scope) ? null : scope.substring("season:".length()))
+                .rank(rank != null ? rank + 1 : null)
+                .value(value)
+                .totalPlayers(total)
+                .percentile(percentile)
+                .build();
+    }
+
+    @Override
+    public int rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            log.warn("⚠️ 全局排行榜正在重建，跳过");
+            return 0;
+        }
+        try {
+            return doRebuild();
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    // ==================== 私有方法 ====================
+
+    private void reconcile() {
+        try {
+            int games = rebuild();
+            log.info("🔄 全局排行榜校准完成，共 {} 场", games);
+        } catch (Exception e) {
+            log.error("❌ 全局排行榜校准失败", e);
+        }
+    }
+
+    /**
+     * 分批读取 game_results，在内存中汇总后写入临时键，再原子地 RENAME 覆盖正式键
+     * 扫描到 RENAME 之间 recordGame 写入的增量（连同其 gameId 标记）会被覆盖，替换完成后再按创建时间补录一遍（按 gameId 去重）
+     */
+    private int doRebuild() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        Map<String, Map<String, PlayerStats>> statsByScope = new HashMap<>();
+        Map<String, String> names = new HashMap<>();
+        List<String> gameIds = new ArrayList<>();
+
+        long lastId = 0L;
+        while (true) {
+            List<GameResultRepository.LeaderboardRow> batch = gameResultRepository.findLeaderboardRowsAfterId(
+                    lastId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (GameResultRepository.LeaderboardRow row : batch) {
+                lastId = row.getId();
+                List<PlayerRankDTO> leaderboard = parseLeaderboard(row);
+                if (leaderboard.isEmpty()) {
+                    continue;
+                }
+                gameIds.add(row.getGameId().toString());
+
+                List<String> scopes = List.of(ALL_SCOPE, seasonScope(row.getFinishedAt()));
+                for (PlayerRankDTO player : leaderboard) {
+                    if (player.getPlayerId() == null || player.getPlayerId().startsWith("BOT_")) {
+                        continue;
+                    }
+                    names.put(player.getPlayerId(), nameOf(player));
+                    for (String scope : scopes) {
+                        statsByScope.computeIfAbsent(scope, k -> new HashMap<>())
+                                .computeIfAbsent(player.getPlayerId(), k -> new PlayerStats())
+                                .add(player);
+                    }
+                }
+            }
+        }
+
+        Set<String> existingKeys = scanKeys();
+        Set<String> liveKeys = new LinkedHashSet<>();
+
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                statsByScope.forEach((scope, players) -> {
+                    String scoreKey = key(scope, Metric.SCORE.getKey());
+                    String gamesKey = key(scope, Metric.GAMES.getKey());
+                    String winsKey = key(scope, WINS);
+                    String winRateKey = key(scope, Metric.WIN_RATE.getKey());
+                    Set<ZSetOperations.TypedTuple<String>> scores = new LinkedHashSet<>();
+                    Set<ZSetOperations.TypedTuple<String>> games = new LinkedHashSet<>();
+                    Set<ZSetOperations.TypedTuple<String>> wins = new LinkedHashSet<>();
+                    Set<ZSetOperations.TypedTuple<String>> winRates = new LinkedHashSet<>();
+                    players.forEach((playerId, stats) -> {
+                        scores.add(ZSetOperations.TypedTuple.of(playerId, (double) stats.score));
+                        games.add(ZSetOperations.TypedTuple.of(playerId, (double) stats.games));
+                        wins.add(ZSetOperations.TypedTuple.of(playerId, (double) stats.wins));
+                        if (stats.games >= minGamesForWinRate) {
+                            winRates.add(ZSetOperations.TypedTuple.of(playerId, (double) stats.wins / stats.games));
+                        }
+                    });
+                    addTemp(operations, scoreKey, scores, liveKeys);
+                    addTemp(operations, gamesKey, games, liveKeys);
+                    addTemp(operations, winsKey, wins, liveKeys);
+                    addTemp(operations, winRateKey, winRates, liveKeys);
+                });
+                if (!names.isEmpty()) {
+                    operations.delete(tempKey(NAMES_KEY));
+                    operations.opsForHash().putAll(tempKey(NAMES_KEY), names);
+                    liveKeys.add(NAMES_KEY);
+                }
+                if (!gameIds.isEmpty()) {
+                    operations.delete(tempKey(GAMES_KEY));
+                    operations.opsForSet().add(tempKey(GAMES_KEY), (Object[]) gameIds.toArray(new String[0]));
+                    liveKeys.add(GAMES_KEY);
+                }
+                return null;
+            }
+        });
+
+        // 临时键整体替换正式键，并清理已经没有数据的旧键（例如被删除的历史赛季）
+        // 在同一个脚本中完成，替换期间不会有 recordGame 插进来，查询也不会看到半成品
+        List<String> swapKeys = new ArrayList<>();
+        for (String liveKey : liveKeys) {
+            swapKeys.add(tempKey(liveKey));
+            swapKeys.add(liveKey);
+        }
+        for (String existing : existingKeys) {
+            if (!liveKeys.contains(existing) && !existing.endsWith(TEMP_SUFFIX)) {
+                swapKeys.add(existing);
+            }
+        }
+        stringRedisTemplate.execute(SWAP_SCRIPT, swapKeys, String.valueOf(liveKeys.size()));
+
+        int caughtUp = catchUp(startedAt.minus(CATCH_UP_MARGIN));
+        if (caughtUp > 0) {
+            log.info("🔄 全局排行榜校准期间新结束的游戏已补录: {} 场", caughtUp);
+        }
+        return gameIds.size() + caughtUp;
+    }
+
+    /**
+     * 补录 since 之后创建的游戏；已在集合里的 gameId 由 recordGame 跳过
+     */
+    private int catchUp(LocalDateTime since) {
+        int recorded = 0;
+        long lastId = 0L;
+        while (true) {
+            List<GameResultRepository.LeaderboardRow> batch = gameResultRepository.findLeaderboardRowsCreatedSince(
+                    since, lastId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            if (batch.isEmpty()) {
+                return recorded;
+            }
+            for (GameResultRepository.LeaderboardRow row : batch) {
+                lastId = row.getId();
+                List<PlayerRankDTO> leaderboard = parseLeaderboard(row);
+                if (!leaderboard.isEmpty() && record(row.getGameId(), row.getFinishedAt(), leaderboard)) {
+                    recorded++;
+                }
+            }
+        }
+    }
+
+    /**
+     * 用 SCAN 列出现有排行榜键，避免 KEYS 阻塞 Redis
+     */
+    private Set<String> scanKeys() {
+        Set<String> keys = new LinkedHashSet<>();
+        ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(500).build();
+        try (Cursor<String> cursor = stringRedisTemplate.scan(options)) {
+            cursor.forEachRemaining(keys::add);
+        }
+        return keys;
+    }
+
+    private void addTemp(RedisOperations<String, String> operations, String key,
+                         Set<ZSetOperations.TypedTuple<String>> tuples, Set<String> liveKeys) {
+        if (tuples.isEmpty()) {
+            return;
+        }
+        operations.delete(tempKey(key));
+        operations.opsForZSet().add(tempKey(key), tuples);
+        liveKeys.add(key);
+    }
+
+    private List<PlayerRankDTO> parseLeaderboard(GameResultRepository.LeaderboardRow row) {
+        if (row.getLeaderboardJson() == null) {
+            return Collections.emptyList();
+        }
+        try {
+            return objectMapper.readValue(row.getLeaderboardJson(), new TypeReference<List<PlayerRankDTO>>() {});
+        } catch (Exception e) {
+            log.warn("⚠️ 解析排行榜失败，跳过: resultId={}", row.getId());
+            return Collections.emptyList();
+        }
+    }
+
+    private List<GlobalRankEntryDTO> toEntries(Set<ZSetOperations.TypedTuple<String>> tuples, long startRank) {
+        if (tuples == null || tuples.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Object> playerIds = new ArrayList<>();
+        for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+            playerIds.add(tuple.getValue());
+        }
+        List<Object> names = stringRedisTemplate.opsForHash().multiGet(NAMES_KEY, playerIds);
+
+        List<GlobalRankEntryDTO> entries = new ArrayList<>();
+        long rank = startRank;
+        int index = 0;
+        for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+            Object name = names.get(index++);
+            entries.add(GlobalRankEntryDTO.builder()
+                    .rank(++rank)
+                    .playerId(tuple.getValue())
+                    .playerName(name != null ? name.toString() : null)
+                    .value(tuple.getScore())
+                    .build());
+        }
+        return entries;
+    }
+
+    private String resolveScope(String season) {
+        if (season == null || season.isBlank() || ALL_SCOPE.equalsIgnoreCase(season)) {
+            return ALL_SCOPE;
+        }
+        if ("current".equalsIgnoreCase(season)) {
+            return seasonScope(LocalDateTime.now());
+        }
+        return "season:" + season;
+    }
+
+    private String seasonScope(LocalDateTime time) {
+        return "season:" + seasonFormatter.format(time != null ? time : LocalDateTime.now());
+    }
+
+    private static String key(String scope, String metric) {
+        return KEY_PREFIX + scope + ":" + metric;
+    }
+
+    private static String tempKey(String key) {
+        return key + TEMP_SUFFIX;
+    }
+
+    private static String nameOf(PlayerRankDTO player) {
+        return player.getPlayerName() != null ? player.getPlayerName() : player.getPlayerId();
+    }
+
+    /**
+     * 重建时单个玩家在单个范围内的汇总
+     */
+    private static final class PlayerStats {
+        long score;
+        long games;
+        long wins;
+
+        void add(PlayerRankDTO player) {
+            score += player.getTotalScore() != null ? player.getTotalScore() : 0;
+            games++;
+            if (Integer.valueOf(1).equals(player.getRank())) {
+                wins++;
+            }
+        }
+    }
+}
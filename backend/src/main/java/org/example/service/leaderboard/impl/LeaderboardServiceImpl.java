@@ -1,19 +1,24 @@
 package org.example.service.leaderboard.impl;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.dto.LeaderboardUpdateDTO;
+import org.example.dto.PlayerDTO;
 import org.example.dto.PlayerRankDTO;
 import org.example.dto.RoomDTO;
-import org.example.entity.RoomEntity;
 import org.example.pojo.GameRoom;
-import org.example.repository.RoomRepository;
+import org.example.pojo.RoomSettings;
 import org.example.service.leaderboard.LeaderboardService;
+import org.example.service.leaderboard.LiveLeaderboard;
+import org.example.service.room.RoomLifecycleService;
 import org.springframework.stereotype.Service;
 
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 排行榜服务实现
@@ -23,79 +28,40 @@ import java.util.stream.Collectors;
 @Slf4j
 public class LeaderboardServiceImpl implements LeaderboardService {
 
-    private final RoomRepository roomRepository;
-    private final ObjectMapper objectMapper;
+    private final RoomLifecycleService roomLifecycleService;
+
+    /**
+     * 进行中房间的实时排行榜（不进 Redis，房间从 Redis 恢复后按需重建）
+     */
+    private final Map<String, LiveLeaderboard> liveBoards = new ConcurrentHashMap<>();
 
     @Override
     public List<PlayerRankDTO> buildLeaderboard(GameRoom gameRoom) {
-        // 🔥 获取房间配置
-        RoomEntity roomEntity = roomRepository.findByRoomCode(gameRoom.getRoomCode()).orElse(null);
-        String rankingMode = roomEntity != null ? roomEntity.getRankingMode() : "standard";
-        Integer targetScore = roomEntity != null ? roomEntity.getTargetScore() : null;
-
-        // 🔥 解析通关条件
-        RoomDTO.WinConditions winConditions = null;
-        if (roomEntity != null && roomEntity.getWinConditionsJson() != null) {
-            try {
-                winConditions = objectMapper.readValue(
-                        roomEntity.getWinConditionsJson(),
-                        RoomDTO.WinConditions.class
-                );
-            } catch (Exception e) {
-                log.error("解析通关条件失败", e);
-            }
+        // 🔥 获取房间配置（直接使用缓存的设置，不查数据库）
+        RoomSettings settings = roomLifecycleService.resolveSettings(gameRoom);
+        RoomDTO.WinConditions winConditions = settings.getWinConditions();
+
+        // 1️⃣ 优先使用实时排行榜，没有时（未开始 / 已移除）临时建一个
+        LiveLeaderboard board = liveBoards.get(gameRoom.getRoomCode());
+        if (board == null) {
+            board = createBoard(gameRoom);
         }
 
-        // 1️⃣ 构建玩家列表（🔥 排除观战者）
-        List<PlayerRankDTO> leaderboard = gameRoom.getPlayers().stream()
-                .filter(player -> !Boolean.TRUE.equals(player.getSpectator()))  // 🔥 过滤观战者
-                .map(player -> PlayerRankDTO.builder()
-                        .playerId(player.getPlayerId())
-                        .playerName(player.getName())
-                        .totalScore(gameRoom.getScores().getOrDefault(player.getPlayerId(), 0))
-                        .build())
-                .collect(Collectors.toList());
-
-        // 2️⃣ 根据排名模式排序
-        switch (rankingMode) {
-            case "closest_to_avg": {
-                // 计算平均分
-                double avgScore = leaderboard.stream()
-                        .mapToInt(PlayerRankDTO::getTotalScore)
-                        .average()
-                        .orElse(0.0);
-
-                log.info("📊 房间 {} 使用接近平均分排名，平均分: {}", gameRoom.getRoomCode(), avgScore);
-
-                // 按离平均分的绝对差值排序
-                leaderboard.sort(Comparator.comparingDouble(p ->
-                        Math.abs(p.getTotalScore() - avgScore)
-                ));
-                break;
-            }
-            case "closest_to_target": {
-                if (targetScore == null) {
-                    log.warn("⚠️ 房间 {} 排名模式为 closest_to_target 但未设置目标分，使用标准排名",
-                            gameRoom.getRoomCode());
-                    leaderboard.sort(Comparator.comparing(PlayerRankDTO::getTotalScore).reversed());
-                } else {
-                    log.info("📊 房间 {} 使用接近目标分排名，目标分: {}", gameRoom.getRoomCode(), targetScore);
-
-                    // 按离目标分的绝对差值排序
-                    leaderboard.sort(Comparator.comparingInt(p ->
-                            Math.abs(p.getTotalScore() - targetScore)
-                    ));
-                }
-                break;
-            }
-            case "standard":
-            default:
-                // 标准排名：分数降序
-                leaderboard.sort(Comparator.comparing(PlayerRankDTO::getTotalScore).reversed());
-                break;
+        // 2️⃣ 按名次输出（🔥 观战者不在榜上）
+        Map<String, String> names = new HashMap<>();
+        for (PlayerDTO player : gameRoom.getPlayers()) {
+            names.put(player.getPlayerId(), player.getName());
+        }
+        List<PlayerRankDTO> leaderboard = new ArrayList<>();
+        for (String playerId : board.orderedPlayerIds()) {
+            leaderboard.add(PlayerRankDTO.builder()
+                    .playerId(playerId)
+                    .playerName(names.get(playerId))
+                    .totalScore(board.getScore(playerId))
+                    .build());
         }
 
-        // 3️⃣ 分配排名（处理并列）
+        // 3️⃣ 分配排名
         for (int i = 0; i < leaderboard.size(); i++) {
             leaderboard.get(i).setRank(i + 1);
         }
@@ -117,6 +83,51 @@ public class LeaderboardServiceImpl implements LeaderboardService {
         return leaderboard;
     }
 
+    @Override
+    public void startLiveLeaderboard(GameRoom gameRoom) {
+        LiveLeaderboard board = createBoard(gameRoom);
+        liveBoards.put(gameRoom.getRoomCode(), board);
+        log.info("📊 房间 {} 建立实时排行榜，模式: {}, 玩家数: {}",
+                gameRoom.getRoomCode(), board.getRankingMode(), board.size());
+    }
+
+    @Override
+    public LeaderboardUpdateDTO updateLiveScores(GameRoom gameRoom, Collection<String> playerIds) {
+        // 服务重启后房间从 Redis 恢复，实时排行榜按当前分数重建
+        LiveLeaderboard board = liveBoards.computeIfAbsent(gameRoom.getRoomCode(), code -> createBoard(gameRoom));
+        for (String playerId : playerIds) {
+            // 观战者不入榜
+            if (board.getScore(playerId) == null) {
+                continue;
+            }
+            board.put(playerId, gameRoom.getScores().getOrDefault(playerId, 0));
+        }
+        return board.diffSinceLastPublish(gameRoom.getRoomCode(), gameRoom.getCurrentIndex());
+    }
+
+    @Override
+    public Integer getLiveRank(String roomCode, String playerId) {
+        LiveLeaderboard board = liveBoards.get(roomCode);
+        return board != null ? board.rankOf(playerId) : null;
+    }
+
+    @Override
+    public void removeLiveLeaderboard(String roomCode) {
+        liveBoards.remove(roomCode);
+    }
+
+    private LiveLeaderboard createBoard(GameRoom gameRoom) {
+        RoomSettings settings = roomLifecycleService.resolveSettings(gameRoom);
+        LiveLeaderboard board = new LiveLeaderboard(settings.getRankingMode(), settings.getTargetScore());
+        for (PlayerDTO player : gameRoom.getPlayers()) {
+            if (Boolean.TRUE.equals(player.getSpectator())) {
+                continue;
+            }
+            board.put(player.getPlayerId(), gameRoom.getScores().getOrDefault(player.getPlayerId(), 0));
+        }
+        return board;
+    }
+
     /**
      * 检查是否达成通关条件
      */
@@ -0,0 +1,229 @@
+package org.example.service.lobby;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.LobbyEventDTO;
+import org.example.dto.LobbyPageDTO;
+import org.example.dto.LobbyRoomDTO;
+import org.example.entity.RoomEntity;
+import org.example.pojo.GameRoom;
+import org.example.pojo.RoomSettings;
+import org.example.pojo.RoomStatus;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 大厅房间索引
+ * 由 RoomCache 在房间写入/同步/移除时增量维护，大厅查询不再遍历房间、不查数据库
+ * 变化通过 /topic/lobby 增量推送
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class LobbyIndex {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+
+    private static final String LOBBY_TOPIC = "/topic/lobby";
+    private static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * 按创建顺序排序（seq 越大越新）
+     */
+    private final ConcurrentSkipListMap<Long, LobbyRoomDTO> bySeq = new ConcurrentSkipListMap<>();
+    private final Map<String, LobbyRoomDTO> byCode = new ConcurrentHashMap<>();
+
+    private final AtomicLong seqGenerator = new AtomicLong();
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * 根据房间当前状态刷新摘要（摘要无变化时不推送）
+     */
+    public void refresh(GameRoom room) {
+        if (room == null || room.getRoomCode() == null) {
+            return;
+        }
+        if (room.isFinished()) {
+            remove(room.getRoomCode());
+            return;
+        }
+
+        LobbyEventDTO event;
+        synchronized (this) {
+            LobbyRoomDTO previous = byCode.get(room.getRoomCode());
+            LobbyRoomDTO summary = buildSummary(room, previous);
+            if (summary.equals(previous)) {
+                return;
+            }
+            byCode.put(summary.getRoomCode(), summary);
+            bySeq.put(summary.getSeq(), summary);
+            event = LobbyEventDTO.builder()
+                    .type(LobbyEventDTO.EventType.UPSERT)
+                    .roomCode(summary.getRoomCode())
+                    .room(summary)
+                    .version(version.incrementAndGet())
+                    .build();
+        }
+        publish(event);
+    }
+
+    /**
+     * 从大厅移除房间
+     */
+    public void remove(String roomCode) {
+        LobbyEventDTO event;
+        synchronized (this) {
+            LobbyRoomDTO previous = byCode.remove(roomCode);
+            if (previous == null) {
+                return;
+            }
+            bySeq.remove(previous.getSeq());
+            event = LobbyEventDTO.builder()
+                    .type(LobbyEventDTO.EventType.REMOVE)
+                    .roomCode(roomCode)
+                    .version(version.incrementAndGet())
+                    .build();
+        }
+        publish(event);
+    }
+
+    /**
+     * 分页查询（新房间在前，游标为上一页最后一个房间的 seq）
+     */
+    public LobbyPageDTO query(Filter filter, Long cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        long currentVersion = version.get();
+
+        NavigableMap<Long, LobbyRoomDTO> view = cursor != null
+                ? bySeq.headMap(cursor, false).descendingMap()
+                : bySeq.descendingMap();
+
+        List<LobbyRoomDTO> rooms = new ArrayList<>(pageSize);
+        Long nextCursor = null;
+        for (LobbyRoomDTO summary : view.values()) {
+            if (filter != null && !filter.matches(summary)) {
+                continue;
+            }
+            if (rooms.size() == pageSize) {
+                nextCursor = rooms.get(rooms.size() - 1).getSeq();
+                break;
+            }
+            rooms.add(summary);
+        }
+
+        return LobbyPageDTO.builder()
+                .rooms(rooms)
+                .nextCursor(nextCursor)
+                .version(currentVersion)
+                .build();
+    }
+
+    public int size() {
+        return byCode.size();
+    }
+
+    /**
+     * 当前在大厅中的房间号（副本）
+     */
+    public Set<String> roomCodes() {
+        return Set.copyOf(byCode.keySet());
+    }
+
+    private LobbyRoomDTO buildSummary(GameRoom room, LobbyRoomDTO previous) {
+        RoomEntity entity = room.getRoomEntity();
+
+        int spectators = 0;
+        for (var player : room.getPlayers()) {
+            if (Boolean.TRUE.equals(player.getSpectator())) {
+                spectators++;
+            }
+        }
+
+        RoomStatus status = room.isStarted() ? RoomStatus.PLAYING : RoomStatus.WAITING;
+        Integer maxPlayers = room.getMaxPlayers() != null ? room.getMaxPlayers()
+                : (entity != null ? entity.getMaxPlayers() : null);
+
+        RoomSettings settings = room.getSettings();
+        boolean hasPassword = settings != null ? settings.isHasPassword()
+                : entity != null && entity.getPassword() != null && !entity.getPassword().isEmpty();
+
+        return LobbyRoomDTO.builder()
+                .roomCode(room.getRoomCode())
+                .status(status)
+                .currentPlayers(room.getPlayers().size() - spectators)
+                .spectators(spectators)
+                .maxPlayers(maxPlayers != null ? maxPlayers : 0)
+                .hasPassword(hasPassword)
+                // 标签创建后不会变，只取一次
+                .tagIds(previous != null ? previous.getTagIds()
+                        : settings != null ? settings.getQuestionTagIds() : parseTagIds(entity))
+                .seq(previous != null ? previous.getSeq() : seqGenerator.incrementAndGet())
+                .build();
+    }
+
+    private List<Long> parseTagIds(RoomEntity entity) {
+        if (entity == null || entity.getQuestionTagIdsJson() == null || entity.getQuestionTagIdsJson().isEmpty()) {
+            return Collections.emptyList();
+        }
+        try {
+            return List.copyOf(objectMapper.readValue(entity.getQuestionTagIdsJson(), new TypeReference<List<Long>>() {}));
+        } catch (Exception e) {
+            log.error("解析房间 {} 的标签失败", entity.getRoomCode(), e);
+            return Collections.emptyList();
+        }
+    }
+
+    private void publish(LobbyEventDTO event) {
+        try {
+            messagingTemplate.convertAndSend(LOBBY_TOPIC, event);
+        } catch (Exception e) {
+            log.error("❌ 推送大厅变化失败, roomCode={}: {}", event.getRoomCode(), e.getMessage());
+        }
+    }
+
+    /**
+     * 大厅筛选条件（为 null 的条件不生效）
+     */
+    @Data
+    @Builder
+    public static class Filter {
+        private RoomStatus status;
+        private Boolean joinable;      // true: 等待中且未满
+        private Boolean hasPassword;
+        private Long tagId;
+        private String codePrefix;
+
+        boolean matches(LobbyRoomDTO room) {
+            if (status != null && room.getStatus() != status) {
+                return false;
+            }
+            if (Boolean.TRUE.equals(joinable)
+                    && (room.getStatus() != RoomStatus.WAITING || room.getCurrentPlayers() >= room.getMaxPlayers())) {
+                return false;
+            }
+            if (hasPassword != null && !hasPassword.equals(room.getHasPassword())) {
+                return false;
+            }
+            if (tagId != null && !room.getTagIds().contains(tagId)) {
+                return false;
+            }
+            return codePrefix == null || codePrefix.isEmpty()
+                    || room.getRoomCode().toUpperCase().startsWith(codePrefix.toUpperCase());
+        }
+    }
+}
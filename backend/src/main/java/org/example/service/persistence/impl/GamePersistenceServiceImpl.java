@@ -16,11 +16,19 @@ import org.example.pojo.GameRoom;
 import org.example.entity.QuestionOption;
 import org.example.repository.*;
 import org.example.service.cache.RoomCache;
+import org.example.service.history.GameHistoryService;
+import org.example.service.history.GameResultCache;
+import org.example.service.history.QuestionDetailsCodec;
+import org.example.service.leaderboard.GlobalLeaderboardService;
 import org.example.service.leaderboard.LeaderboardService;
 import org.example.service.persistence.GamePersistenceService;
+import org.example.service.stats.PlayerStatsService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -36,6 +44,11 @@ public class GamePersistenceServiceImpl implements GamePersistenceService {
     private final GameRepository gameRepository;
     private final GameResultRepository gameResultRepository;
     private final LeaderboardService leaderboardService;
+    private final GlobalLeaderboardService globalLeaderboardService;
+    private final GameHistoryService gameHistoryService;
+    private final GameResultCache gameResultCache;
+    private final PlayerStatsService playerStatsService;
+    private final QuestionDetailsCodec questionDetailsCodec;
     private final ObjectMapper objectMapper;
     private final ChoiceQuestionConfigRepository choiceConfigRepository;
     private final BidQuestionConfigRepository bidConfigRepository;
@@ -57,7 +70,8 @@ public class GamePersistenceServiceImpl implements GamePersistenceService {
             List<QuestionDetailDTO> questionDetails = buildQuestionDetails(gameRoom);
 
             String leaderboardJson = objectMapper.writeValueAsString(leaderboard);
-            String questionDetailsJson = objectMapper.writeValueAsString(questionDetails);
+            // 🔥 题目详情用紧凑格式存储（玩家字典 + 每题独立压缩）
+            byte[] questionDetailsBlob = questionDetailsCodec.encode(questionDetails);
 
             GameResultEntity entity = GameResultEntity.builder()
                     .game(game)
@@ -65,12 +79,33 @@ public class GamePersistenceServiceImpl implements GamePersistenceService {
                     .questionCount(gameRoom.getQuestions().size())
                     .playerCount(gameRoom.getPlayers().size())
                     .leaderboardJson(leaderboardJson)
-                    .questionDetailsJson(questionDetailsJson)
+                    .questionDetailsBlob(questionDetailsBlob)
                     .build();
 
             gameResultRepository.save(entity);
+
+            // 🔥 写入玩家战绩索引（个人历史不再扫描结果表）
+            gameHistoryService.indexGameResult(entity, leaderboard);
+            // 房间号可能被复用，清掉旧的 roomCode → gameId 映射
+            gameResultCache.evictRoom(roomCode);
             log.info("✅ 游戏结果已保存: roomCode={}, gameId={}", roomCode, gameRoom.getGameId());
 
+            // 🔥 计入全局 / 赛季排行榜（测试游戏不计）
+            if (!Boolean.TRUE.equals(game.getIsTest())) {
+                // Redis 不参与事务，提交后再写，回滚的游戏不会被计入
+                Long gameId = game.getId();
+                LocalDateTime endTime = game.getEndTime();
+                afterCommit(() -> globalLeaderboardService.recordGame(gameId, endTime, leaderboard));
+                // 🔥 累加玩家统计，个人主页只查聚合表（独立事务，失败不影响已保存的结果，重建可补齐）
+                afterCommit(() -> {
+                    try {
+                        playerStatsService.recordGame(gameRoom, leaderboard);
+                    } catch (Exception e) {
+                        log.error("❌ 更新玩家统计失败: roomCode={}", roomCode, e);
+                    }
+                });
+            }
+
         } catch (Exception e) {
             log.error("❌ 保存游戏结果失败: roomCode={}", roomCode, e);
             throw new RuntimeException("保存游戏结果失败", e);
@@ -79,6 +114,19 @@ public class GamePersistenceServiceImpl implements GamePersistenceService {
 
     // ==================== 私有方法 ====================
 
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
     private List<QuestionDetailDTO> buildQuestionDetails(GameRoom gameRoom) {
         List<QuestionDetailDTO> details = new ArrayList<>();
 
@@ -126,6 +174,8 @@ public class GamePersistenceServiceImpl implements GamePersistenceService {
 
             details.add(QuestionDetailDTO.builder()
                     .questionIndex(i)
+                    .questionId(question.getId())
+                    .strategyId(question.getStrategyId())
                     .questionText(question.getText())
                     .optionText(optionText)
                     .questionType(question.getType())
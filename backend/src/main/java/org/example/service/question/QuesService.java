@@ -6,6 +6,8 @@ import org.example.entity.QuestionEntity;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 public interface QuesService {
@@ -32,7 +34,11 @@ public interface QuesService {
     @Transactional
     void batchImport(List<QuestionDTO> questionDTOs);
 
-    List<QuestionDTO> exportAll();
+    /**
+     * 流式导出所有题目（JSON 数组，格式与导入一致）
+     * @return 导出的题目数
+     */
+    long exportAll(OutputStream out) throws IOException;
 
     Page<QuestionEntity> findAll(Pageable pageable);
 
@@ -0,0 +1,188 @@
+package org.example.service.question;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.QuestionDTO;
+import org.example.entity.QuestionType;
+import org.example.exception.BusinessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 题目批量写入（JDBC 批量插入）
+ *
+ * 每张表一条批量语句：先插入 questions 取回自增 ID，再分别批量插入选择题配置、竞价题配置和元数据。
+ * 不经过 JPA，一批题目只需要 4 次数据库往返（配合 rewriteBatchedStatements）。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class QuestionBatchWriter {
+
+    private static final String INSERT_QUESTION =
+            "INSERT INTO questions (type, text, calculate_rule, strategy_id, min_players, max_players, " +
+            "default_choice, has_metadata, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_CHOICE =
+            "INSERT INTO choice_question_config (question_id, options_json, created_at, updated_at) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_BID =
+            "INSERT INTO bid_question_config (question_id, min_value, max_value, step, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_METADATA =
+            "INSERT INTO question_metadata (question_id, sequence_group_id, sequence_order, total_sequence_count, " +
+            "is_repeatable, repeat_times, repeat_interval, repeat_group_id, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 插入一批题目（含配置和元数据）
+     * @return 新题目 ID，顺序与入参一致
+     */
+    @Transactional
+    public List<Long> insertBatch(List<QuestionDTO> questions) {
+        if (questions.isEmpty()) {
+            return List.of();
+        }
+        for (QuestionDTO dto : questions) {
+            if (dto.getType() == null) {
+                throw new BusinessException("题目类型不能为空");
+            }
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        // 1. 题目主表，取回自增 ID
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_QUESTION, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        QuestionDTO dto = questions.get(i);
+                        ps.setString(1, dto.getType().name());
+                        ps.setString(2, dto.getText());
+                        ps.setString(3, dto.getCalculateRule());
+                        ps.setString(4, dto.getStrategyId());
+                        setInteger(ps, 5, dto.getMinPlayers());
+                        setInteger(ps, 6, dto.getMaxPlayers());
+                        ps.setString(7, dto.getDefaultChoice());
+                        ps.setBoolean(8, hasMetadata(dto));
+                        ps.setTimestamp(9, now);
+                        ps.setTimestamp(10, now);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return questions.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != questions.size()) {
+            throw new BusinessException("批量插入题目返回的 ID 数量不一致: " + keys.size() + "/" + questions.size());
+        }
+        List<Long> ids = new ArrayList<>(keys.size());
+        for (Map<String, Object> key : keys) {
+            ids.add(((Number) key.values().iterator().next()).longValue());
+        }
+
+        // 2. 选择题配置
+        List<Object[]> choiceRows = new ArrayList<>();
+        // 3. 竞价题配置
+        List<Object[]> bidRows = new ArrayList<>();
+        // 4. 元数据
+        List<Object[]> metadataRows = new ArrayList<>();
+
+        for (int i = 0; i < questions.size(); i++) {
+            QuestionDTO dto = questions.get(i);
+            Long questionId = ids.get(i);
+
+            if (dto.getType() == QuestionType.CHOICE && dto.getOptions() != null && !dto.getOptions().isEmpty()) {
+                choiceRows.add(new Object[]{questionId, toJson(dto), now, now});
+            }
+            if (dto.getType() == QuestionType.BID && dto.getMin() != null && dto.getMax() != null) {
+                bidRows.add(new Object[]{questionId, dto.getMin(), dto.getMax(), dto.getStep(), now, now});
+            }
+            if (hasMetadata(dto)) {
+                metadataRows.add(new Object[]{questionId, dto.getSequenceGroupId(), dto.getSequenceOrder(),
+                        dto.getTotalSequenceCount(), dto.getIsRepeatable(), dto.getRepeatTimes(),
+                        dto.getRepeatInterval(), dto.getRepeatGroupId(), now, now});
+            }
+        }
+
+        if (!choiceRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_CHOICE, choiceRows);
+        }
+        if (!bidRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_BID, bidRows);
+        }
+        if (!metadataRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_METADATA, metadataRows);
+        }
+
+        log.debug("📥 批量写入 {} 道题目（选择题配置 {}，竞价题配置 {}，元数据 {}）",
+                ids.size(), choiceRows.size(), bidRows.size(), metadataRows.size());
+        return ids;
+    }
+
+    /**
+     * 导入任务的一批：写入题目并推进任务进度，二者在同一事务内
+     * 进度按 expectedCommitted 做条件更新，其他线程 / 节点已经推进过时整批回滚，不会重复导入
+     */
+    @Transactional
+    public List<Long> insertImportBatch(String jobId, long expectedCommitted, List<QuestionDTO> questions) {
+        List<Long> ids = insertBatch(questions);
+        int updated = jdbcTemplate.update(
+                "UPDATE question_import_jobs SET committed_count = ?, updated_at = ? " +
+                "WHERE job_id = ? AND committed_count = ?",
+                expectedCommitted + questions.size(), Timestamp.valueOf(LocalDateTime.now()),
+                jobId, expectedCommitted);
+        if (updated != 1) {
+            throw new BusinessException("导入任务 " + jobId + " 的进度已被其他执行者修改");
+        }
+        return ids;
+    }
+
+    /**
+     * 判断是否有元数据配置
+     */
+    static boolean hasMetadata(QuestionDTO dto) {
+        return dto.getSequenceGroupId() != null
+                || dto.getIsRepeatable() != null
+                || dto.getRepeatTimes() != null;
+    }
+
+    private String toJson(QuestionDTO dto) {
+        try {
+            return objectMapper.writeValueAsString(dto.getOptions());
+        } catch (JsonProcessingException e) {
+            log.error("序列化选项失败: {}", e.getMessage());
+            throw new RuntimeException("保存选择题配置失败", e);
+        }
+    }
+
+    private static void setInteger(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value != null) {
+            ps.setInt(index, value);
+        } else {
+            ps.setNull(index, Types.INTEGER);
+        }
+    }
+}
@@ -0,0 +1,415 @@
+package org.example.service.question;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.QuestionDTO;
+import org.example.dto.TagDTO;
+import org.example.entity.QuestionEntity;
+import org.example.entity.QuestionMetadata;
+import org.example.entity.QuestionTagRelationEntity;
+import org.example.repository.QuestionMetadataRepository;
+import org.example.repository.QuestionRepository;
+import org.example.repository.QuestionTagRelationRepository;
+import org.example.repository.QuestionTagRepository;
+import org.example.utils.DTOConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 题库快照（只读）
+ *
+ * 题目、配置、元数据、标签和对局用的 QuestionDTO 一次性加载成不可变快照，开局选题不再查库。
+ * QuestionDTO 来自 DTOConverter 的共享缓存，重新加载时未修改的题目直接复用原实例。
+ * 题目或标签被修改后调用 publishChange()：事务提交后递增 Redis 中的版本号并重新加载，
+ * 其他节点定时比对版本号，发现变化后各自重新加载。新快照构建完成后整体替换，读者不会看到半成品。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class QuestionCatalog {
+
+    private static final String VERSION_KEY = "question:catalog:version";
+
+    private final QuestionRepository questionRepository;
+    private final QuestionMetadataRepository metadataRepository;
+    private final QuestionTagRelationRepository tagRelationRepository;
+    private final QuestionTagRepository tagRepository;
+    private final DTOConverter dtoConverter;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final TaskScheduler taskScheduler;
+
+    @Value("${question.catalog.version-check-seconds:5}")
+    private long versionCheckSeconds;
+
+    private volatile Snapshot snapshot;
+    private final Object loadLock = new Object();
+
+    @PostConstruct
+    public void start() {
+        // 首次执行时预热，之后定时检查其他节点是否修改过题库
+        taskScheduler.scheduleWithFixedDelay(this::checkVersion,
+                Instant.now().plusSeconds(2),
+                Duration.ofSeconds(versionCheckSeconds));
+    }
+
+    /**
+     * 当前快照（首次调用时同步加载）
+     */
+    public Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (loadLock) {
+            if (snapshot == null) {
+                snapshot = load(readRemoteVersion(0L));
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * 按题目 ID 解析共享 DTO（顺序与入参一致，可重复）
+     * 用于从 Redis 恢复房间：优先取快照，快照里没有的（刚导入、尚未刷新）再单独查库
+     * 对局中途被删除的题目返回只带 ID 的占位 DTO，保证历史记录等按索引遍历时不出错
+     */
+    public List<QuestionDTO> resolveQuestions(List<Long> questionIds) {
+        Snapshot current = current();
+        List<QuestionDTO> resolved = new ArrayList<>(questionIds.size());
+        for (Long questionId : questionIds) {
+            CatalogQuestion question = current.findById(questionId);
+            if (question != null) {
+                resolved.add(question.getDto());
+                continue;
+            }
+            QuestionDTO dto = questionRepository.findByIdWithConfigs(questionId)
+                    .map(dtoConverter::toReadOnlyQuestionDTO)
+                    .orElse(null);
+            if (dto == null) {
+                log.warn("⚠️ 题目 {} 已不存在，使用占位题目", questionId);
+                dto = QuestionDTO.builder().id(questionId).text("（题目已删除）").build();
+            }
+            resolved.add(dto);
+        }
+        return resolved;
+    }
+
+    /**
+     * 题目 / 标签数据已修改（在事务中调用时，等事务提交后再生效）
+     * 不确定影响了哪些题目时使用，会清空全部题目 DTO 缓存
+     */
+    public void publishChange() {
+        afterCommit(() -> bumpAndReload(dtoConverter::clearQuestionDTOCache));
+    }
+
+    /**
+     * 只修改了指定题目：只重建这些题目的 DTO，其余直接复用缓存
+     */
+    public void publishChange(Collection<Long> changedQuestionIds) {
+        List<Long> ids = List.copyOf(changedQuestionIds);
+        afterCommit(() -> bumpAndReload(() -> dtoConverter.evictQuestionDTOs(ids)));
+    }
+
+    // ==================== 私有方法 ====================
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void bumpAndReload(Runnable invalidate) {
+        long version;
+        try {
+            Long next = stringRedisTemplate.opsForValue().increment(VERSION_KEY);
+            version = next != null ? next : localVersion() + 1;
+        } catch (Exception e) {
+            log.warn("⚠️ 递增题库版本号失败，只刷新本节点: {}", e.getMessage());
+            version = localVersion() + 1;
+        }
+        reload(version, invalidate);
+    }
+
+    private void checkVersion() {
+        try {
+            if (snapshot == null) {
+                current();
+                return;
+            }
+            long remote = readRemoteVersion(snapshot.getVersion());
+            if (remote != snapshot.getVersion()) {
+                // 不知道其他节点改了哪些题目，题目 DTO 缓存全部作废
+                log.info("🔄 题库版本变化 {} -> {}，重新加载", snapshot.getVersion(), remote);
+                reload(remote, dtoConverter::clearQuestionDTOCache);
+            }
+        } catch (Exception e) {
+            log.error("❌ 检查题库版本失败", e);
+        }
+    }
+
+    /**
+     * 作废缓存和加载在同一把锁内完成：避免并发的旧加载把刚作废的 DTO 又放回缓存
+     */
+    private void reload(long version, Runnable invalidate) {
+        synchronized (loadLock) {
+            invalidate.run();
+            // 加载在锁内串行，后加载的内容一定更新；直接采用本次的版本号，
+            // 即使比本地小（Redis 被清空后重新计数）也接受，之后与 Redis 比对相等即收敛
+            snapshot = load(version);
+        }
+    }
+
+    /**
+     * 读取 Redis 中的版本号；键不存在（Redis 清空、被误删）时用 fallback 补写，
+     * 各节点以先写入的为准，其余节点下次比对不相等时采用它
+     */
+    private long readRemoteVersion(long fallback) {
+        try {
+            String value = stringRedisTemplate.opsForValue().get(VERSION_KEY);
+            if (value == null) {
+                if (Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                        .setIfAbsent(VERSION_KEY, String.valueOf(fallback)))) {
+                    log.info("🔢 题库版本号不存在，已按本节点版本 {} 补写", fallback);
+                    return fallback;
+                }
+                value = stringRedisTemplate.opsForValue().get(VERSION_KEY);
+            }
+            return value != null ? Long.parseLong(value) : fallback;
+        } catch (Exception e) {
+            log.warn("⚠️ 读取题库版本号失败: {}", e.getMessage());
+            return fallback;
+        }
+    }
+
+    private long localVersion() {
+        Snapshot current = snapshot;
+        return current != null ? current.getVersion() : 0L;
+    }
+
+    private Snapshot load(long version) {
+        long start = System.currentTimeMillis();
+
+        List<QuestionEntity> entities = new ArrayList<>(questionRepository.findAllWithConfigs());
+        entities.sort(Comparator.comparing(QuestionEntity::getId));
+
+        Map<Long, QuestionMetadata> metadataMap = metadataRepository.findAll().stream()
+                .collect(Collectors.toMap(QuestionMetadata::getQuestionId, m -> m, (a, b) -> a));
+
+        List<TagDTO> tags = tagRepository.findAll().stream()
+                .map(tag -> TagDTO.builder()
+                        .id(tag.getId())
+                        .name(tag.getName())
+                        .category(tag.getCategory())
+                        .color(tag.getColor())
+                        .build())
+                .sorted(Comparator.comparing(TagDTO::getId))
+                .toList();
+
+        Map<Long, Set<Long>> tagMap = new HashMap<>();
+        for (QuestionTagRelationEntity relation : tagRelationRepository.findAll()) {
+            tagMap.computeIfAbsent(relation.getQuestionId(), k -> new HashSet<>()).add(relation.getTagId());
+        }
+
+        List<CatalogQuestion> questions = new ArrayList<>(entities.size());
+        for (QuestionEntity entity : entities) {
+            questions.add(new CatalogQuestion(
+                    questions.size(),
+                    entity,
+                    metadataMap.get(entity.getId()),
+                    tagMap.getOrDefault(entity.getId(), Collections.emptySet()),
+                    dtoConverter.toSharedQuestionDTO(entity)));
+        }
+
+        Snapshot loaded = new Snapshot(version, questions, tags);
+        log.info("📚 题库快照已加载: 版本 {}, {} 道题, 耗时 {}ms",
+                version, questions.size(), System.currentTimeMillis() - start);
+        return loaded;
+    }
+
+    // ==================== 快照结构 ====================
+
+    /**
+     * 不可变题库快照，题目按 ID 排序，ordinal 即下标
+     *
+     * 预建两类位图索引（位下标 = ordinal）：
+     * - 人数索引：playerCountBits[n] 为适合 n 人的题目；n 超过所有有限边界后结果不再变化，统一用最后一个桶
+     * - 标签索引：tagBits[tagId] 为带该标签的题目
+     * 选题筛选只是几次位图运算，与题目数量基本无关
+     * 同时保存全部标签（按 ID、按分类），标签服务的读操作都走这里
+     */
+    public static final class Snapshot {
+        @Getter
+        private final long version;
+        @Getter
+        private final List<CatalogQuestion> questions;
+        private final Map<Long, CatalogQuestion> byId;
+        private final BitSet[] playerCountBits;
+        private final Map<Long, BitSet> tagBits;
+        @Getter
+        private final QuestionSampler sampler;
+        @Getter
+        private final List<TagDTO> tags;
+        private final Map<Long, TagDTO> tagsById;
+        @Getter
+        private final Map<String, List<TagDTO>> tagsByCategory;
+
+        Snapshot(long version, List<CatalogQuestion> questions, List<TagDTO> allTags) {
+            this.version = version;
+            this.questions = Collections.unmodifiableList(questions);
+
+            Map<Long, CatalogQuestion> index = new HashMap<>();
+            questions.forEach(q -> index.put(q.getId(), q));
+            this.byId = Collections.unmodifiableMap(index);
+
+            // 人数边界之外的取值结果相同，只需建到最大有限边界 + 1
+            int limit = 0;
+            for (CatalogQuestion q : questions) {
+                limit = Math.max(limit, q.getMinPlayers());
+                if (q.getMaxPlayers() != Integer.MAX_VALUE) {
+                    limit = Math.max(limit, q.getMaxPlayers());
+                }
+            }
+            limit++;
+            this.playerCountBits = new BitSet[limit + 1];
+            for (int n = 0; n <= limit; n++) {
+                playerCountBits[n] = new BitSet(questions.size());
+            }
+            Map<Long, BitSet> tags = new HashMap<>();
+            for (CatalogQuestion q : questions) {
+                int from = Math.max(0, q.getMinPlayers());
+                int to = Math.min(limit, q.getMaxPlayers());
+                for (int n = from; n <= to; n++) {
+                    playerCountBits[n].set(q.getOrdinal());
+                }
+                for (Long tagId : q.getTagIds()) {
+                    tags.computeIfAbsent(tagId, k -> new BitSet(questions.size())).set(q.getOrdinal());
+                }
+            }
+            this.tagBits = tags;
+            this.sampler = new QuestionSampler(this.questions);
+
+            this.tags = List.copyOf(allTags);
+            Map<Long, TagDTO> byTagId = new HashMap<>();
+            Map<String, List<TagDTO>> byCategory = new HashMap<>();
+            for (TagDTO tag : allTags) {
+                byTagId.put(tag.getId(), tag);
+                byCategory.computeIfAbsent(tag.getCategory(), k -> new ArrayList<>()).add(tag);
+            }
+            this.tagsById = Collections.unmodifiableMap(byTagId);
+            byCategory.replaceAll((category, list) -> Collections.unmodifiableList(list));
+            this.tagsByCategory = Collections.unmodifiableMap(byCategory);
+        }
+
+        /**
+         * 题目的标签（按标签 ID 排序；题目不在快照中时为空）
+         */
+        public List<TagDTO> tagsOf(Long questionId) {
+            CatalogQuestion question = byId.get(questionId);
+            if (question == null || question.getTagIds().isEmpty()) {
+                return Collections.emptyList();
+            }
+            return question.getTagIds().stream()
+                    .sorted()
+                    .map(tagsById::get)
+                    .filter(Objects::nonNull)
+                    .toList();
+        }
+
+        public CatalogQuestion findById(Long questionId) {
+            return byId.get(questionId);
+        }
+
+        public CatalogQuestion get(int ordinal) {
+            return questions.get(ordinal);
+        }
+
+        /**
+         * 适合该人数、且带有任一指定标签的题目（tagIds 为空时不按标签筛选）
+         * @return 新的位图，调用方可以随意修改
+         */
+        public BitSet filter(int playerCount, Collection<Long> tagIds) {
+            if (playerCount < 0) {
+                return new BitSet();
+            }
+            BitSet result = (BitSet) playerCountBits[Math.min(playerCount, playerCountBits.length - 1)].clone();
+            if (tagIds != null && !tagIds.isEmpty()) {
+                BitSet tagged = new BitSet(questions.size());
+                for (Long tagId : tagIds) {
+                    BitSet bits = tagBits.get(tagId);
+                    if (bits != null) {
+                        tagged.or(bits);
+                    }
+                }
+                result.and(tagged);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 快照中的一道题：选题需要的字段 + 预先构建好的 QuestionDTO（只读，不要修改）
+     */
+    @Getter
+    public static final class CatalogQuestion {
+        private final int ordinal;
+        private final Long id;
+        private final String strategyId;
+        private final int minPlayers;
+        private final int maxPlayers;
+        private final String sequenceGroupId;
+        private final Integer sequenceOrder;
+        private final Integer totalSequenceCount;
+        private final boolean repeatable;
+        private final int repeatTimes;
+        private final Set<Long> tagIds;
+        private final QuestionDTO dto;
+
+        CatalogQuestion(int ordinal, QuestionEntity entity, QuestionMetadata metadata,
+                        Set<Long> tagIds, QuestionDTO dto) {
+            this.ordinal = ordinal;
+            this.id = entity.getId();
+            this.strategyId = entity.getStrategyId();
+            this.minPlayers = entity.getMinPlayers() != null ? entity.getMinPlayers() : 0;
+            this.maxPlayers = entity.getMaxPlayers() != null ? entity.getMaxPlayers() : Integer.MAX_VALUE;
+            this.sequenceGroupId = metadata != null ? metadata.getSequenceGroupId() : null;
+            this.sequenceOrder = metadata != null ? metadata.getSequenceOrder() : null;
+            this.totalSequenceCount = metadata != null ? metadata.getTotalSequenceCount() : null;
+            this.repeatable = metadata != null && Boolean.TRUE.equals(metadata.getIsRepeatable());
+            this.repeatTimes = metadata != null && metadata.getRepeatTimes() != null ? metadata.getRepeatTimes() : 0;
+            this.tagIds = Set.copyOf(tagIds);
+            this.dto = dto;
+        }
+
+        public boolean suitsPlayerCount(int playerCount) {
+            return minPlayers <= playerCount && maxPlayers >= playerCount;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package org.example.service.question;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.QuestionDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 预生成题组池
+ *
+ * 按（题目数, 人数, 标签集合）为最近开过局的组合在后台预先抽好几套题，开局时直接取一套，不在房间锁内选题。
+ * 每套题记录生成时的题库快照，题库变化后旧题组在取用或定时清理时丢弃，再按新快照补充。
+ * 按快照实例而不是版本号比对：Redis 被清空后版本号会重新计数，同一个号可能对应不同内容。
+ * 没有可用题组（首次出现的组合、被取空、题库刚变化）时返回 null，由调用方同步选题。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class QuestionDeckPool {
+
+    private final QuestionSelectorService questionSelector;
+    private final QuestionCatalog questionCatalog;
+    private final TaskScheduler taskScheduler;
+
+    @Value("${question.deck.pool-size:3}")
+    private int poolSize;
+
+    @Value("${question.deck.max-combinations:200}")
+    private int maxCombinations;
+
+    @Value("${question.deck.idle-minutes:10}")
+    private long idleMinutes;
+
+    @Value("${question.deck.sweep-seconds:10}")
+    private long sweepSeconds;
+
+    private final Map<Key, Pool> pools = new ConcurrentHashMap<>();
+
+    private record Key(int questionCount, int playerCount, List<Long> tagIds) {
+
+        /**
+         * 标签去重排序，[1,2] 与 [2,1] 视为同一组合
+         */
+        static Key of(int questionCount, int playerCount, Collection<Long> tagIds) {
+            List<Long> normalized = tagIds == null
+                    ? List.of()
+                    : tagIds.stream().distinct().sorted().toList();
+            return new Key(questionCount, playerCount, normalized);
+        }
+    }
+
+    private record Deck(QuestionCatalog.Snapshot snapshot, List<QuestionDTO> questions) {
+    }
+
+    private static final class Pool {
+        final Queue<Deck> decks = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean refilling = new AtomicBoolean(false);
+        volatile long lastUsedAt = System.currentTimeMillis();
+    }
+
+    @PostConstruct
+    public void start() {
+        taskScheduler.scheduleWithFixedDelay(this::sweep,
+                Instant.now().plusSeconds(sweepSeconds),
+                Duration.ofSeconds(sweepSeconds));
+    }
+
+    /**
+     * 取一套预生成的题目
+     * @return 当前题库版本下的题组；没有时返回 null（调用方同步选题），同时在后台补充
+     */
+    public List<QuestionDTO> take(int questionCount, int playerCount, List<Long> tagIds) {
+        Key key = Key.of(questionCount, playerCount, tagIds);
+        Pool pool = pools.get(key);
+        if (pool == null) {
+            // 组合数有上限，防止随意的标签组合把内存占满
+            if (pools.size() >= maxCombinations) {
+                return null;
+            }
+            pool = pools.computeIfAbsent(key, k -> new Pool());
+        }
+        pool.lastUsedAt = System.currentTimeMillis();
+
+        QuestionCatalog.Snapshot snapshot = questionCatalog.current();
+        List<QuestionDTO> questions = null;
+        Deck deck;
+        while ((deck = pool.decks.poll()) != null) {
+            if (deck.snapshot() == snapshot) {
+                questions = deck.questions();
+                break;
+            }
+        }
+
+        scheduleRefill(key, pool);
+        return questions;
+    }
+
+    private void scheduleRefill(Key key, Pool pool) {
+        if (pool.decks.size() < poolSize && pool.refilling.compareAndSet(false, true)) {
+            taskScheduler.schedule(() -> refill(key, pool), Instant.now());
+        }
+    }
+
+    private void refill(Key key, Pool pool) {
+        try {
+            // 先取快照再抽题：抽题时快照只可能更新，题组最多被多丢弃一次，不会把旧题当成新快照的
+            QuestionCatalog.Snapshot snapshot = questionCatalog.current();
+            pool.decks.removeIf(d -> d.snapshot() != snapshot);
+            while (pool.decks.size() < poolSize && pools.get(key) == pool) {
+                List<QuestionDTO> questions = questionSelector.selectQuestions(
+                        key.questionCount(), key.playerCount(), key.tagIds());
+                pool.decks.offer(new Deck(snapshot, questions));
+            }
+        } catch (Exception e) {
+            // 没有合适的题目、题库初始化中等情况：开局时同步选题会给出具体错误
+            log.debug("预生成题组失败: {}, {}", key, e.getMessage());
+        } finally {
+            pool.refilling.set(false);
+        }
+    }
+
+    /**
+     * 定时清理：移除长时间没人用的组合，其余的丢弃过期题组并补满
+     */
+    private void sweep() {
+        long idleBefore = System.currentTimeMillis() - Duration.ofMinutes(idleMinutes).toMillis();
+        pools.entrySet().removeIf(e -> e.getValue().lastUsedAt < idleBefore);
+
+        QuestionCatalog.Snapshot snapshot = questionCatalog.current();
+        pools.forEach((key, pool) -> {
+            pool.decks.removeIf(d -> d.snapshot() != snapshot);
+            scheduleRefill(key, pool);
+        });
+    }
+}
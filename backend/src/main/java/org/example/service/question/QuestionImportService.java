@@ -0,0 +1,40 @@
+package org.example.service.question;
+
+import org.example.dto.QuestionImportJobDTO;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 题目流式批量导入
+ * 文件格式与 /api/admin/questions/export 相同（QuestionDTO 数组），也接受逐行的 QuestionDTO（NDJSON）
+ */
+public interface QuestionImportService {
+
+    /**
+     * 只校验不导入（流式解析，内存占用与文件大小无关）
+     * @return total / valid / invalid / errors（最多列出前若干条）
+     */
+    Map<String, Object> validate(InputStream input);
+
+    /**
+     * 保存上传内容并创建导入任务，校验和导入在后台执行
+     */
+    QuestionImportJobDTO createJob(InputStream input);
+
+    /**
+     * 查询任务进度
+     */
+    QuestionImportJobDTO getJob(String jobId);
+
+    /**
+     * 最近的导入任务
+     */
+    List<QuestionImportJobDTO> listJobs();
+
+    /**
+     * 从上次提交的位置继续执行失败 / 中断的任务
+     */
+    QuestionImportJobDTO resumeJob(String jobId);
+}
@@ -0,0 +1,236 @@
+package org.example.service.question;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * 选题引擎（每个题库版本构建一次，随快照一起替换）
+ *
+ * 构建时完成：序列题分组、按 sequenceOrder 排序、完整性校验，普通题 / 重复题位图。
+ * 每局只做：按筛选位图确定可用的序列组和重复题，放入按长度分桶的结构，
+ * 然后按原有规则（先等概率选类型，再在能放下的候选中等概率抽取，不放回）抽题。
+ * 随机数由调用方传入，固定种子时结果可复现。
+ */
+@Slf4j
+final class QuestionSampler {
+
+    private final List<QuestionCatalog.CatalogQuestion> questions;
+    // 普通题（包括所属序列在题库中本身就不完整的题）
+    private final BitSet normalBits;
+    // 重复题
+    private final BitSet repeatableBits;
+    // 完整的序列组，成员 ordinal 已按 sequenceOrder 排序
+    private final int[][] sequences;
+
+    QuestionSampler(List<QuestionCatalog.CatalogQuestion> questions) {
+        this.questions = questions;
+        this.normalBits = new BitSet(questions.size());
+        this.repeatableBits = new BitSet(questions.size());
+
+        Map<String, List<QuestionCatalog.CatalogQuestion>> groups = new HashMap<>();
+        for (QuestionCatalog.CatalogQuestion q : questions) {
+            if (q.getSequenceGroupId() != null) {
+                groups.computeIfAbsent(q.getSequenceGroupId(), k -> new ArrayList<>()).add(q);
+            } else if (q.isRepeatable()) {
+                repeatableBits.set(q.getOrdinal());
+            } else {
+                normalBits.set(q.getOrdinal());
+            }
+        }
+
+        List<int[]> valid = new ArrayList<>();
+        for (Map.Entry<String, List<QuestionCatalog.CatalogQuestion>> entry : new TreeMap<>(groups).entrySet()) {
+            List<QuestionCatalog.CatalogQuestion> members = entry.getValue();
+            if (isCompleteSequence(entry.getKey(), members)) {
+                valid.add(members.stream()
+                        .sorted(Comparator.comparing(QuestionCatalog.CatalogQuestion::getSequenceOrder))
+                        .mapToInt(QuestionCatalog.CatalogQuestion::getOrdinal)
+                        .toArray());
+            } else {
+                members.forEach(q -> normalBits.set(q.getOrdinal()));
+            }
+        }
+        this.sequences = valid.toArray(new int[0][]);
+    }
+
+    /**
+     * 从筛选后的题目中抽取 totalCount 道（重复题按轮次展开，序列题整组连续出现）
+     * @param suitable 本局可用题目的位图（不会被修改）
+     */
+    List<QuestionCatalog.CatalogQuestion> sample(BitSet suitable, int totalCount, Random random) {
+        // 1. 序列组必须整组可用，否则其中可用的题按普通题处理（与原先逐局校验的结果一致）
+        BitSet normalCandidates = (BitSet) suitable.clone();
+        normalCandidates.and(normalBits);
+        SizeBuckets sequenceBuckets = new SizeBuckets();
+        for (int i = 0; i < sequences.length; i++) {
+            boolean complete = true;
+            for (int ordinal : sequences[i]) {
+                if (!suitable.get(ordinal)) {
+                    complete = false;
+                    break;
+                }
+            }
+            if (complete) {
+                sequenceBuckets.add(sequences[i].length, i);
+            } else {
+                for (int ordinal : sequences[i]) {
+                    if (suitable.get(ordinal)) {
+                        normalCandidates.set(ordinal);
+                    }
+                }
+            }
+        }
+
+        // 2. 重复题按轮次数分桶
+        SizeBuckets repeatableBuckets = new SizeBuckets();
+        BitSet repeatables = (BitSet) suitable.clone();
+        repeatables.and(repeatableBits);
+        for (int ordinal = repeatables.nextSetBit(0); ordinal >= 0; ordinal = repeatables.nextSetBit(ordinal + 1)) {
+            repeatableBuckets.add(questions.get(ordinal).getRepeatTimes(), ordinal);
+        }
+
+        // 3. 普通题：数组 + 部分 Fisher-Yates，不放回抽取
+        int[] normals = normalCandidates.stream().toArray();
+        int normalCount = normals.length;
+
+        List<QuestionCatalog.CatalogQuestion> selected = new ArrayList<>(totalCount);
+        PoolOption[] options = new PoolOption[3];
+        while (selected.size() < totalCount) {
+            int remaining = totalCount - selected.size();
+
+            int optionCount = 0;
+            if (sequenceBuckets.countUpTo(remaining) > 0) {
+                options[optionCount++] = PoolOption.SEQUENCE;
+            }
+            // 重复题要能放下全部轮次
+            if (repeatableBuckets.countUpTo(remaining) > 0) {
+                options[optionCount++] = PoolOption.REPEATABLE;
+            }
+            if (normalCount > 0) {
+                options[optionCount++] = PoolOption.NORMAL;
+            }
+
+            if (optionCount == 0) {
+                log.warn("题目不足，实际选择了 {} 题，期望 {} 题", selected.size(), totalCount);
+                break;
+            }
+
+            switch (options[random.nextInt(optionCount)]) {
+                case SEQUENCE -> {
+                    for (int ordinal : sequences[sequenceBuckets.take(remaining, random)]) {
+                        selected.add(questions.get(ordinal));
+                    }
+                }
+                case REPEATABLE -> {
+                    QuestionCatalog.CatalogQuestion question = questions.get(repeatableBuckets.take(remaining, random));
+                    for (int i = 0; i < question.getRepeatTimes(); i++) {
+                        selected.add(question);
+                    }
+                    log.info("选中重复题: {} (重复{}次)", question.getStrategyId(), question.getRepeatTimes());
+                }
+                case NORMAL -> {
+                    int index = random.nextInt(normalCount);
+                    selected.add(questions.get(normals[index]));
+                    normals[index] = normals[--normalCount];
+                }
+            }
+        }
+        return selected;
+    }
+
+    // ==================== 私有方法 ====================
+
+    /**
+     * 序列必须题数等于 totalSequenceCount，且 sequenceOrder 从 1 开始连续
+     */
+    private static boolean isCompleteSequence(String groupId, List<QuestionCatalog.CatalogQuestion> members) {
+        Integer expectedTotal = members.get(0).getTotalSequenceCount();
+        if (expectedTotal == null) {
+            log.warn("⚠️ 序列 {} 缺少 totalSequenceCount，按普通题处理", groupId);
+            return false;
+        }
+        if (members.size() != expectedTotal) {
+            log.warn("⚠️ 序列 {} 不完整：期望{}题，实际{}题，按普通题处理", groupId, expectedTotal, members.size());
+            return false;
+        }
+        List<Integer> orders = members.stream()
+                .map(QuestionCatalog.CatalogQuestion::getSequenceOrder)
+                .sorted(Comparator.nullsLast(Comparator.naturalOrder()))
+                .toList();
+        for (int i = 0; i < orders.size(); i++) {
+            if (orders.get(i) == null || orders.get(i) != i + 1) {
+                log.warn("⚠️ 序列 {} 的 sequenceOrder 不连续：{}，按普通题处理", groupId, orders);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private enum PoolOption {
+        SEQUENCE,
+        REPEATABLE,
+        NORMAL
+    }
+
+    /**
+     * 按长度分桶的候选集合：统计 / 抽取长度不超过 max 的候选都只需遍历桶（桶数 = 不同长度的个数）
+     * 抽取时在所有满足条件的候选中等概率选择（即按桶大小加权选桶），选中后从桶中移除
+     */
+    private static final class SizeBuckets {
+        private final TreeMap<Integer, IntBag> buckets = new TreeMap<>();
+
+        void add(int size, int value) {
+            buckets.computeIfAbsent(size, k -> new IntBag()).add(value);
+        }
+
+        int countUpTo(int max) {
+            int count = 0;
+            for (IntBag bag : buckets.headMap(max, true).values()) {
+                count += bag.size;
+            }
+            return count;
+        }
+
+        int take(int max, Random random) {
+            int target = random.nextInt(countUpTo(max));
+            for (IntBag bag : buckets.headMap(max, true).values()) {
+                if (target < bag.size) {
+                    return bag.removeAt(target);
+                }
+                target -= bag.size;
+            }
+            throw new IllegalStateException("no candidate within " + max);
+        }
+    }
+
+    /**
+     * 无序 int 集合，删除时用末尾元素填补
+     */
+    private static final class IntBag {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                int[] grown = new int[size * 2];
+                System.arraycopy(values, 0, grown, 0, size);
+                values = grown;
+            }
+            values[size++] = value;
+        }
+
+        int removeAt(int index) {
+            int value = values[index];
+            values[index] = values[--size];
+            return value;
+        }
+    }
+}
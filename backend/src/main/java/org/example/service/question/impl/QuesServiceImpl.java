@@ -1,5 +1,6 @@
 package org.example.service.question.impl;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -14,13 +15,20 @@ import org.example.repository.ChoiceQuestionConfigRepository;
 import org.example.repository.QuestionMetadataRepository;
 import org.example.repository.QuestionRepository;
 import org.example.service.question.QuesService;
+import org.example.service.question.QuestionBatchWriter;
+import org.example.service.question.QuestionCatalog;
 import org.example.service.tag.QuestionTagService;
+import org.example.utils.DTOConverter;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -29,12 +37,17 @@ import java.util.stream.Collectors;
 @Service
 public class QuesServiceImpl implements QuesService {
 
+    private static final int EXPORT_BATCH_SIZE = 500;
+
     private final QuestionRepository questionRepository;
     private final ObjectMapper objectMapper;
     private final ChoiceQuestionConfigRepository choiceConfigRepository;
     private final BidQuestionConfigRepository bidConfigRepository;
     private final QuestionMetadataRepository metadataRepository;
     private final QuestionTagService questionTagService;
+    private final QuestionCatalog questionCatalog;
+    private final DTOConverter dtoConverter;
+    private final QuestionBatchWriter questionBatchWriter;
 
     public QuesServiceImpl(
             QuestionRepository questionRepository,
@@ -42,13 +55,19 @@ public class QuesServiceImpl implements QuesService {
             ChoiceQuestionConfigRepository choiceConfigRepository,
             BidQuestionConfigRepository bidConfigRepository,
             QuestionMetadataRepository metadataRepository,
-            QuestionTagService questionTagService) {
+            QuestionTagService questionTagService,
+            QuestionCatalog questionCatalog,
+            DTOConverter dtoConverter,
+            QuestionBatchWriter questionBatchWriter) {
         this.questionRepository = questionRepository;
         this.objectMapper = objectMapper;
         this.choiceConfigRepository = choiceConfigRepository;
         this.bidConfigRepository = bidConfigRepository;
         this.metadataRepository = metadataRepository;
         this.questionTagService = questionTagService;
+        this.questionCatalog = questionCatalog;
+        this.dtoConverter = dtoConverter;
+        this.questionBatchWriter = questionBatchWriter;
     }
 
     @Override
@@ -59,85 +78,54 @@ public class QuesServiceImpl implements QuesService {
     @Transactional
     @Override
     public void batchImport(List<QuestionDTO> questionDTOs) {
-        for (QuestionDTO dto : questionDTOs) {
-            // 1. 保存基础 Entity
-            QuestionEntity entity = QuestionEntity.builder()
-                    .type(dto.getType())
-                    .text(dto.getText())
-                    .calculateRule(dto.getCalculateRule())  // 🔥 添加计分规则
-                    .strategyId(dto.getStrategyId())
-                    .minPlayers(dto.getMinPlayers())
-                    .maxPlayers(dto.getMaxPlayers())
-                    .defaultChoice(dto.getDefaultChoice())
-                    .hasMetadata(false)
-                    .build();
-
-            QuestionEntity savedEntity = questionRepository.save(entity);
-            Long questionId = savedEntity.getId();
-
-            // 2. 保存选择题配置
-            if (dto.getType() == QuestionType.CHOICE && dto.getOptions() != null && !dto.getOptions().isEmpty()) {
-                try {
-                    ChoiceQuestionConfig config = ChoiceQuestionConfig.builder()
-                            .question(savedEntity)
-                            .optionsJson(objectMapper.writeValueAsString(dto.getOptions()))
-                            .build();
-                    choiceConfigRepository.save(config);
-                } catch (JsonProcessingException e) {
-                    log.error("序列化选项失败: {}", e.getMessage());
-                    throw new RuntimeException("保存选择题配置失败", e);
-                }
-            }
-
-            if (dto.getType() == QuestionType.BID && dto.getMin() != null && dto.getMax() != null) {
-                BidQuestionConfig config = BidQuestionConfig.builder()
-                        .question(savedEntity)
-                        .minValue(dto.getMin())
-                        .maxValue(dto.getMax())
-                        .step(dto.getStep())
-                        .build();
-                bidConfigRepository.save(config);
-            }
-
-            // 4. 保存元数据
-            if (hasMetadata(dto)) {
-                QuestionMetadata metadata = QuestionMetadata.builder()
-                        .questionId(savedEntity.getId())
-                        .sequenceGroupId(dto.getSequenceGroupId())
-                        .sequenceOrder(dto.getSequenceOrder())
-                        .totalSequenceCount(dto.getTotalSequenceCount())
-                        .isRepeatable(dto.getIsRepeatable())
-                        .repeatTimes(dto.getRepeatTimes())
-                        .repeatInterval(dto.getRepeatInterval())
-                        .repeatGroupId(dto.getRepeatGroupId())
-                        .build();
-                metadataRepository.save(metadata);
-                savedEntity.setHasMetadata(true);
-            }
-
-            // ✅ 只在最后保存一次
-            questionRepository.save(savedEntity);
-        }
+        // 🔥 按表 JDBC 批量写入，不再逐条 save
+        List<Long> importedIds = questionBatchWriter.insertBatch(questionDTOs);
 
         log.info("成功导入 {} 道题目（包含配置）", questionDTOs.size());
-    }
-
-    /**
-     * 判断是否有元数据配置
-     */
-    private boolean hasMetadata(QuestionDTO dto) {
-        return dto.getSequenceGroupId() != null
-                || dto.getIsRepeatable() != null
-                || dto.getRepeatTimes() != null;
+        questionCatalog.publishChange(importedIds);
     }
 
     /**
      * 导出所有题目
+     * 🔥 按主键游标分批读取（配置 JOIN FETCH，元数据和标签每批一次查询），边读边写，内存占用与题库大小无关
      */
     @Override
-    public List<QuestionDTO> exportAll() {
-        List<QuestionEntity> all = questionRepository.findAll();
-        return convertToDTO(all);
+    public long exportAll(OutputStream out) throws IOException {
+        long exported = 0;
+        long lastId = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            while (true) {
+                List<QuestionEntity> batch = questionRepository.findExportBatchAfterId(
+                        lastId, PageRequest.of(0, EXPORT_BATCH_SIZE));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                List<Long> questionIds = batch.stream()
+                        .map(QuestionEntity::getId)
+                        .collect(Collectors.toList());
+                Map<Long, QuestionMetadata> metadataMap = metadataRepository
+                        .findByQuestionIdIn(questionIds)
+                        .stream()
+                        .collect(Collectors.toMap(QuestionMetadata::getQuestionId, m -> m));
+                Map<Long, List<TagDTO>> tagsMap = questionTagService.getTagsForQuestions(questionIds);
+
+                for (QuestionEntity entity : batch) {
+                    QuestionDTO dto = convertSingleToDTO(dtoConverter.toReadOnlyQuestionDTO(entity),
+                            metadataMap.get(entity.getId()),
+                            tagsMap.getOrDefault(entity.getId(), Collections.emptyList()));
+                    generator.writeObject(dto);
+                    exported++;
+                }
+                lastId = batch.get(batch.size() - 1).getId();
+                generator.flush();
+            }
+            generator.writeEndArray();
+        }
+
+        log.info("📤 导出题目 {} 道", exported);
+        return exported;
     }
 
     @Override
@@ -184,6 +172,7 @@ public class QuesServiceImpl implements QuesService {
 
     /**
      * 批量转换 Entity → DTO（包含配置信息）
+     * 🔥 题目本身和选项 / 竞价配置直接复用 DTOConverter 的共享缓存，只有未缓存的题目才查配置表
      */
     private List<QuestionDTO> convertToDTO(List<QuestionEntity> entities) {
         if (entities.isEmpty()) {
@@ -194,15 +183,34 @@ public class QuesServiceImpl implements QuesService {
                 .map(QuestionEntity::getId)
                 .collect(Collectors.toList());
 
-        Map<Long, ChoiceQuestionConfig> choiceConfigMap = choiceConfigRepository
-                .findByQuestionIds(questionIds)  // 改这里
-                .stream()
-                .collect(Collectors.toMap(c -> c.getQuestion().getId(), c -> c));
+        Map<Long, QuestionDTO> baseMap = new HashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : questionIds) {
+            QuestionDTO cached = dtoConverter.findSharedQuestionDTO(id);
+            if (cached != null) {
+                baseMap.put(id, cached);
+            } else {
+                missingIds.add(id);
+            }
+        }
 
-        Map<Long, BidQuestionConfig> bidConfigMap = bidConfigRepository
-                .findByQuestionIds(questionIds)  // 改这里
-                .stream()
-                .collect(Collectors.toMap(b -> b.getQuestion().getId(), b -> b));
+        if (!missingIds.isEmpty()) {
+            Map<Long, ChoiceQuestionConfig> choiceConfigMap = choiceConfigRepository
+                    .findByQuestionIds(missingIds)
+                    .stream()
+                    .collect(Collectors.toMap(c -> c.getQuestion().getId(), c -> c));
+
+            Map<Long, BidQuestionConfig> bidConfigMap = bidConfigRepository
+                    .findByQuestionIds(missingIds)
+                    .stream()
+                    .collect(Collectors.toMap(b -> b.getQuestion().getId(), b -> b));
+
+            for (QuestionEntity entity : entities) {
+                if (!baseMap.containsKey(entity.getId())) {
+                    baseMap.put(entity.getId(), convertBaseToDTO(entity, choiceConfigMap, bidConfigMap));
+                }
+            }
+        }
 
         Map<Long, QuestionMetadata> metadataMap = metadataRepository
                 .findByQuestionIdIn(questionIds)
@@ -213,19 +221,18 @@ public class QuesServiceImpl implements QuesService {
         Map<Long, List<TagDTO>> tagsMap = questionTagService.getTagsForQuestions(questionIds);
 
         return entities.stream()
-                .map(entity -> convertSingleToDTO(entity, choiceConfigMap, bidConfigMap, metadataMap, tagsMap))
+                .map(entity -> convertSingleToDTO(baseMap.get(entity.getId()), metadataMap.get(entity.getId()),
+                        tagsMap.getOrDefault(entity.getId(), Collections.emptyList())))
                 .collect(Collectors.toList());
     }
 
     /**
-     * 单个 Entity → DTO
+     * 未命中缓存的 Entity → DTO（基础字段 + 配置）
      */
-    private QuestionDTO convertSingleToDTO(
+    private QuestionDTO convertBaseToDTO(
             QuestionEntity entity,
             Map<Long, ChoiceQuestionConfig> choiceConfigMap,
-            Map<Long, BidQuestionConfig> bidConfigMap,
-            Map<Long, QuestionMetadata> metadataMap,
-            Map<Long, List<TagDTO>> tagsMap) {
+            Map<Long, BidQuestionConfig> bidConfigMap) {
 
         QuestionDTO dto = new QuestionDTO();
         dto.setId(entity.getId());
@@ -253,21 +260,27 @@ public class QuesServiceImpl implements QuesService {
             }
         }
 
-        QuestionMetadata metadata = metadataMap.get(entity.getId());
+        return dto;
+    }
+
+    /**
+     * 在基础 DTO 上补充元数据和标签（复制一份，不修改共享实例）
+     */
+    private QuestionDTO convertSingleToDTO(QuestionDTO base, QuestionMetadata metadata, List<TagDTO> tags) {
+        QuestionDTO.QuestionDTOBuilder builder = base.toBuilder();
+
         if (metadata != null) {
-            dto.setSequenceGroupId(metadata.getSequenceGroupId());
-            dto.setSequenceOrder(metadata.getSequenceOrder());
-            dto.setTotalSequenceCount(metadata.getTotalSequenceCount());
-            dto.setIsRepeatable(metadata.getIsRepeatable());
-            dto.setRepeatTimes(metadata.getRepeatTimes());
-            dto.setRepeatInterval(metadata.getRepeatInterval());
-            dto.setRepeatGroupId(metadata.getRepeatGroupId());
+            builder.sequenceGroupId(metadata.getSequenceGroupId())
+                    .sequenceOrder(metadata.getSequenceOrder())
+                    .totalSequenceCount(metadata.getTotalSequenceCount())
+                    .isRepeatable(metadata.getIsRepeatable())
+                    .repeatTimes(metadata.getRepeatTimes())
+                    .repeatInterval(metadata.getRepeatInterval())
+                    .repeatGroupId(metadata.getRepeatGroupId());
         }
 
         // 🔥 设置标签
-        dto.setTags(tagsMap.getOrDefault(entity.getId(), Collections.emptyList()));
-
-        return dto;
+        return builder.tags(tags).build();
     }
 
     private List<QuestionOption> deserializeOptions(String optionsJson) {
@@ -299,6 +312,7 @@ public class QuesServiceImpl implements QuesService {
     @Override
     public void deleteById(Long id) {
         questionRepository.deleteById(id);
+        questionCatalog.publishChange(List.of(id));
     }
 
     /**
@@ -308,6 +322,7 @@ public class QuesServiceImpl implements QuesService {
     @Override
     public void deleteAll() {
         questionRepository.deleteAll();
+        questionCatalog.publishChange();
     }
 
     @Override
@@ -366,6 +381,7 @@ public class QuesServiceImpl implements QuesService {
         }
 
         log.info("题目更新成功: id={}", id);
+        questionCatalog.publishChange(List.of(id));
     }
 
     /**
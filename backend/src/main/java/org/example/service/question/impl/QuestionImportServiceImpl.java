@@ -0,0 +1,353 @@
+package org.example.service.question.impl;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.QuestionDTO;
+import org.example.dto.QuestionImportJobDTO;
+import org.example.entity.QuestionImportJobEntity;
+import org.example.entity.QuestionType;
+import org.example.exception.BusinessException;
+import org.example.repository.QuestionImportJobRepository;
+import org.example.service.question.QuestionBatchWriter;
+import org.example.service.question.QuestionCatalog;
+import org.example.service.question.QuestionImportService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 题目流式批量导入实现
+ *
+ * 1. 上传内容直接写入导入目录下的文件，随后在后台执行
+ * 2. 先完整校验一遍（逐条解析，不保留已解析的题目），有错误则任务失败，不写入任何数据
+ * 3. 再逐条解析、攒够一批后用 JDBC 批量写入，任务进度与该批数据在同一事务内提交
+ * 中途失败后 resume：跳过已提交的条数继续导入，已提交的数据不会重复
+ * 注意：上传文件保存在接收请求的节点本地，续传需要在同一节点执行
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class QuestionImportServiceImpl implements QuestionImportService {
+
+    private final QuestionImportJobRepository jobRepository;
+    private final QuestionBatchWriter batchWriter;
+    private final QuestionCatalog questionCatalog;
+    private final ObjectMapper objectMapper;
+    private final TaskScheduler taskScheduler;
+
+    @Value("${question.import.dir:./import}")
+    private String importDir;
+
+    @Value("${question.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${question.import.max-reported-errors:50}")
+    private int maxReportedErrors;
+
+    // 本节点正在执行的任务
+    private final Set<String> runningJobs = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void markInterruptedJobs() {
+        // 上次进程退出时还在执行的任务：标记为失败，由管理员决定是否续传
+        List<QuestionImportJobEntity> interrupted = jobRepository.findByStatusIn(List.of(
+                QuestionImportJobEntity.Status.PENDING,
+                QuestionImportJobEntity.Status.VALIDATING,
+                QuestionImportJobEntity.Status.IMPORTING));
+        for (QuestionImportJobEntity job : interrupted) {
+            job.setStatus(QuestionImportJobEntity.Status.FAILED);
+            job.setMessage("服务重启导致任务中断，可续传（已导入 " + job.getCommittedCount() + " 题）");
+        }
+        if (!interrupted.isEmpty()) {
+            jobRepository.saveAll(interrupted);
+            log.warn("⚠️ {} 个题目导入任务因重启中断", interrupted.size());
+        }
+    }
+
+    @Override
+    public Map<String, Object> validate(InputStream input) {
+        ValidationReport report = new ValidationReport();
+        try {
+            scan(input, report::accept);
+        } catch (IOException | RuntimeException e) {
+            // 格式错误时无法继续定位后续题目，到此为止
+            report.parseFailed(e.getMessage());
+        }
+        return report.toMap();
+    }
+
+    @Override
+    public QuestionImportJobDTO createJob(InputStream input) {
+        String jobId = UUID.randomUUID().toString();
+        String fileName = jobId + ".json";
+        Path dir = Paths.get(importDir);
+        Path tmp = dir.resolve(fileName + ".tmp");
+        try {
+            Files.createDirectories(dir);
+            Files.copy(input, tmp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tmp, dir.resolve(fileName), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("❌ 保存导入文件失败", e);
+            throw new BusinessException("保存导入文件失败: " + e.getMessage());
+        }
+
+        QuestionImportJobEntity job = jobRepository.save(QuestionImportJobEntity.builder()
+                .jobId(jobId)
+                .status(QuestionImportJobEntity.Status.PENDING)
+                .fileName(fileName)
+                .build());
+        log.info("📥 创建题目导入任务: {}", jobId);
+
+        submit(jobId);
+        return toDTO(job);
+    }
+
+    @Override
+    public QuestionImportJobDTO getJob(String jobId) {
+        return toDTO(findJob(jobId));
+    }
+
+    @Override
+    public List<QuestionImportJobDTO> listJobs() {
+        return jobRepository.findTop20ByOrderByCreatedAtDesc().stream()
+                .map(this::toDTO)
+                .toList();
+    }
+
+    @Override
+    public QuestionImportJobDTO resumeJob(String jobId) {
+        QuestionImportJobEntity job = findJob(jobId);
+        if (job.getStatus() == QuestionImportJobEntity.Status.COMPLETED) {
+            throw new BusinessException("导入任务已完成");
+        }
+        if (runningJobs.contains(jobId)) {
+            throw new BusinessException("导入任务正在执行");
+        }
+        if (!Files.exists(Paths.get(importDir).resolve(job.getFileName()))) {
+            throw new BusinessException("导入文件不在本节点，无法续传");
+        }
+        updateJob(jobId, j -> {
+            j.setStatus(QuestionImportJobEntity.Status.PENDING);
+            j.setMessage(null);
+        });
+        submit(jobId);
+        return getJob(jobId);
+    }
+
+    // ==================== 任务执行 ====================
+
+    private void submit(String jobId) {
+        taskScheduler.schedule(() -> runJob(jobId), Instant.now());
+    }
+
+    private void runJob(String jobId) {
+        if (!runningJobs.add(jobId)) {
+            return;
+        }
+        // progress[0]：已提交条数；startCommitted：本次开始前已提交的条数
+        long[] progress = {0};
+        long startCommitted = 0;
+        try {
+            QuestionImportJobEntity job = findJob(jobId);
+            Path file = Paths.get(importDir).resolve(job.getFileName());
+            startCommitted = job.getCommittedCount();
+            progress[0] = startCommitted;
+
+            // 1. 首次执行先完整校验；续传时文件已校验过
+            if (job.getTotalCount() == null) {
+                updateJob(jobId, j -> j.setStatus(QuestionImportJobEntity.Status.VALIDATING));
+                Map<String, Object> report;
+                try (InputStream in = Files.newInputStream(file)) {
+                    report = validate(in);
+                }
+                long invalid = (long) report.get("invalid");
+                if (invalid > 0) {
+                    updateJob(jobId, j -> {
+                        j.setStatus(QuestionImportJobEntity.Status.FAILED);
+                        j.setMessage("校验失败，" + invalid + " 道题目有错误: " + report.get("errors"));
+                    });
+                    log.warn("⚠️ 导入任务 {} 校验失败: {} 道题目有错误", jobId, invalid);
+                    return;
+                }
+                long total = (long) report.get("total");
+                updateJob(jobId, j -> j.setTotalCount(total));
+            }
+
+            // 2. 分批导入，跳过已提交的部分
+            updateJob(jobId, j -> j.setStatus(QuestionImportJobEntity.Status.IMPORTING));
+            List<QuestionDTO> batch = new ArrayList<>(batchSize);
+            long[] position = {0};
+            long skip = startCommitted;
+            try (InputStream in = Files.newInputStream(file)) {
+                scan(in, dto -> {
+                    if (position[0]++ < skip) {
+                        return;
+                    }
+                    batch.add(dto);
+                    if (batch.size() >= batchSize) {
+                        batchWriter.insertImportBatch(jobId, progress[0], batch);
+                        progress[0] += batch.size();
+                        batch.clear();
+                    }
+                });
+            }
+            if (!batch.isEmpty()) {
+                batchWriter.insertImportBatch(jobId, progress[0], batch);
+                progress[0] += batch.size();
+            }
+
+            long imported = progress[0] - startCommitted;
+            updateJob(jobId, j -> {
+                j.setStatus(QuestionImportJobEntity.Status.COMPLETED);
+                j.setMessage("本次导入 " + imported + " 道题目");
+            });
+            Files.deleteIfExists(file);
+            log.info("✅ 导入任务 {} 完成，本次导入 {} 道题目", jobId, imported);
+        } catch (Exception e) {
+            log.error("❌ 导入任务 {} 失败", jobId, e);
+            try {
+                updateJob(jobId, j -> {
+                    j.setStatus(QuestionImportJobEntity.Status.FAILED);
+                    j.setMessage("导入失败（已导入 " + j.getCommittedCount() + " 题，可续传）: " + e.getMessage());
+                });
+            } catch (Exception updateError) {
+                log.error("❌ 更新导入任务 {} 状态失败", jobId, updateError);
+            }
+        } finally {
+            runningJobs.remove(jobId);
+            // 只新增了题目，已有题目的 DTO 缓存不受影响
+            if (progress[0] > startCommitted) {
+                questionCatalog.publishChange(List.of());
+            }
+        }
+    }
+
+    /**
+     * 逐条解析 QuestionDTO（顶层数组或逐个对象都可以），不会把整个文件读入内存
+     */
+    private void scan(InputStream input, Consumer<QuestionDTO> consumer) throws IOException {
+        try (MappingIterator<QuestionDTO> iterator = objectMapper.readerFor(QuestionDTO.class)
+                .readValues(new BufferedInputStream(input))) {
+            while (iterator.hasNextValue()) {
+                consumer.accept(iterator.nextValue());
+            }
+        }
+    }
+
+    /**
+     * 单题校验：返回错误原因，合法时返回 null
+     */
+    private static String check(QuestionDTO dto) {
+        if (dto == null) {
+            return "内容为空";
+        }
+        if (dto.getType() == null) {
+            return "缺少 type";
+        }
+        if (dto.getText() == null || dto.getText().isBlank()) {
+            return "缺少 text";
+        }
+        if (dto.getStrategyId() == null || dto.getStrategyId().isBlank()) {
+            return "缺少 strategyId";
+        }
+        if (dto.getType() == QuestionType.CHOICE && (dto.getOptions() == null || dto.getOptions().isEmpty())) {
+            return "选择题缺少 options";
+        }
+        if (dto.getType() == QuestionType.BID) {
+            if (dto.getMin() == null || dto.getMax() == null) {
+                return "竞价题缺少 min / max";
+            }
+            if (dto.getMin() > dto.getMax()) {
+                return "竞价题 min 大于 max";
+            }
+        }
+        if (dto.getMinPlayers() != null && dto.getMaxPlayers() != null && dto.getMinPlayers() > dto.getMaxPlayers()) {
+            return "minPlayers 大于 maxPlayers";
+        }
+        return null;
+    }
+
+    private QuestionImportJobEntity findJob(String jobId) {
+        return jobRepository.findById(jobId)
+                .orElseThrow(() -> new BusinessException("导入任务不存在: " + jobId));
+    }
+
+    /**
+     * 重新读取后修改保存（committedCount 由批量写入在事务内更新，这里不能用旧对象覆盖）
+     */
+    private void updateJob(String jobId, Consumer<QuestionImportJobEntity> change) {
+        QuestionImportJobEntity job = findJob(jobId);
+        change.accept(job);
+        jobRepository.save(job);
+    }
+
+    private QuestionImportJobDTO toDTO(QuestionImportJobEntity job) {
+        return QuestionImportJobDTO.builder()
+                .jobId(job.getJobId())
+                .status(job.getStatus().name())
+                .totalCount(job.getTotalCount())
+                .committedCount(job.getCommittedCount())
+                .message(job.getMessage())
+                .createdAt(job.getCreatedAt())
+                .updatedAt(job.getUpdatedAt())
+                .build();
+    }
+
+    /**
+     * 校验统计（只保留前 maxReportedErrors 条错误）
+     */
+    private class ValidationReport {
+        private long total;
+        private long invalid;
+        private final List<String> errors = new ArrayList<>();
+
+        void accept(QuestionDTO dto) {
+            total++;
+            String error = check(dto);
+            if (error != null) {
+                fail("第 " + total + " 题: " + error);
+            }
+        }
+
+        void parseFailed(String reason) {
+            total++;
+            fail("第 " + total + " 题解析失败: " + reason);
+        }
+
+        void fail(String error) {
+            invalid++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(error);
+            }
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("total", total);
+            result.put("valid", total - invalid);
+            result.put("invalid", invalid);
+            result.put("errors", errors);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.service.retention;
+
+import org.example.exception.BusinessException;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 数据保留服务
+ * 超过保留期的行分批导出为 gzip 压缩的 NDJSON 归档文件，再按小批量删除
+ */
+public interface RetentionService {
+
+    /**
+     * 可归档的表（都按 created_at 判断是否过期）
+     */
+    enum ArchiveTable {
+        SUBMISSIONS("submissions"),
+        PLAYER_GAME("player_game"),
+        GAME_RESULTS("game_results");
+
+        private final String tableName;
+
+        ArchiveTable(String tableName) {
+            this.tableName = tableName;
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+
+        public static ArchiveTable fromName(String name) {
+            for (ArchiveTable table : values()) {
+                if (table.tableName.equalsIgnoreCase(name) || table.name().equalsIgnoreCase(name)) {
+                    return table;
+                }
+            }
+            throw new BusinessException("不支持归档的表: " + name);
+        }
+    }
+
+    /**
+     * 执行一次归档（已在运行时直接返回当前状态）
+     * @return 各表归档的行数和文件数
+     */
+    Map<String, Object> runArchive();
+
+    /**
+     * 最近一次归档的结果
+     */
+    Map<String, Object> getStatus();
+
+    /**
+     * 列出归档文件（相对归档目录的路径）
+     */
+    List<String> listArchives();
+
+    /**
+     * 把归档文件导回 {表名}_restored 表，供排查问题使用（不会写回线上表）
+     * @param archivePath listArchives 返回的相对路径
+     * @return 导入的行数
+     */
+    int importArchive(String archivePath);
+
+    /**
+     * 生成按月分区的 MySQL DDL（只生成，不执行）
+     * @param months 从当前月开始往后预建的分区数
+     */
+    String buildPartitionDdl(ArchiveTable table, int months);
+}
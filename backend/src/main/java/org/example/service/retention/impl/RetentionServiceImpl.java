@@ -0,0 +1,394 @@
+package org.example.service.retention.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.exception.BusinessException;
+import org.example.service.history.GameResultCache;
+import org.example.service.retention.RetentionService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 数据保留服务实现
+ *
+ * 归档流程（每张表独立）：
+ * 1. 按主键顺序分块读取，id 随写入时间递增，遇到未过期的行即停止，不需要 created_at 索引
+ * 2. 每块先写入 .tmp 文件，完整写完后改名为正式归档文件
+ * 3. 再按小批量、每批一个短事务删除，批次之间稍作停顿，避免长时间锁住热表
+ *    game_results 每行带整局题目详情，按更小的块读取；对应的玩家战绩索引（player_game_results）先于结果删除
+ * 中途失败时已删除的行都已归档；未删除的行下次会重新导出（导入时按主键去重）
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RetentionServiceImpl implements RetentionService {
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final DateTimeFormatter SQL_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSS");
+    private static final String ARCHIVE_SUFFIX = ".ndjson.gz";
+    private static final String RESTORED_SUFFIX = "_restored";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final GameResultCache gameResultCache;
+    private final TaskScheduler taskScheduler;
+
+    @Value("${retention.enabled:false}")
+    private boolean enabled;
+
+    @Value("${retention.horizon-days:180}")
+    private int horizonDays;
+
+    @Value("${retention.tables:submissions,player_game}")
+    private String tables;
+
+    @Value("${retention.archive-dir:./archive}")
+    private String archiveDir;
+
+    @Value("${retention.chunk-size:5000}")
+    private int chunkSize;
+
+    @Value("${retention.game-results-chunk-size:200}")
+    private int gameResultsChunkSize;
+
+    @Value("${retention.delete-batch-size:500}")
+    private int deleteBatchSize;
+
+    @Value("${retention.delete-pause-ms:50}")
+    private long deletePauseMs;
+
+    @Value("${retention.run-interval-hours:24}")
+    private long runIntervalHours;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile Map<String, Object> lastResult = Collections.emptyMap();
+
+    @PostConstruct
+    public void start() {
+        if (enabled && runIntervalHours > 0) {
+            taskScheduler.scheduleWithFixedDelay(this::runArchiveSafely,
+                    Instant.now().plus(Duration.ofMinutes(5)),
+                    Duration.ofHours(runIntervalHours));
+            log.info("🗄️ 数据归档已开启: 保留 {} 天, 表: {}", horizonDays, tables);
+        }
+    }
+
+    @Override
+    public Map<String, Object> runArchive() {
+        if (!running.compareAndSet(false, true)) {
+            return getStatus();
+        }
+        try {
+            LocalDateTime startedAt = LocalDateTime.now();
+            LocalDateTime cutoff = startedAt.minusDays(horizonDays);
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("startedAt", startedAt.toString());
+            result.put("cutoff", cutoff.toString());
+
+            for (ArchiveTable table : configuredTables()) {
+                result.put(table.getTableName(), archiveTable(table, cutoff));
+            }
+
+            result.put("finishedAt", LocalDateTime.now().toString());
+            lastResult = result;
+            log.info("✅ 数据归档完成: {}", result);
+            return result;
+        } catch (IOException e) {
+            log.error("❌ 写入归档文件失败", e);
+            throw new BusinessException("写入归档文件失败: " + e.getMessage());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", running.get());
+        status.put("enabled", enabled);
+        status.put("horizonDays", horizonDays);
+        status.put("tables", configuredTables().stream().map(ArchiveTable::getTableName).toList());
+        status.put("lastRun", lastResult);
+        return status;
+    }
+
+    @Override
+    public List<String> listArchives() {
+        Path root = archiveRoot();
+        if (!Files.isDirectory(root)) {
+            return Collections.emptyList();
+        }
+        try (Stream<Path> files = Files.walk(root, 2)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(ARCHIVE_SUFFIX))
+                    .map(path -> root.relativize(path).toString().replace('\\', '/'))
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new BusinessException("读取归档目录失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public int importArchive(String archivePath) {
+        Path root = archiveRoot();
+        Path file = root.resolve(archivePath).normalize();
+        if (!file.startsWith(root) || !Files.isRegularFile(file)
+                || !file.getFileName().toString().endsWith(ARCHIVE_SUFFIX)) {
+            throw new BusinessException("归档文件不存在: " + archivePath);
+        }
+        ArchiveTable table = ArchiveTable.fromName(file.getParent().getFileName().toString());
+        String target = table.getTableName() + RESTORED_SUFFIX;
+
+        // LIKE 只复制列和索引，不带外键，导入的历史行不受线上数据约束
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + target + " LIKE " + table.getTableName());
+        Map<String, Integer> columnTypes = readColumnTypes(target);
+        List<String> columns = new ArrayList<>(columnTypes.keySet());
+        String sql = "INSERT IGNORE INTO " + target + " (" + String.join(", ", columns) + ") VALUES ("
+                + columns.stream().map(c -> "?").collect(Collectors.joining(", ")) + ")";
+
+        int imported = 0;
+        List<Object[]> batch = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                Map<String, Object> row = objectMapper.readValue(line, new TypeReference<LinkedHashMap<String, Object>>() {});
+                Object[] args = new Object[columns.size()];
+                for (int i = 0; i < columns.size(); i++) {
+                    args[i] = fromArchiveValue(row.get(columns.get(i)), columnTypes.get(columns.get(i)));
+                }
+                batch.add(args);
+                if (batch.size() >= deleteBatchSize) {
+                    imported += batch.size();
+                    jdbcTemplate.batchUpdate(sql, batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                imported += batch.size();
+                jdbcTemplate.batchUpdate(sql, batch);
+            }
+        } catch (IOException e) {
+            throw new BusinessException("读取归档文件失败: " + e.getMessage());
+        }
+
+        log.info("📥 归档 {} 已导入 {}，共 {} 行", archivePath, target, imported);
+        return imported;
+    }
+
+    @Override
+    public String buildPartitionDdl(ArchiveTable table, int months) {
+        String name = table.getTableName();
+        LocalDate firstMonth = LocalDate.now().withDayOfMonth(1);
+        StringBuilder ddl = new StringBuilder();
+        ddl.append("-- MySQL 分区要求：表上不能有外键，且主键/唯一键必须包含分区列\n");
+        ddl.append("-- 执行前需先删除 ").append(name).append(" 的外键，并把主键改为 (id, created_at)：\n");
+        ddl.append("-- ALTER TABLE ").append(name).append(" DROP PRIMARY KEY, ADD PRIMARY KEY (id, created_at);\n");
+        ddl.append("-- 分区后可用 ALTER TABLE ... DROP PARTITION 直接丢弃已归档的月份\n");
+        ddl.append("ALTER TABLE ").append(name).append('\n');
+        ddl.append("PARTITION BY RANGE (TO_DAYS(created_at)) (\n");
+        ddl.append("    PARTITION p_history VALUES LESS THAN (TO_DAYS('").append(firstMonth).append("')),\n");
+        for (int i = 0; i < months; i++) {
+            LocalDate month = firstMonth.plusMonths(i);
+            ddl.append("    PARTITION p").append(month.format(DateTimeFormatter.ofPattern("yyyyMM")))
+                    .append(" VALUES LESS THAN (TO_DAYS('").append(month.plusMonths(1)).append("')),\n");
+        }
+        ddl.append("    PARTITION p_future VALUES LESS THAN MAXVALUE\n");
+        ddl.append(");\n");
+        return ddl.toString();
+    }
+
+    // ==================== 私有方法 ====================
+
+    private void runArchiveSafely() {
+        try {
+            runArchive();
+        } catch (Exception e) {
+            log.error("❌ 定时数据归档失败", e);
+        }
+    }
+
+    private Map<String, Object> archiveTable(ArchiveTable table, LocalDateTime cutoff) throws IOException {
+        String name = table.getTableName();
+        Path dir = archiveRoot().resolve(name);
+        Files.createDirectories(dir);
+        String runTag = LocalDateTime.now().format(FILE_TIME);
+
+        int limit = table == ArchiveTable.GAME_RESULTS ? gameResultsChunkSize : chunkSize;
+        long afterId = 0L;
+        long archived = 0L;
+        int files = 0;
+        while (true) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                    "SELECT * FROM " + name + " WHERE id > ? ORDER BY id LIMIT ?", afterId, limit);
+
+            // 只取过期的前缀（id 越大越新）
+            List<Map<String, Object>> expired = new ArrayList<>();
+            for (Map<String, Object> row : rows) {
+                if (!isBefore(row.get("created_at"), cutoff)) {
+                    break;
+                }
+                expired.add(row);
+            }
+            if (expired.isEmpty()) {
+                break;
+            }
+
+            long firstId = ((Number) expired.get(0).get("id")).longValue();
+            long lastId = ((Number) expired.get(expired.size() - 1).get("id")).longValue();
+            writeArchive(dir.resolve(runTag + "_" + firstId + "-" + lastId + ARCHIVE_SUFFIX), expired);
+            files++;
+
+            List<Long> ids = expired.stream().map(row -> ((Number) row.get("id")).longValue()).toList();
+            if (table == ArchiveTable.GAME_RESULTS) {
+                // 索引可由结果重建，不单独归档；先删索引，中途失败也不会留下指向已删结果的索引行
+                List<Long> gameIds = expired.stream().map(row -> ((Number) row.get("game_id")).longValue()).toList();
+                deleteInBatches("player_game_results", "game_id", gameIds);
+                deleteInBatches(name, "id", ids);
+                gameIds.forEach(gameResultCache::evict);
+            } else {
+                deleteInBatches(name, "id", ids);
+            }
+
+            archived += expired.size();
+            afterId = lastId;
+            log.info("🗄️ {} 已归档 {} 行（到 id={}）", name, archived, lastId);
+
+            if (expired.size() < rows.size() || rows.size() < limit) {
+                break;
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("rows", archived);
+        result.put("files", files);
+        return result;
+    }
+
+    private void writeArchive(Path target, List<Map<String, Object>> rows) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(tmp)), StandardCharsets.UTF_8))) {
+            for (Map<String, Object> row : rows) {
+                Map<String, Object> line = new LinkedHashMap<>();
+                row.forEach((column, value) -> line.put(column, toArchiveValue(value)));
+                writer.write(objectMapper.writeValueAsString(line));
+                writer.newLine();
+            }
+        }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void deleteInBatches(String table, String column, List<Long> ids) {
+        for (int from = 0; from < ids.size(); from += deleteBatchSize) {
+            List<Long> batch = ids.subList(from, Math.min(ids.size(), from + deleteBatchSize));
+            String placeholders = batch.stream().map(id -> "?").collect(Collectors.joining(", "));
+            jdbcTemplate.update("DELETE FROM " + table + " WHERE " + column + " IN (" + placeholders + ")", batch.toArray());
+            if (deletePauseMs > 0) {
+                try {
+                    Thread.sleep(deletePauseMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new BusinessException("数据归档被中断");
+                }
+            }
+        }
+    }
+
+    private Map<String, Integer> readColumnTypes(String table) {
+        return jdbcTemplate.query("SELECT * FROM " + table + " WHERE 1 = 0", rs -> {
+            ResultSetMetaData meta = rs.getMetaData();
+            Map<String, Integer> types = new LinkedHashMap<>();
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                types.put(meta.getColumnLabel(i), meta.getColumnType(i));
+            }
+            return types;
+        });
+    }
+
+    /**
+     * 时间统一写成 MySQL 能直接解析的字符串，二进制写成 Base64
+     */
+    private static Object toArchiveValue(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime().format(SQL_TIME);
+        }
+        if (value instanceof LocalDateTime dateTime) {
+            return dateTime.format(SQL_TIME);
+        }
+        if (value instanceof byte[] bytes) {
+            return Base64.getEncoder().encodeToString(bytes);
+        }
+        return value;
+    }
+
+    private static Object fromArchiveValue(Object value, Integer sqlType) {
+        if (value instanceof String text && sqlType != null
+                && (sqlType == Types.BINARY || sqlType == Types.VARBINARY
+                || sqlType == Types.LONGVARBINARY || sqlType == Types.BLOB)) {
+            return Base64.getDecoder().decode(text);
+        }
+        return value;
+    }
+
+    private static boolean isBefore(Object createdAt, LocalDateTime cutoff) {
+        if (createdAt instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime().isBefore(cutoff);
+        }
+        if (createdAt instanceof LocalDateTime dateTime) {
+            return dateTime.isBefore(cutoff);
+        }
+        return false;
+    }
+
+    private List<ArchiveTable> configuredTables() {
+        return Arrays.stream(tables.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .map(ArchiveTable::fromName)
+                .toList();
+    }
+
+    private Path archiveRoot() {
+        return Paths.get(archiveDir).toAbsolutePath().normalize();
+    }
+}
@@ -2,8 +2,10 @@ package org.example.service.room;
 
 import org.example.controller.GameController;
 import org.example.dto.RoomDTO;
+import org.example.dto.RoomQuestionDTO;
 import org.example.entity.RoomEntity;
 import org.example.pojo.GameRoom;
+import org.example.pojo.RoomSettings;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -50,11 +52,22 @@ public interface RoomLifecycleService {
      */
     void setPlayerReady(String roomCode, String playerId, boolean ready);
 
+    /**
+     * 获取房间设置（GameRoom 中没有时从 RoomEntity 构建一次并缓存）
+     */
+    RoomSettings resolveSettings(GameRoom gameRoom);
+
     /**
      * 转换为 RoomDTO
      */
     RoomDTO toRoomDTO(String roomCode);
 
+    /**
+     * 获取指定索引的题目（只允许获取已经开始的题目）
+     * @return null-索引无效或题目尚未开始
+     */
+    RoomQuestionDTO toRoomQuestionDTO(String roomCode, int questionIndex);
+
     @Transactional
     void handlePlayerDisconnect(String roomCode, String playerId);
 
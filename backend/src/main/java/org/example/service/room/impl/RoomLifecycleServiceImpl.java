@@ -1,5 +1,6 @@
 package org.example.service.room.impl;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -7,10 +8,12 @@ import org.example.controller.GameController;
 import org.example.dto.PlayerDTO;
 import org.example.dto.QuestionDTO;
 import org.example.dto.RoomDTO;
+import org.example.dto.RoomQuestionDTO;
 import org.example.entity.PlayerEntity;
 import org.example.entity.RoomEntity;
 import org.example.exception.BusinessException;
 import org.example.pojo.GameRoom;
+import org.example.pojo.RoomSettings;
 import org.example.pojo.RoomStatus;
 import org.example.repository.PlayerRepository;
 import org.example.repository.RoomRepository;
@@ -23,6 +26,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -49,7 +53,7 @@ public class RoomLifecycleServiceImpl implements RoomLifecycleService {
 
     @Transactional
     @Override
-    public RoomEntity initializeRoom(Integer maxPlayers, Integer questionCount, GameRoom gameRoom, Integer timeLimit, String password, java.util.List<Long> questionTagIds) {
+    public RoomEntity initializeRoom(Integer maxPlayers, Integer questionCount, GameRoom gameRoom, Integer timeLimit, String password, List<Long> questionTagIds) {
         String roomCode = generateRoomCode();
 
         // 🔥 序列化标签IDs
@@ -92,6 +96,8 @@ public class RoomLifecycleServiceImpl implements RoomLifecycleService {
         gameRoom.setDisconnectedPlayers(new ConcurrentHashMap<>());
         gameRoom.setPlayerGameStates(new ConcurrentHashMap<>());
         gameRoom.setRoomEntity(savedRoom); // 🔥 性能优化：缓存 RoomEntity，避免后续频繁查询数据库
+        gameRoom.setSettings(RoomSettings.of(savedRoom.getQuestionCount(), savedRoom.getTimeLimit(),
+                savedRoom.getRankingMode(), null, null, questionTagIds, savedRoom.getPassword()));
 
         log.info("✅ 创建房间: {}, 最大人数: {}, 题目数: {}, 标签筛选: {}", roomCode, maxPlayers, questionCount, questionTagIds);
         return savedRoom;
@@ -349,8 +355,15 @@ public class RoomLifecycleServiceImpl implements RoomLifecycleService {
             // 保存到数据库
             RoomEntity savedRoom = roomRepository.save(room);
 
-            // 🔥 性能优化：更新缓存的 RoomEntity
+            // 🔥 性能优化：更新缓存的 RoomEntity 和设置（通关条件直接用请求对象，无需再解析 JSON）
+            List<Long> questionTagIds = resolveSettings(gameRoom).getQuestionTagIds();
             gameRoom.setRoomEntity(savedRoom);
+            gameRoom.setSettings(RoomSettings.of(savedRoom.getQuestionCount(), savedRoom.getTimeLimit(),
+                    savedRoom.getRankingMode(), savedRoom.getTargetScore(), request.getWinConditions(),
+                    questionTagIds, savedRoom.getPassword()));
+
+            // 🔥 同步到 Redis
+            roomCache.syncToRedis(roomCode);
 
             log.info("✅ 房间 {} 设置更新成功", roomCode);
         }
@@ -415,17 +428,69 @@ public class RoomLifecycleServiceImpl implements RoomLifecycleService {
     public RoomDTO toRoomDTO(String roomCode) {
         GameRoom gameRoom = roomCache.getOrThrow(roomCode);
 
-        // 🔥 性能优化：优先使用 GameRoom 中缓存的 RoomEntity，避免频繁数据库查询
+        // 🔥 性能优化：设置在创建/修改时已构建好，这里不查数据库、不解析 JSON
+        return toRoomDTO(resolveSettings(gameRoom), gameRoom);
+    }
+
+    @Override
+    public RoomSettings resolveSettings(GameRoom gameRoom) {
+        RoomSettings settings = gameRoom.getSettings();
+        if (settings != null) {
+            return settings;
+        }
+
+        // 兼容旧数据（如从 Redis 恢复的房间）：从 RoomEntity 构建一次并缓存
         RoomEntity roomEntity = gameRoom.getRoomEntity();
         if (roomEntity == null) {
-            // 缓存失效或首次访问，从数据库查询并缓存
-            roomEntity = roomRepository.findByRoomCode(roomCode)
+            roomEntity = roomRepository.findByRoomCode(gameRoom.getRoomCode())
                     .orElseThrow(() -> new BusinessException("房间不存在"));
             gameRoom.setRoomEntity(roomEntity);
-            log.debug("🔄 房间 {} 的 RoomEntity 已缓存", roomCode);
         }
 
-        return toRoomDTO(roomEntity, gameRoom);
+        RoomDTO.WinConditions winConditions = null;
+        if (roomEntity.getWinConditionsJson() != null) {
+            try {
+                winConditions = objectMapper.readValue(roomEntity.getWinConditionsJson(), RoomDTO.WinConditions.class);
+            } catch (Exception e) {
+                log.error("解析通关条件失败", e);
+            }
+        }
+
+        List<Long> questionTagIds = null;
+        if (roomEntity.getQuestionTagIdsJson() != null && !roomEntity.getQuestionTagIdsJson().isEmpty()) {
+            try {
+                questionTagIds = objectMapper.readValue(roomEntity.getQuestionTagIdsJson(), new TypeReference<List<Long>>() {});
+            } catch (Exception e) {
+                log.error("解析questionTagIds失败", e);
+            }
+        }
+
+        settings = RoomSettings.of(roomEntity.getQuestionCount(), roomEntity.getTimeLimit(),
+                roomEntity.getRankingMode(), roomEntity.getTargetScore(), winConditions,
+                questionTagIds, roomEntity.getPassword());
+        gameRoom.setSettings(settings);
+        log.debug("🔄 房间 {} 的设置已缓存", gameRoom.getRoomCode());
+        return settings;
+    }
+
+    @Override
+    public RoomQuestionDTO toRoomQuestionDTO(String roomCode, int questionIndex) {
+        GameRoom gameRoom = roomCache.getOrThrow(roomCode);
+
+        // 🔥 不能提前泄露后面的题目
+        if (!gameRoom.isStarted() || questionIndex < 0 || questionIndex > gameRoom.getCurrentIndex()
+                || questionIndex >= gameRoom.getQuestions().size()) {
+            return null;
+        }
+
+        QuestionDTO question = gameRoom.getQuestions().get(questionIndex);
+        return RoomQuestionDTO.builder()
+                .roomCode(roomCode)
+                .questionIndex(questionIndex)
+                .questionId(question.getId())
+                .version(gameRoom.getQuestionVersion(questionIndex))
+                .question(question)
+                .build();
     }
 
     @Transactional
@@ -523,11 +588,14 @@ public class RoomLifecycleServiceImpl implements RoomLifecycleService {
                     roomRepository.save(room);
                 }
                 roomCache.remove(roomCode);
+            } else {
+                // 🔥 同步到 Redis（同时刷新大厅索引）
+                roomCache.syncToRedis(roomCode);
             }
         }
     }
 
-    private RoomDTO toRoomDTO(RoomEntity roomEntity, GameRoom gameRoom) {
+    private RoomDTO toRoomDTO(RoomSettings settings, GameRoom gameRoom) {
         RoomStatus status = RoomStatus.WAITING;
         if (gameRoom.isFinished()) {
             status = RoomStatus.FINISHED;
@@ -535,30 +603,20 @@ public class RoomLifecycleServiceImpl implements RoomLifecycleService {
             status = RoomStatus.PLAYING;
         }
 
-        // 🔥 直接使用 DTO（无需转换）
-        QuestionDTO currentQuestionDTO = gameRoom.getCurrentQuestion();
+        // 🔥 房间更新只带题目引用，题目内容走 /topic/room/{roomCode}/question
+        QuestionDTO currentQuestionDTO = gameRoom.isStarted() ? gameRoom.getCurrentQuestion() : null;
 
         Integer questionCount = null;
         if (gameRoom.getQuestions() != null && !gameRoom.getQuestions().isEmpty()) {
             questionCount = gameRoom.getQuestions().size();
-        } else if (roomEntity != null && roomEntity.getQuestionCount() != null) {
-            questionCount = roomEntity.getQuestionCount();
+        } else if (settings.getQuestionCount() != null) {
+            questionCount = settings.getQuestionCount();
         } else {
             questionCount = 10;
         }
 
-        // 解析 winConditionsJson
-        RoomDTO.WinConditions winConditions = null;
-        if (roomEntity != null && roomEntity.getWinConditionsJson() != null) {
-            try {
-                winConditions = objectMapper.readValue(
-                        roomEntity.getWinConditionsJson(),
-                        RoomDTO.WinConditions.class
-                );
-            } catch (Exception e) {
-                log.error("解析通关条件失败", e);
-            }
-        }
+        // 🔥 人数上限缺失时回退到缓存的 RoomEntity（不查数据库）
+        RoomEntity roomEntity = gameRoom.getRoomEntity();
 
         // 🔥 计算非观战者人数
         int currentNonSpectators = (int) gameRoom.getPlayers().stream()
@@ -566,7 +624,7 @@ public class RoomLifecycleServiceImpl implements RoomLifecycleService {
                 .count();
 
         // 🔥 P1-1: 获取当前题目的已提交玩家ID列表（用于前端验证）
-        java.util.List<String> submittedPlayerIds = new ArrayList<>();
+        List<String> submittedPlayerIds = new ArrayList<>();
         if (gameRoom.isStarted() && gameRoom.getCurrentIndex() >= 0) {
             Map<String, String> currentSubmissions = gameRoom.getSubmissions().get(gameRoom.getCurrentIndex());
             if (currentSubmissions != null) {
@@ -584,13 +642,17 @@ public class RoomLifecycleServiceImpl implements RoomLifecycleService {
                 .players(new ArrayList<>(gameRoom.getPlayers()))
                 .questionStartTime(gameRoom.getQuestionStartTime())
                 .timeLimit(gameRoom.getTimeLimit())
+                .questionDeadline(gameRoom.isStarted() && !gameRoom.isFinished() ? gameRoom.getQuestionDeadline() : null)
+                .serverTime(System.currentTimeMillis())
                 .currentIndex(gameRoom.getCurrentIndex())
-                .currentQuestion(currentQuestionDTO)  // ✅ 直接使用
+                .currentQuestionId(currentQuestionDTO != null ? currentQuestionDTO.getId() : null)
+                .questionVersion(currentQuestionDTO != null ? gameRoom.getQuestionVersion(gameRoom.getCurrentIndex()) : null)
                 .questionCount(questionCount)
                 .submittedPlayerIds(submittedPlayerIds)  // 🔥 P1-1: 已提交玩家列表
-                .rankingMode(roomEntity != null ? roomEntity.getRankingMode() : "standard")
-                .targetScore(roomEntity != null ? roomEntity.getTargetScore() : null)
-                .winConditions(winConditions)
+                .hasPassword(settings.isHasPassword())
+                .rankingMode(settings.getRankingMode())
+                .targetScore(settings.getTargetScore())
+                .winConditions(settings.copyWinConditions())
                 .build();
     }
 
@@ -0,0 +1,33 @@
+package org.example.service.stats;
+
+import org.example.dto.PlayerRankDTO;
+import org.example.dto.PlayerStatsDTO;
+import org.example.pojo.GameRoom;
+
+import java.util.List;
+
+/**
+ * 玩家统计服务
+ * 游戏结束时用内存中的 GameRoom 增量更新累计值，个人主页只读聚合表
+ */
+public interface PlayerStatsService {
+
+    /**
+     * 游戏结束时累加本局数据（Bot 不统计）
+     * 在独立事务中原子累加，同一局重复调用只计一次；调用方应在游戏结果提交之后调用
+     * @param gameRoom 已结束的游戏房间
+     * @param leaderboard 本局最终排行榜
+     */
+    void recordGame(GameRoom gameRoom, List<PlayerRankDTO> leaderboard);
+
+    /**
+     * 读取玩家统计（没有记录时返回全 0）
+     */
+    PlayerStatsDTO getPlayerStats(String playerId);
+
+    /**
+     * 从历史游戏结果分批重建全部统计
+     * @return 参与重建的游戏场数
+     */
+    int rebuild();
+}
@@ -0,0 +1,206 @@
+package org.example.service.stats;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.entity.PlayerStatsEntity;
+import org.example.entity.PlayerStrategyStatsEntity;
+import org.example.repository.PlayerStatsRepository;
+import org.example.repository.PlayerStrategyStatsRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * 玩家统计写入
+ * 单局增量由数据库原子地累加到现有行上（不先读后写），并在同一事务中记下 gameId，同一局重复计入直接跳过
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PlayerStatsStore {
+
+    private static final int WRITE_BATCH_SIZE = 500;
+
+    private final PlayerStatsRepository playerStatsRepository;
+    private final PlayerStrategyStatsRepository strategyStatsRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 累加一局的增量（每个实体是该玩家 / 该玩家该策略在本局的增量）
+     * @return false 表示该游戏已计入过
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean recordGame(Long gameId, List<PlayerStatsEntity> players, List<PlayerStrategyStatsEntity> strategies) {
+        int inserted = jdbcTemplate.update(
+                "INSERT IGNORE INTO player_stats_games (game_id, recorded_at) VALUES (?, NOW(6))", gameId);
+        if (inserted == 0) {
+            return false;
+        }
+
+        // 按唯一键排序后写入，并发对局按相同顺序加行锁，减少死锁
+        List<PlayerStatsEntity> sortedPlayers = new ArrayList<>(players);
+        sortedPlayers.sort(Comparator.comparing(PlayerStatsEntity::getPlayerId));
+        List<PlayerStrategyStatsEntity> sortedStrategies = new ArrayList<>(strategies);
+        sortedStrategies.sort(Comparator.comparing(PlayerStrategyStatsEntity::getPlayerId)
+                .thenComparing(PlayerStrategyStatsEntity::getStrategyId));
+
+        upsertPlayers(sortedPlayers);
+        upsertStrategies(sortedStrategies);
+        mergeChoiceCounts(sortedStrategies.stream()
+                .filter(s -> s.getChoiceCountsJson() != null)
+                .collect(Collectors.toList()));
+        return true;
+    }
+
+    /**
+     * 用重建结果整体替换统计，并把参与重建的游戏记为已计入
+     * 清空和写入在同一个事务里，中途失败会整体回滚，读者在提交前一直看到旧统计
+     */
+    @Transactional
+    public void replaceAll(List<PlayerStatsEntity> players, List<PlayerStrategyStatsEntity> strategies, List<Long> gameIds) {
+        strategyStatsRepository.deleteAllInBatch();
+        playerStatsRepository.deleteAllInBatch();
+        jdbcTemplate.update("DELETE FROM player_stats_games");
+
+        saveInBatches(playerStatsRepository::saveAll, players);
+        saveInBatches(strategyStatsRepository::saveAll, strategies);
+        saveInBatches(batch -> jdbcTemplate.batchUpdate(
+                "INSERT INTO player_stats_games (game_id, recorded_at) VALUES (?, NOW(6))",
+                batch.stream().map(gameId -> new Object[]{gameId}).collect(Collectors.toList())), gameIds);
+    }
+
+    // ==================== 私有方法 ====================
+
+    /**
+     * 计数直接相加；最好 / 最差取 LEAST / GREATEST（两边都可能为 NULL，用 COALESCE 兜底）
+     * 最近一局只在本局结束时间不早于已记录的时间时替换（last_game_id 要在 last_played_at 之前赋值，MySQL 按顺序求值）
+     */
+    private void upsertPlayers(List<PlayerStatsEntity> players) {
+        if (players.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO player_stats (player_id, games_played, wins, total_score, rank_sum, best_score, " +
+                        "worst_score, best_rank, last_game_id, last_played_at, updated_at) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, NOW(6)) " +
+                        "ON DUPLICATE KEY UPDATE " +
+                        "games_played = games_played + ?, " +
+                        "wins = wins + ?, " +
+                        "total_score = total_score + ?, " +
+                        "rank_sum = rank_sum + ?, " +
+                        "best_score = COALESCE(GREATEST(best_score, ?), best_score, ?), " +
+                        "worst_score = COALESCE(LEAST(worst_score, ?), worst_score, ?), " +
+                        "best_rank = COALESCE(LEAST(best_rank, ?), best_rank, ?), " +
+                        "last_game_id = IF(last_played_at IS NULL OR ? >= last_played_at, ?, last_game_id), " +
+                        "last_played_at = IF(last_played_at IS NULL OR ? >= last_played_at, ?, last_played_at), " +
+                        "updated_at = NOW(6)",
+                players.stream().map(p -> new Object[]{
+                        p.getPlayerId(), p.getGamesPlayed(), p.getWins(), p.getTotalScore(), p.getRankSum(),
+                        p.getBestScore(), p.getWorstScore(), p.getBestRank(), p.getLastGameId(), p.getLastPlayedAt(),
+                        p.getGamesPlayed(),
+                        p.getWins(),
+                        p.getTotalScore(),
+                        p.getRankSum(),
+                        p.getBestScore(), p.getBestScore(),
+                        p.getWorstScore(), p.getWorstScore(),
+                        p.getBestRank(), p.getBestRank(),
+                        p.getLastPlayedAt(), p.getLastGameId(),
+                        p.getLastPlayedAt(), p.getLastPlayedAt()
+                }).collect(Collectors.toList()));
+    }
+
+    private void upsertStrategies(List<PlayerStrategyStatsEntity> strategies) {
+        if (strategies.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO player_strategy_stats (player_id, strategy_id, answers, score_sum, best_score, " +
+                        "worst_score, numeric_choice_sum, numeric_choice_count, updated_at) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, NOW(6)) " +
+                        "ON DUPLICATE KEY UPDATE " +
+                        "answers = answers + ?, " +
+                        "score_sum = score_sum + ?, " +
+                        "best_score = COALESCE(GREATEST(best_score, ?), best_score, ?), " +
+                        "worst_score = COALESCE(LEAST(worst_score, ?), worst_score, ?), " +
+                        "numeric_choice_sum = numeric_choice_sum + ?, " +
+                        "numeric_choice_count = numeric_choice_count + ?, " +
+                        "updated_at = NOW(6)",
+                strategies.stream().map(s -> new Object[]{
+                        s.getPlayerId(), s.getStrategyId(), s.getAnswers(), s.getScoreSum(), s.getBestScore(),
+                        s.getWorstScore(), s.getNumericChoiceSum(), s.getNumericChoiceCount(),
+                        s.getAnswers(),
+                        s.getScoreSum(),
+                        s.getBestScore(), s.getBestScore(),
+                        s.getWorstScore(), s.getWorstScore(),
+                        s.getNumericChoiceSum(),
+                        s.getNumericChoiceCount()
+                }).collect(Collectors.toList()));
+    }
+
+    /**
+     * 选项次数存为 JSON，无法在 SQL 里直接相加：
+     * 上一步的 upsert 已在本事务中锁住这些行，这里用当前读取出最新值，在内存中合并后写回
+     */
+    private void mergeChoiceCounts(List<PlayerStrategyStatsEntity> strategies) {
+        if (strategies.isEmpty()) {
+            return;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(strategies.size(), "(?, ?)"));
+        Object[] args = strategies.stream()
+                .flatMap(s -> List.<Object>of(s.getPlayerId(), s.getStrategyId()).stream())
+                .toArray();
+        Map<String, String> current = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT player_id, strategy_id, choice_counts_json FROM player_strategy_stats " +
+                        "WHERE (player_id, strategy_id) IN (" + placeholders + ") FOR UPDATE",
+                rs -> {
+                    current.put(rs.getString(1) + "|" + rs.getString(2), rs.getString(3));
+                },
+                args);
+
+        List<Object[]> updates = new ArrayList<>();
+        for (PlayerStrategyStatsEntity strategy : strategies) {
+            Map<String, Integer> merged = parse(current.get(strategy.getPlayerId() + "|" + strategy.getStrategyId()));
+            parse(strategy.getChoiceCountsJson()).forEach((choice, count) -> merged.merge(choice, count, Integer::sum));
+            try {
+                updates.add(new Object[]{objectMapper.writeValueAsString(merged), strategy.getPlayerId(), strategy.getStrategyId()});
+            } catch (Exception e) {
+                log.warn("⚠️ 序列化选项统计失败: {}", strategy.getStrategyId());
+            }
+        }
+        jdbcTemplate.batchUpdate(
+                "UPDATE player_strategy_stats SET choice_counts_json = ? WHERE player_id = ? AND strategy_id = ?",
+                updates);
+    }
+
+    private Map<String, Integer> parse(String json) {
+        if (json == null) {
+            return new LinkedHashMap<>();
+        }
+        try {
+            return objectMapper.readValue(json, new TypeReference<LinkedHashMap<String, Integer>>() {});
+        } catch (Exception e) {
+            return new LinkedHashMap<>();
+        }
+    }
+
+    private static <T> void saveInBatches(Consumer<List<T>> saver, List<T> items) {
+        for (int from = 0; from < items.size(); from += WRITE_BATCH_SIZE) {
+            saver.accept(items.subList(from, Math.min(items.size(), from + WRITE_BATCH_SIZE)));
+        }
+    }
+}
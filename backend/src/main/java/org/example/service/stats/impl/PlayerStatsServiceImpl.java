@@ -0,0 +1,383 @@
+package org.example.service.stats.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.PlayerRankDTO;
+import org.example.dto.PlayerStatsDTO;
+import org.example.dto.PlayerSubmissionDTO;
+import org.example.dto.QuestionDTO;
+import org.example.dto.QuestionDetailDTO;
+import org.example.entity.GameResultEntity;
+import org.example.entity.PlayerStatsEntity;
+import org.example.entity.PlayerStrategyStatsEntity;
+import org.example.exception.BusinessException;
+import org.example.pojo.GameRoom;
+import org.example.repository.GameResultRepository;
+import org.example.repository.PlayerStatsRepository;
+import org.example.repository.PlayerStrategyStatsRepository;
+import org.example.service.history.QuestionDetailsCodec;
+import org.example.service.stats.PlayerStatsService;
+import org.example.service.stats.PlayerStatsStore;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 玩家统计服务实现
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PlayerStatsServiceImpl implements PlayerStatsService {
+
+    private static final int REBUILD_BATCH_SIZE = 200;
+    private static final int RECORD_MAX_ATTEMPTS = 3;
+    // 重建替换完成后，向前回看这么久补录新结束的游戏（覆盖扫描开始前已开始、之后才提交的事务）
+    private static final Duration CATCH_UP_MARGIN = Duration.ofMinutes(5);
+
+    private final PlayerStatsRepository playerStatsRepository;
+    private final PlayerStrategyStatsRepository strategyStatsRepository;
+    private final PlayerStatsStore playerStatsStore;
+    private final GameResultRepository gameResultRepository;
+    private final QuestionDetailsCodec questionDetailsCodec;
+    private final ObjectMapper objectMapper;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+
+    @Override
+    public void recordGame(GameRoom gameRoom, List<PlayerRankDTO> leaderboard) {
+        // 1️⃣ 对局汇总
+        Map<String, PlayerStatsEntity> statsByPlayer = new HashMap<>();
+        LocalDateTime endTime = LocalDateTime.now();
+        applyLeaderboard(leaderboard, gameRoom.getGameId(), endTime, statsByPlayer);
+        if (statsByPlayer.isEmpty()) {
+            return;
+        }
+
+        // 2️⃣ 按计分策略汇总（直接读内存中的提交和得分）
+        Map<String, StrategyAccumulator> strategies = new HashMap<>();
+        List<QuestionDTO> questions = gameRoom.getQuestions() != null ? gameRoom.getQuestions() : Collections.emptyList();
+        for (int i = 0; i < questions.size(); i++) {
+            String strategyId = questions.get(i).getStrategyId();
+            Map<String, String> submissions = gameRoom.getSubmissions().get(i);
+            if (strategyId == null || submissions == null) {
+                continue;
+            }
+            Map<String, GameRoom.QuestionScoreDetail> scores =
+                    gameRoom.getQuestionScores().getOrDefault(i, Collections.emptyMap());
+            for (Map.Entry<String, String> submission : submissions.entrySet()) {
+                String playerId = submission.getKey();
+                if (!statsByPlayer.containsKey(playerId)) {
+                    continue;
+                }
+                GameRoom.QuestionScoreDetail detail = scores.get(playerId);
+                strategies.computeIfAbsent(strategyKey(playerId, strategyId),
+                                key -> newAccumulator(playerId, strategyId))
+                        .add(submission.getValue(), detail != null ? detail.getFinalScore() : null);
+            }
+        }
+
+        // 3️⃣ 增量原子累加；并发对局死锁时整局重试（已计入的 gameId 随事务回滚，重试不会重复累加）
+        List<PlayerStatsEntity> players = new ArrayList<>(statsByPlayer.values());
+        List<PlayerStrategyStatsEntity> strategyDeltas = toEntities(strategies.values());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                if (playerStatsStore.recordGame(gameRoom.getGameId(), players, strategyDeltas)) {
+                    log.info("📈 游戏 {} 玩家统计已更新，玩家数: {}", gameRoom.getGameId(), players.size());
+                } else {
+                    log.debug("游戏 {} 已计入玩家统计，跳过", gameRoom.getGameId());
+                }
+                return;
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt >= RECORD_MAX_ATTEMPTS) {
+                    throw e;
+                }
+                log.warn("⚠️ 游戏 {} 玩家统计写入锁冲突，重试第 {} 次", gameRoom.getGameId(), attempt);
+            }
+        }
+    }
+
+    @Override
+    public PlayerStatsDTO getPlayerStats(String playerId) {
+        PlayerStatsEntity stats = playerStatsRepository.findByPlayerId(playerId)
+                .orElseGet(() -> PlayerStatsEntity.builder().playerId(playerId).build());
+
+        List<PlayerStatsDTO.StrategyStats> strategies = new ArrayList<>();
+        for (PlayerStrategyStatsEntity entity : strategyStatsRepository.findByPlayerIdOrderByStrategyIdAsc(playerId)) {
+            strategies.add(PlayerStatsDTO.StrategyStats.builder()
+                    .strategyId(entity.getStrategyId())
+                    .answers(entity.getAnswers())
+                    .averageScore(average(entity.getScoreSum(), entity.getAnswers()))
+                    .bestScore(entity.getBestScore())
+                    .worstScore(entity.getWorstScore())
+                    .averageNumericChoice(entity.getNumericChoiceCount() > 0
+                            ? entity.getNumericChoiceSum() / entity.getNumericChoiceCount() : null)
+                    .choiceCounts(parseChoiceCounts(entity.getChoiceCountsJson()))
+                    .build());
+        }
+
+        int games = stats.getGamesPlayed();
+        return PlayerStatsDTO.builder()
+                .playerId(playerId)
+                .gamesPlayed(games)
+                .wins(stats.getWins())
+                .winRate(games > 0 ? (double) stats.getWins() / games : null)
+                .totalScore(stats.getTotalScore())
+                .averageScore(average(stats.getTotalScore(), games))
+                .bestScore(stats.getBestScore())
+                .worstScore(stats.getWorstScore())
+                .bestRank(stats.getBestRank())
+                .averageRank(average(stats.getRankSum(), games))
+                .lastPlayedAt(stats.getLastPlayedAt())
+                .strategies(strategies)
+                .build();
+    }
+
+    @Override
+    public int rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new BusinessException("玩家统计正在重建中");
+        }
+        try {
+            return doRebuild();
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    // ==================== 私有方法 ====================
+
+    /**
+     * 按主键分批读取正式游戏结果，在内存中按玩家累加（内存占用与玩家数成正比，与场次无关），再整体替换
+     * 扫描到替换之间实时计入的游戏会被覆盖，替换完成后按创建时间补录一遍（已计入的 gameId 自动跳过）
+     */
+    private int doRebuild() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        Map<String, PlayerStatsEntity> statsByPlayer = new HashMap<>();
+        Map<String, StrategyAccumulator> strategies = new HashMap<>();
+        List<Long> gameIds = new ArrayList<>();
+
+        long lastId = 0L;
+        while (true) {
+            List<GameResultEntity> batch = gameResultRepository.findNonTestBatchAfterId(
+                    lastId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (GameResultEntity result : batch) {
+                lastId = result.getId();
+                try {
+                    accumulate(result, statsByPlayer, strategies);
+                    gameIds.add(result.getGame().getId());
+                } catch (Exception e) {
+                    log.warn("⚠️ 解析游戏结果失败，跳过: resultId={}", result.getId());
+                }
+            }
+            log.info("📈 玩家统计重建进度: 已处理到 resultId={}, 累计 {} 场", lastId, gameIds.size());
+        }
+
+        playerStatsStore.replaceAll(new ArrayList<>(statsByPlayer.values()), toEntities(strategies.values()), gameIds);
+
+        int caughtUp = catchUp(startedAt.minus(CATCH_UP_MARGIN));
+        log.info("✅ 玩家统计重建完成: {} 场（补录 {} 场）, {} 名玩家", gameIds.size() + caughtUp, caughtUp, statsByPlayer.size());
+        return gameIds.size() + caughtUp;
+    }
+
+    /**
+     * 补录 since 之后创建的游戏结果；已计入的 gameId 由 PlayerStatsStore 跳过
+     */
+    private int catchUp(LocalDateTime since) {
+        int recorded = 0;
+        long lastId = 0L;
+        while (true) {
+            List<GameResultEntity> batch = gameResultRepository.findNonTestBatchCreatedSince(
+                    since, lastId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            if (batch.isEmpty()) {
+                return recorded;
+            }
+            for (GameResultEntity result : batch) {
+                lastId = result.getId();
+                Map<String, PlayerStatsEntity> statsByPlayer = new HashMap<>();
+                Map<String, StrategyAccumulator> strategies = new HashMap<>();
+                try {
+                    accumulate(result, statsByPlayer, strategies);
+                } catch (Exception e) {
+                    log.warn("⚠️ 解析游戏结果失败，跳过: resultId={}", result.getId());
+                    continue;
+                }
+                if (!statsByPlayer.isEmpty() && playerStatsStore.recordGame(result.getGame().getId(),
+                        new ArrayList<>(statsByPlayer.values()), toEntities(strategies.values()))) {
+                    recorded++;
+                }
+            }
+        }
+    }
+
+    /**
+     * 解析失败时抛出异常，不修改累加器
+     */
+    private void accumulate(GameResultEntity result,
+                            Map<String, PlayerStatsEntity> statsByPlayer,
+                            Map<String, StrategyAccumulator> strategies) throws Exception {
+        List<PlayerRankDTO> leaderboard = objectMapper.readValue(
+                result.getLeaderboardJson(), new TypeReference<List<PlayerRankDTO>>() {});
+        List<QuestionDetailDTO> details = readDetails(result);
+        Long gameId = result.getGame().getId();
+        LocalDateTime endTime = result.getGame().getEndTime() != null
+                ? result.getGame().getEndTime() : result.getCreatedAt();
+
+        applyLeaderboard(leaderboard, gameId, endTime, statsByPlayer);
+
+        // 旧数据没有记录策略ID，只统计对局汇总
+        for (QuestionDetailDTO detail : details) {
+            String strategyId = detail.getStrategyId();
+            if (strategyId == null || detail.getPlayerSubmissions() == null) {
+                continue;
+            }
+            for (PlayerSubmissionDTO submission : detail.getPlayerSubmissions()) {
+                String playerId = submission.getPlayerId();
+                if (playerId == null || playerId.startsWith("BOT_")) {
+                    continue;
+                }
+                strategies.computeIfAbsent(strategyKey(playerId, strategyId),
+                                key -> newAccumulator(playerId, strategyId))
+                        .add(submission.getChoice(), submission.getFinalScore());
+            }
+        }
+    }
+
+    /**
+     * Bot 不统计
+     */
+    private static void applyLeaderboard(List<PlayerRankDTO> leaderboard, Long gameId, LocalDateTime endTime,
+                                         Map<String, PlayerStatsEntity> statsByPlayer) {
+        for (PlayerRankDTO player : leaderboard) {
+            if (player.getPlayerId() == null || player.getPlayerId().startsWith("BOT_")) {
+                continue;
+            }
+            applyGame(statsByPlayer.computeIfAbsent(player.getPlayerId(),
+                    id -> PlayerStatsEntity.builder().playerId(id).build()), player, gameId, endTime);
+        }
+    }
+
+    private List<QuestionDetailDTO> readDetails(GameResultEntity result) throws Exception {
+        if (result.getQuestionDetailsBlob() != null) {
+            return questionDetailsCodec.decodeAll(result.getQuestionDetailsBlob());
+        }
+        if (result.getQuestionDetailsJson() != null) {
+            return objectMapper.readValue(result.getQuestionDetailsJson(),
+                    new TypeReference<List<QuestionDetailDTO>>() {});
+        }
+        return Collections.emptyList();
+    }
+
+    private static void applyGame(PlayerStatsEntity stats, PlayerRankDTO player, Long gameId, LocalDateTime endTime) {
+        int score = player.getTotalScore() != null ? player.getTotalScore() : 0;
+        int rank = player.getRank() != null ? player.getRank() : 0;
+
+        stats.setGamesPlayed(stats.getGamesPlayed() + 1);
+        stats.setTotalScore(stats.getTotalScore() + score);
+        stats.setRankSum(stats.getRankSum() + rank);
+        if (rank == 1) {
+            stats.setWins(stats.getWins() + 1);
+        }
+        stats.setBestScore(stats.getBestScore() == null ? score : Math.max(stats.getBestScore(), score));
+        stats.setWorstScore(stats.getWorstScore() == null ? score : Math.min(stats.getWorstScore(), score));
+        if (rank > 0) {
+            stats.setBestRank(stats.getBestRank() == null ? rank : Math.min(stats.getBestRank(), rank));
+        }
+        if (stats.getLastPlayedAt() == null || !endTime.isBefore(stats.getLastPlayedAt())) {
+            stats.setLastPlayedAt(endTime);
+            stats.setLastGameId(gameId);
+        }
+    }
+
+    private List<PlayerStrategyStatsEntity> toEntities(Iterable<StrategyAccumulator> accumulators) {
+        List<PlayerStrategyStatsEntity> entities = new ArrayList<>();
+        for (StrategyAccumulator accumulator : accumulators) {
+            if (!accumulator.dirty) {
+                continue;
+            }
+            try {
+                accumulator.entity.setChoiceCountsJson(accumulator.choiceCounts.isEmpty()
+                        ? null : objectMapper.writeValueAsString(accumulator.choiceCounts));
+            } catch (Exception e) {
+                log.warn("⚠️ 序列化选项统计失败: {}", accumulator.entity.getStrategyId());
+            }
+            entities.add(accumulator.entity);
+        }
+        return entities;
+    }
+
+    private Map<String, Integer> parseChoiceCounts(String json) {
+        if (json == null) {
+            return new LinkedHashMap<>();
+        }
+        try {
+            return objectMapper.readValue(json, new TypeReference<LinkedHashMap<String, Integer>>() {});
+        } catch (Exception e) {
+            return new LinkedHashMap<>();
+        }
+    }
+
+    private static Double average(long sum, int count) {
+        return count > 0 ? (double) sum / count : null;
+    }
+
+    private StrategyAccumulator newAccumulator(String playerId, String strategyId) {
+        return new StrategyAccumulator(PlayerStrategyStatsEntity.builder()
+                .playerId(playerId)
+                .strategyId(strategyId)
+                .build());
+    }
+
+    private static String strategyKey(String playerId, String strategyId) {
+        return playerId + "|" + strategyId;
+    }
+
+    /**
+     * 策略统计累加器：选项次数先在内存中累加，写库时才序列化
+     */
+    private final class StrategyAccumulator {
+        final PlayerStrategyStatsEntity entity;
+        final Map<String, Integer> choiceCounts;
+        boolean dirty;
+
+        StrategyAccumulator(PlayerStrategyStatsEntity entity) {
+            this.entity = entity;
+            this.choiceCounts = parseChoiceCounts(entity.getChoiceCountsJson());
+        }
+
+        void add(String choice, Integer finalScore) {
+            dirty = true;
+            entity.setAnswers(entity.getAnswers() + 1);
+            if (finalScore != null) {
+                entity.setScoreSum(entity.getScoreSum() + finalScore);
+                entity.setBestScore(entity.getBestScore() == null ? finalScore : Math.max(entity.getBestScore(), finalScore));
+                entity.setWorstScore(entity.getWorstScore() == null ? finalScore : Math.min(entity.getWorstScore(), finalScore));
+            }
+            if (choice == null) {
+                return;
+            }
+            try {
+                double value = Double.parseDouble(choice);
+                entity.setNumericChoiceSum(entity.getNumericChoiceSum() + value);
+                entity.setNumericChoiceCount(entity.getNumericChoiceCount() + 1);
+            } catch (NumberFormatException e) {
+                choiceCounts.merge(choice, 1, Integer::sum);
+            }
+        }
+    }
+}
@@ -10,11 +10,6 @@ import java.util.Map;
  */
 public interface QuestionTagService {
 
-    /**
-     * 初始化标签数据（从question-tags.json）
-     */
-    void initializeTagsFromJson();
-
     /**
      * 获取所有标签
      */
@@ -1,8 +1,6 @@
 package org.example.service.tag.impl;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.dto.TagDTO;
@@ -10,14 +8,12 @@ import org.example.entity.QuestionTagEntity;
 import org.example.entity.QuestionTagRelationEntity;
 import org.example.repository.QuestionTagRelationRepository;
 import org.example.repository.QuestionTagRepository;
+import org.example.service.question.QuestionCatalog;
 import org.example.service.tag.QuestionTagService;
-import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.IOException;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * 题目标签服务实现
@@ -30,90 +26,21 @@ public class QuestionTagServiceImpl implements QuestionTagService {
     private final QuestionTagRepository tagRepository;
     private final QuestionTagRelationRepository relationRepository;
     private final ObjectMapper objectMapper;
-
-    /**
-     * 应用启动时自动初始化标签数据
-     */
-    @PostConstruct
-    @Transactional
-    public void initializeTagsFromJson() {
-        // 如果数据库已有数据，跳过初始化
-        if (tagRepository.count() > 0) {
-            log.info("✅ 标签数据已存在，跳过初始化");
-            return;
-        }
-
-        log.info("📝 开始从 question-tags.json 初始化标签数据");
-
-        try {
-            ClassPathResource resource = new ClassPathResource("question-tags.json");
-            Map<String, Object> data = objectMapper.readValue(
-                    resource.getInputStream(),
-                    new TypeReference<Map<String, Object>>() {}
-            );
-
-            // 1. 初始化标签
-            List<Map<String, Object>> tagList = (List<Map<String, Object>>) data.get("tags");
-            List<QuestionTagEntity> tags = tagList.stream()
-                    .map(tagData -> QuestionTagEntity.builder()
-                            .id(((Number) tagData.get("id")).longValue())
-                            .name((String) tagData.get("name"))
-                            .category((String) tagData.get("category"))
-                            .color((String) tagData.get("color"))
-                            .build())
-                    .toList();
-            tagRepository.saveAll(tags);
-            log.info("✅ 保存了 {} 个标签", tags.size());
-
-            // 2. 初始化题目-标签关联
-            List<Map<String, Object>> mappings = (List<Map<String, Object>>) data.get("questionTagMappings");
-            List<QuestionTagRelationEntity> relations = new ArrayList<>();
-
-            for (Map<String, Object> mapping : mappings) {
-                Long questionId = ((Number) mapping.get("questionId")).longValue();
-                List<Number> tagIds = (List<Number>) mapping.get("tagIds");
-
-                for (Number tagId : tagIds) {
-                    relations.add(QuestionTagRelationEntity.builder()
-                            .questionId(questionId)
-                            .tagId(tagId.longValue())
-                            .build());
-                }
-            }
-
-            relationRepository.saveAll(relations);
-            log.info("✅ 保存了 {} 个题目-标签关联", relations.size());
-
-        } catch (IOException e) {
-            log.error("❌ 初始化标签数据失败", e);
-            throw new RuntimeException("初始化标签数据失败", e);
-        }
-    }
+    private final QuestionCatalog questionCatalog;
 
     @Override
     public List<TagDTO> getAllTags() {
-        return tagRepository.findAll().stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        return questionCatalog.current().getTags();
     }
 
     @Override
     public Map<String, List<TagDTO>> getTagsByCategory() {
-        return tagRepository.findAll().stream()
-                .map(this::toDTO)
-                .collect(Collectors.groupingBy(TagDTO::getCategory));
+        return questionCatalog.current().getTagsByCategory();
     }
 
     @Override
     public List<TagDTO> getTagsByQuestionId(Long questionId) {
-        List<Long> tagIds = relationRepository.findTagIdsByQuestionId(questionId);
-        if (tagIds.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        return tagRepository.findAllById(tagIds).stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        return questionCatalog.current().tagsOf(questionId);
     }
 
     @Override
@@ -122,30 +49,15 @@ public class QuestionTagServiceImpl implements QuestionTagService {
             return Collections.emptyMap();
         }
 
-        // 1. 批量查询关联关系
-        List<QuestionTagRelationEntity> relations = relationRepository.findByQuestionIdIn(questionIds);
-
-        // 2. 提取所有tagId并批量查询标签
-        Set<Long> tagIds = relations.stream()
-                .map(QuestionTagRelationEntity::getTagId)
-                .collect(Collectors.toSet());
-
-        Map<Long, TagDTO> tagMap = tagRepository.findAllById(tagIds).stream()
-                .collect(Collectors.toMap(
-                        QuestionTagEntity::getId,
-                        this::toDTO
-                ));
-
-        // 3. 构建 questionId -> List<TagDTO> 的映射
+        // 🔥 直接读题库快照中的 题目 -> 标签 映射，不查库
+        QuestionCatalog.Snapshot catalog = questionCatalog.current();
         Map<Long, List<TagDTO>> result = new HashMap<>();
-        for (QuestionTagRelationEntity relation : relations) {
-            TagDTO tag = tagMap.get(relation.getTagId());
-            if (tag != null) {
-                result.computeIfAbsent(relation.getQuestionId(), k -> new ArrayList<>())
-                        .add(tag);
+        for (Long questionId : questionIds) {
+            List<TagDTO> tags = catalog.tagsOf(questionId);
+            if (!tags.isEmpty()) {
+                result.put(questionId, tags);
             }
         }
-
         return result;
     }
 
@@ -161,25 +73,22 @@ public class QuestionTagServiceImpl implements QuestionTagService {
                 .build();
         QuestionTagEntity saved = tagRepository.save(entity);
         log.info("✅ 创建标签: {} (category={})", name, category);
+        // 共享的题目 DTO 不含标签，不需要作废
+        questionCatalog.publishChange(List.of());
         return toDTO(saved);
     }
 
     @Override
     @Transactional
     public void deleteTag(Long tagId) {
-        // 先删除所有关联
-        List<QuestionTagRelationEntity> relations = relationRepository.findByQuestionIdIn(
-                Collections.emptyList()  // 这里需要查所有
-        ).stream()
-                .filter(r -> r.getTagId().equals(tagId))
-                .toList();
-
-        relationRepository.deleteAll(relations);
-        log.info("🗑️ 删除了 {} 个题目-标签关联", relations.size());
+        // 🔥 先批量删除所有关联（一条语句），再删除标签
+        int removed = relationRepository.deleteByTagId(tagId);
+        log.info("🗑️ 删除了 {} 个题目-标签关联", removed);
 
-        // 删除标签
         tagRepository.deleteById(tagId);
         log.info("✅ 删除标签: id={}", tagId);
+        // 共享的题目 DTO 不含标签，不需要作废
+        questionCatalog.publishChange(List.of());
     }
 
     @Override
@@ -200,6 +109,7 @@ public class QuestionTagServiceImpl implements QuestionTagService {
                 .build();
         relationRepository.save(relation);
         log.info("✅ 添加标签关联: questionId={}, tagId={}", questionId, tagId);
+        questionCatalog.publishChange(List.of(questionId));
     }
 
     @Override
@@ -209,14 +119,17 @@ public class QuestionTagServiceImpl implements QuestionTagService {
                 new QuestionTagRelationEntity.QuestionTagRelationId(questionId, tagId);
         relationRepository.deleteById(id);
         log.info("✅ 移除标签关联: questionId={}, tagId={}", questionId, tagId);
+        questionCatalog.publishChange(List.of(questionId));
     }
 
     @Override
     public String exportTagsToJson() {
         try {
-            // 1. 获取所有标签
-            List<QuestionTagEntity> tags = tagRepository.findAll();
-            List<Map<String, Object>> tagList = tags.stream()
+            // 🔥 从题库快照导出，不再全表读取标签和关联
+            QuestionCatalog.Snapshot catalog = questionCatalog.current();
+
+            // 1. 所有标签
+            List<Map<String, Object>> tagList = catalog.getTags().stream()
                     .map(tag -> {
                         Map<String, Object> map = new HashMap<>();
                         map.put("id", tag.getId());
@@ -227,19 +140,13 @@ public class QuestionTagServiceImpl implements QuestionTagService {
                     })
                     .toList();
 
-            // 2. 获取所有关联
-            List<QuestionTagRelationEntity> relations = relationRepository.findAll();
-            Map<Long, List<Long>> questionTagMap = new HashMap<>();
-            for (QuestionTagRelationEntity relation : relations) {
-                questionTagMap.computeIfAbsent(relation.getQuestionId(), k -> new ArrayList<>())
-                        .add(relation.getTagId());
-            }
-
-            List<Map<String, Object>> mappings = questionTagMap.entrySet().stream()
-                    .map(entry -> {
+            // 2. 所有关联（按题目）
+            List<Map<String, Object>> mappings = catalog.getQuestions().stream()
+                    .filter(question -> !question.getTagIds().isEmpty())
+                    .map(question -> {
                         Map<String, Object> map = new HashMap<>();
-                        map.put("questionId", entry.getKey());
-                        map.put("tagIds", entry.getValue());
+                        map.put("questionId", question.getId());
+                        map.put("tagIds", question.getTagIds().stream().sorted().toList());
                         return map;
                     })
                     .toList();
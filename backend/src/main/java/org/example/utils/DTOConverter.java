@@ -14,7 +14,12 @@ import org.example.repository.BidQuestionConfigRepository;
 import org.example.repository.ChoiceQuestionConfigRepository;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * DTO 转换工具类
@@ -31,6 +36,9 @@ public class DTOConverter {
     private final ChoiceQuestionConfigRepository choiceConfigRepo;
     private final BidQuestionConfigRepository bidConfigRepo;
 
+    // 🔥 题目 DTO 缓存：questionId → 共享的只读 QuestionDTO，所有房间引用同一个实例
+    private final Map<Long, QuestionDTO> questionCache = new ConcurrentHashMap<>();
+
     /**
      * QuestionEntity → QuestionDTO（不带配置）
      */
@@ -100,6 +108,50 @@ public class DTOConverter {
         return dto;
     }
 
+    /**
+     * 共享的只读 QuestionDTO（带配置），同一题目只解析一次
+     * 返回的实例会被多个房间共用，调用方不要修改；需要补充字段时先 toBuilder() 复制
+     * 只由 QuestionCatalog 在加载锁内调用：作废和填充都在锁内，锁外读到的旧实体不会在作废后被放回缓存
+     */
+    public QuestionDTO toSharedQuestionDTO(QuestionEntity entity) {
+        if (entity == null) {
+            return null;
+        }
+        return questionCache.computeIfAbsent(entity.getId(), id -> freeze(toQuestionDTOWithConfig(entity)));
+    }
+
+    /**
+     * 只读 QuestionDTO：已缓存的直接复用，未缓存的现场转换但不放入缓存（题库快照之外的读路径用）
+     */
+    public QuestionDTO toReadOnlyQuestionDTO(QuestionEntity entity) {
+        if (entity == null) {
+            return null;
+        }
+        QuestionDTO cached = questionCache.get(entity.getId());
+        return cached != null ? cached : freeze(toQuestionDTOWithConfig(entity));
+    }
+
+    /**
+     * 已缓存的共享 QuestionDTO（未缓存返回 null，不查库）
+     */
+    public QuestionDTO findSharedQuestionDTO(Long questionId) {
+        return questionId != null ? questionCache.get(questionId) : null;
+    }
+
+    /**
+     * 题目被修改 / 删除后移除对应缓存
+     */
+    public void evictQuestionDTOs(Collection<Long> questionIds) {
+        questionIds.forEach(questionCache::remove);
+    }
+
+    /**
+     * 清空题目缓存（批量变更或其他节点修改了题库时使用）
+     */
+    public void clearQuestionDTOCache() {
+        questionCache.clear();
+    }
+
     /**
      * PlayerEntity → PlayerDTO
      */
@@ -122,6 +174,19 @@ public class DTOConverter {
                 .build();
     }
 
+    /**
+     * 共享实例里的列表改为只读，防止某个房间误改影响其他房间
+     */
+    private QuestionDTO freeze(QuestionDTO dto) {
+        if (dto.getOptions() != null) {
+            dto.setOptions(Collections.unmodifiableList(new ArrayList<>(dto.getOptions())));
+        }
+        if (dto.getTags() != null) {
+            dto.setTags(Collections.unmodifiableList(new ArrayList<>(dto.getTags())));
+        }
+        return dto;
+    }
+
     /**
      * 解析 optionsJson 为 QuestionOption 列表
      */
@@ -1,160 +1,288 @@
 package org.example.utils;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import jakarta.annotation.PostConstruct;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.dto.QuestionDTO;
-import org.example.entity.*;
-import org.example.repository.*;
+import org.example.entity.QuestionType;
+import org.example.entity.SeedStateEntity;
+import org.example.repository.QuestionRepository;
+import org.example.repository.QuestionTagRepository;
+import org.example.repository.SeedStateRepository;
+import org.example.service.question.QuestionBatchWriter;
+import org.example.service.question.QuestionCatalog;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * 种子数据加载（questions.json / question-tags.json）
+ *
+ * 应用启动完成后在后台执行，不阻塞启动：
+ * 1. 先计算文件的 SHA-256，与 seed_state 中的记录一致就直接跳过（不解析文件、不查表）
+ * 2. 需要导入时流式解析，题目按批用 JDBC 批量写入
+ * 3. 数据库已有数据时不会覆盖（管理员可能改过），只记录校验和
+ * 题目、标签和校验和记录在同一个事务里提交：中途失败整体回滚，不会留下"有一半题目、校验和却已记录"的状态
+ * 加载成功前 isReady() 为 false，开局选题会提示稍后再试；失败后隔一段时间重试，多次失败保持未就绪
+ */
 @Component
 @Slf4j
 @RequiredArgsConstructor
 public class QuestionDataInitializer {
+
+    private static final String QUESTIONS_SEED = "questions";
+    private static final String TAGS_SEED = "question-tags";
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final Duration RETRY_DELAY = Duration.ofMinutes(1);
+
     private final QuestionRepository questionRepository;
-    private final ChoiceQuestionConfigRepository choiceConfigRepository;
-    private final BidQuestionConfigRepository bidConfigRepository;
-    private final QuestionMetadataRepository metadataRepository;
+    private final QuestionTagRepository tagRepository;
+    private final SeedStateRepository seedStateRepository;
+    private final QuestionBatchWriter questionBatchWriter;
+    private final JdbcTemplate jdbcTemplate;
     private final ObjectMapper objectMapper;  // ✅ 注入全局 ObjectMapper
+    private final QuestionCatalog questionCatalog;
+    private final TaskScheduler taskScheduler;
+    private final TransactionTemplate transactionTemplate;
 
-    @PostConstruct
-    @Transactional
-    public void init() {
-        try {
-            if (questionRepository.count() > 0) {
-                log.info("数据库中已有题目，跳过初始化");
-                return;
-            }
-
-            log.info("开始初始化题目数据...");
+    private volatile boolean ready = false;
 
-            InputStream is = getClass().getResourceAsStream("/questions.json");
-            if (is == null) {
-                throw new FileNotFoundException("questions.json not found in classpath");
-            }
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        taskScheduler.schedule(() -> loadSeeds(1), Instant.now());
+    }
 
-            List<QuestionDTO> dtos = objectMapper.readValue(is, new TypeReference<>() {});
-            log.info("从 questions.json 读取到 {} 道题目", dtos.size());
-            System.out.println(dtos);
+    /**
+     * 种子数据是否已处理完（无论是否需要导入）
+     */
+    public boolean isReady() {
+        return ready;
+    }
 
-            int successCount = 0;
-            for (QuestionDTO dto : dtos) {
+    private void loadSeeds(int attempt) {
+        long start = System.currentTimeMillis();
+        try {
+            boolean changed = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
                 try {
-                    saveQuestion(dto);
-                    successCount++;
-                } catch (Exception e) {
-                    log.error("保存题目失败: id={}, text={}", dto.getId(), dto.getText(), e);
+                    // 题目先导入，标签关联需要用到 种子ID -> 数据库ID 的映射
+                    Map<Long, Long> questionIdMapping = seedQuestions();
+                    boolean tagsLoaded = seedTags(questionIdMapping);
+                    return questionIdMapping != null || tagsLoaded;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
+            }));
+
+            if (changed) {
+                questionCatalog.publishChange();
             }
+            ready = true;
+            log.info("✅ 种子数据检查完成，耗时 {}ms", System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            // 事务已回滚，重试会从头导入
+            if (attempt < MAX_ATTEMPTS) {
+                log.error("❌ 种子数据加载失败（第 {} 次），{} 秒后重试", attempt, RETRY_DELAY.toSeconds(), e);
+                taskScheduler.schedule(() -> loadSeeds(attempt + 1), Instant.now().plus(RETRY_DELAY));
+            } else {
+                log.error("❌ 种子数据加载失败（第 {} 次），题库保持未就绪，请检查种子文件后重启", attempt, e);
+            }
+        }
+    }
 
-            log.info("题目初始化完成! 成功导入 {}/{} 道题目", successCount, dtos.size());
+    // ==================== 题目 ====================
 
-        } catch (IOException e) {
-            log.error("读取 questions.json 失败", e);
-            throw new RuntimeException("题目初始化失败", e);
+    /**
+     * @return 本次导入时返回 种子中的题目ID -> 数据库ID；未导入返回 null
+     */
+    private Map<Long, Long> seedQuestions() throws IOException {
+        ClassPathResource resource = new ClassPathResource("questions.json");
+        if (!resource.exists()) {
+            log.warn("⚠️ questions.json 不存在，跳过题目初始化");
+            return null;
         }
-    }
 
-    private void saveQuestion(QuestionDTO dto) throws IOException {
-        log.debug("正在保存题目: id={}, type={}, strategyId={}", dto.getId(), dto.getType(), dto.getStrategyId());
+        String checksum = checksum(resource);
+        if (!needsSeeding(QUESTIONS_SEED, checksum, questionRepository.count())) {
+            return null;
+        }
 
-        // 1. 创建并保存 QuestionEntity
-        QuestionEntity entity = QuestionEntity.builder()
-                .type(dto.getType())
-                .text(dto.getText())
-                .calculateRule(dto.getCalculateRule())
-                .strategyId(dto.getStrategyId())
-                .minPlayers(dto.getMinPlayers())
-                .maxPlayers(dto.getMaxPlayers())
-                .defaultChoice(dto.getDefaultChoice())
-                .hasMetadata(false)
-                .build();
+        log.info("开始初始化题目数据...");
+        Map<Long, Long> idMapping = new HashMap<>();
+        long imported = 0;
+        try (InputStream is = resource.getInputStream();
+             MappingIterator<QuestionDTO> iterator = objectMapper.readerFor(QuestionDTO.class).readValues(is)) {
+            List<QuestionDTO> batch = new ArrayList<>(BATCH_SIZE);
+            while (iterator.hasNextValue()) {
+                batch.add(normalize(iterator.nextValue()));
+                if (batch.size() >= BATCH_SIZE) {
+                    imported += writeQuestions(batch, idMapping);
+                }
+            }
+            imported += writeQuestions(batch, idMapping);
+        }
 
-        QuestionEntity savedEntity = questionRepository.save(entity);
-        log.debug("QuestionEntity 保存成功, 数据库ID={}", savedEntity.getId());
+        saveState(QUESTIONS_SEED, checksum, imported, true);
+        log.info("题目初始化完成! 成功导入 {} 道题目", imported);
+        return idMapping;
+    }
 
-        // 2. 根据题目类型保存对应配置
-        if (dto.getType() == QuestionType.CHOICE) {
-            saveChoiceConfig(savedEntity, dto);
-        } else if (dto.getType() == QuestionType.BID) {
-            saveBidConfig(savedEntity, dto);
+    private int writeQuestions(List<QuestionDTO> batch, Map<Long, Long> idMapping) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = questionBatchWriter.insertBatch(batch);
+        for (int i = 0; i < batch.size(); i++) {
+            if (batch.get(i).getId() != null) {
+                idMapping.put(batch.get(i).getId(), ids.get(i));
+            }
         }
+        int size = batch.size();
+        batch.clear();
+        return size;
+    }
 
-        // 3. 保存元数据(如果有)
-        if (needsMetadata(dto)) {
-            saveMetadata(savedEntity, dto);
+    /**
+     * 种子文件的默认值（与原先逐条保存时一致）
+     */
+    private QuestionDTO normalize(QuestionDTO dto) {
+        if (dto.getType() == QuestionType.CHOICE && (dto.getOptions() == null || dto.getOptions().isEmpty())) {
+            log.warn("选择题 {} 没有选项数据", dto.getId());
         }
+        if (dto.getType() == QuestionType.BID) {
+            if (dto.getMin() == null || dto.getMax() == null) {
+                log.warn("竞价题 {} 缺少 min/max 配置", dto.getId());
+            } else if (dto.getStep() == null) {
+                dto.setStep(1);  // 默认步长为1
+            }
+        }
+        return dto;
     }
 
-    private void saveChoiceConfig(QuestionEntity entity, QuestionDTO dto) throws IOException {
-        if (dto.getOptions() == null || dto.getOptions().isEmpty()) {
-            log.warn("选择题 {} 没有选项数据", entity.getId());
-            return;
+    // ==================== 标签 ====================
+
+    /**
+     * @param questionIdMapping 本次刚导入题目时的 ID 映射；题目早已存在时为 null，按种子中的 ID 直接关联
+     * @return 是否导入了标签
+     */
+    @SuppressWarnings("unchecked")
+    private boolean seedTags(Map<Long, Long> questionIdMapping) throws IOException {
+        ClassPathResource resource = new ClassPathResource("question-tags.json");
+        if (!resource.exists()) {
+            log.warn("⚠️ question-tags.json 不存在，跳过标签初始化");
+            return false;
         }
 
-        String optionsJson = objectMapper.writeValueAsString(dto.getOptions());
-        ChoiceQuestionConfig config = ChoiceQuestionConfig.builder()
-                .question(entity)
-                .optionsJson(optionsJson)
-                .build();
+        String checksum = checksum(resource);
+        if (!needsSeeding(TAGS_SEED, checksum, tagRepository.count())) {
+            return false;
+        }
 
-        choiceConfigRepository.save(config);
-        log.debug("ChoiceQuestionConfig 保存成功: questionId={}, options={}", entity.getId(), optionsJson);
-    }
+        log.info("📝 开始从 question-tags.json 初始化标签数据");
+        Map<String, Object> data;
+        try (InputStream is = resource.getInputStream()) {
+            data = objectMapper.readValue(is, new TypeReference<Map<String, Object>>() {});
+        }
 
-    private void saveBidConfig(QuestionEntity entity, QuestionDTO dto) {
-        if (dto.getMin() == null || dto.getMax() == null) {
-            log.warn("竞价题 {} 缺少 min/max 配置", entity.getId());
-            return;
+        // 1. 标签（保留文件中的 ID，关联数据按它引用）
+        List<Object[]> tagRows = new ArrayList<>();
+        for (Map<String, Object> tag : (List<Map<String, Object>>) data.get("tags")) {
+            tagRows.add(new Object[]{
+                    ((Number) tag.get("id")).longValue(),
+                    tag.get("name"),
+                    tag.get("category"),
+                    tag.get("color")});
         }
+        jdbcTemplate.batchUpdate("INSERT INTO question_tag (id, name, category, color) VALUES (?, ?, ?, ?)", tagRows);
+        log.info("✅ 保存了 {} 个标签", tagRows.size());
 
-        BidQuestionConfig config = BidQuestionConfig.builder()
-                .question(entity)
-                .minValue(dto.getMin())
-                .maxValue(dto.getMax())
-                .step(dto.getStep() != null ? dto.getStep() : 1)  // 默认步长为1
-                .build();
+        // 2. 题目-标签关联
+        List<Object[]> relationRows = new ArrayList<>();
+        for (Map<String, Object> mapping : (List<Map<String, Object>>) data.get("questionTagMappings")) {
+            Long seedQuestionId = ((Number) mapping.get("questionId")).longValue();
+            Long questionId = questionIdMapping != null
+                    ? questionIdMapping.get(seedQuestionId)
+                    : seedQuestionId;
+            if (questionId == null) {
+                log.warn("⚠️ 标签关联引用了不存在的题目: {}", seedQuestionId);
+                continue;
+            }
+            for (Number tagId : (List<Number>) mapping.get("tagIds")) {
+                relationRows.add(new Object[]{questionId, tagId.longValue()});
+            }
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT IGNORE INTO question_tag_relation (question_id, tag_id) VALUES (?, ?)", relationRows);
+        log.info("✅ 保存了 {} 个题目-标签关联", relationRows.size());
 
-        bidConfigRepository.save(config);
-        log.debug("BidQuestionConfig 保存成功: questionId={}, min={}, max={}, step={}",
-                entity.getId(), dto.getMin(), dto.getMax(), config.getStep());
+        saveState(TAGS_SEED, checksum, (long) tagRows.size(), true);
+        return true;
     }
 
-    private boolean needsMetadata(QuestionDTO dto) {
-        return dto.getSequenceGroupId() != null
-                || dto.getIsRepeatable() != null
-                || dto.getRepeatGroupId() != null;
-    }
+    // ==================== 校验和 ====================
 
-    private void saveMetadata(QuestionEntity entity, QuestionDTO dto) {
-        QuestionMetadata metadata = QuestionMetadata.builder()
-                .questionId(entity.getId())
-                .sequenceGroupId(dto.getSequenceGroupId())
-                .sequenceOrder(dto.getSequenceOrder())
-                .totalSequenceCount(dto.getTotalSequenceCount())
-                .isRepeatable(dto.getIsRepeatable())
-                .repeatTimes(dto.getRepeatTimes())
-                .repeatInterval(dto.getRepeatInterval())
-                .repeatGroupId(dto.getRepeatGroupId())
-                .build();
-
-        metadataRepository.save(metadata);
-
-        // 更新 hasMetadata 标记
-        entity.setHasMetadata(true);
-        questionRepository.save(entity);
-
-        log.debug("QuestionMetadata 保存成功: questionId={}", entity.getId());
+    /**
+     * 是否需要导入：只有校验和变化且表为空时才导入
+     * 校验和变化但表里已有数据时不覆盖，记录新的校验和，下次启动直接跳过
+     */
+    private boolean needsSeeding(String seedName, String checksum, long existingRows) {
+        SeedStateEntity state = seedStateRepository.findById(seedName).orElse(null);
+        if (state != null && checksum.equals(state.getChecksum())) {
+            log.info("⏭️ 种子 {} 未变化，跳过", seedName);
+            return false;
+        }
+        if (existingRows > 0) {
+            if (state != null) {
+                log.warn("⚠️ 种子 {} 已变化，但数据库已有 {} 条数据，不自动覆盖", seedName, existingRows);
+            } else {
+                log.info("数据库中已有 {} 数据，跳过初始化", seedName);
+            }
+            saveState(seedName, checksum, existingRows, false);
+            return false;
+        }
+        return true;
     }
 
+    private void saveState(String seedName, String checksum, long itemCount, boolean loaded) {
+        seedStateRepository.save(SeedStateEntity.builder()
+                .seedName(seedName)
+                .checksum(checksum)
+                .itemCount(itemCount)
+                .loaded(loaded)
+                .build());
+    }
 
-}
\ No newline at end of file
+    private String checksum(ClassPathResource resource) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream in = new DigestInputStream(resource.getInputStream(), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,150 @@
+package org.example.utils;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 按 (分数, 次序) 排序的顺序统计树（Treap），次序用于同分时的先后（如加入顺序）
+ * 插入、删除、按键计数均为 O(log n)，用于实时排行榜的排名查询
+ * 非线程安全，由调用方加锁
+ */
+public class ScoreRankTree {
+
+    private static final class Node {
+        final int score;
+        final int order;
+        final int priority = ThreadLocalRandom.current().nextInt();
+        int size = 1;
+        Node left;
+        Node right;
+
+        Node(int score, int order) {
+            this.score = score;
+            this.order = order;
+        }
+    }
+
+    private Node root;
+
+    public int size() {
+        return size(root);
+    }
+
+    public void insert(int score, int order) {
+        Node[] parts = split(root, score, order);
+        root = merge(merge(parts[0], new Node(score, order)), parts[1]);
+    }
+
+    public void remove(int score, int order) {
+        root = remove(root, score, order);
+    }
+
+    /**
+     * 严格小于 (score, order) 的元素个数
+     */
+    public int countLess(int score, int order) {
+        int count = 0;
+        Node node = root;
+        while (node != null) {
+            if (compare(score, order, node) > 0) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 分数严格小于 score 的元素个数
+     */
+    public int countScoreLess(int score) {
+        return countLess(score, Integer.MIN_VALUE);
+    }
+
+    /**
+     * 分数在 [low, high] 之间的元素个数
+     */
+    public int countScoreBetween(long low, long high) {
+        if (low > high) {
+            return 0;
+        }
+        int upTo = high >= Integer.MAX_VALUE ? size() : countScoreBelow(high + 1);
+        return upTo - countScoreBelow(low);
+    }
+
+    /**
+     * 分数严格小于 bound 的元素个数（bound 可超出 int 范围）
+     */
+    private int countScoreBelow(long bound) {
+        if (bound > Integer.MAX_VALUE) {
+            return size();
+        }
+        if (bound <= Integer.MIN_VALUE) {
+            return 0;
+        }
+        return countScoreLess((int) bound);
+    }
+
+    private static int compare(int score, int order, Node node) {
+        int result = Integer.compare(score, node.score);
+        return result != 0 ? result : Integer.compare(order, node.order);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static void update(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    /**
+     * 拆分为 (< key, >= key)
+     */
+    private static Node[] split(Node node, int score, int order) {
+        if (node == null) {
+            return new Node[]{null, null};
+        }
+        if (compare(score, order, node) > 0) {
+            Node[] parts = split(node.right, score, order);
+            node.right = parts[0];
+            update(node);
+            return new Node[]{node, parts[1]};
+        }
+        Node[] parts = split(node.left, score, order);
+        node.left = parts[1];
+        update(node);
+        return new Node[]{parts[0], node};
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static Node remove(Node node, int score, int order) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(score, order, node);
+        if (cmp == 0) {
+            return merge(node.left, node.right);
+        }
+        if (cmp < 0) {
+            node.left = remove(node.left, score, order);
+        } else {
+            node.right = remove(node.right, score, order);
+        }
+        update(node);
+        return node;
+    }
+}
@@ -0,0 +1,34 @@
+package org.example.websocket.outbound;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+/**
+ * 在连接建立/关闭时向 SessionOutboundExecutor 注册/注销会话
+ */
+public class OutboundSessionHandlerDecorator extends WebSocketHandlerDecorator {
+
+    private final SessionOutboundExecutor outboundExecutor;
+
+    public OutboundSessionHandlerDecorator(WebSocketHandler delegate, SessionOutboundExecutor outboundExecutor) {
+        super(delegate);
+        this.outboundExecutor = outboundExecutor;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        outboundExecutor.register(session);
+        super.afterConnectionEstablished(session);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+        try {
+            super.afterConnectionClosed(session, closeStatus);
+        } finally {
+            outboundExecutor.unregister(session.getId());
+        }
+    }
+}
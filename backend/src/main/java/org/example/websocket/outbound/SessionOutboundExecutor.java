@@ -0,0 +1,343 @@
+package org.example.websocket.outbound;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.config.WebSocketOutboundProperties;
+import org.example.dto.SessionBacklogDTO;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 出站通道执行器 - 每个会话独立的有界发送队列
+ *
+ * 替代原来 50000 容量的共享队列：
+ * 1. 每个会话一个队列，同一时刻最多一个线程在给它发送，慢客户端只拖慢自己
+ * 2. 房间状态快照（/topic/room/{roomCode}）只保留最新一条，旧的直接丢弃
+ * 3. 队列超过条数/字节上限，或最老消息等待、正在发送的消息耗时超过时间上限，直接断开该会话
+ */
+@Component
+@Slf4j
+public class SessionOutboundExecutor implements TaskExecutor, DisposableBean {
+
+    private final WebSocketOutboundProperties properties;
+    private final ThreadPoolTaskExecutor workers;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private final Map<String, SessionOutbox> outboxes = new ConcurrentHashMap<>();
+    private final AtomicLong slowDisconnects = new AtomicLong();
+
+    public SessionOutboundExecutor(WebSocketOutboundProperties properties) {
+        this.properties = properties;
+        this.workers = new ThreadPoolTaskExecutor();
+        this.workers.setCorePoolSize(properties.getWorkerPoolSize());
+        this.workers.setMaxPoolSize(properties.getWorkerPoolSize());
+        this.workers.setThreadNamePrefix("ws-outbound-");
+        this.workers.initialize();
+    }
+
+    /**
+     * 会话建立时注册（由 OutboundSessionHandlerDecorator 调用）
+     */
+    public void register(WebSocketSession session) {
+        outboxes.put(session.getId(), new SessionOutbox(session));
+    }
+
+    /**
+     * 会话关闭时注销，丢弃剩余积压
+     */
+    public void unregister(String sessionId) {
+        SessionOutbox outbox = outboxes.remove(sessionId);
+        if (outbox != null) {
+            outbox.close();
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (!(task instanceof MessageHandlingRunnable handlingTask)) {
+            workers.execute(task);
+            return;
+        }
+
+        Message<?> message = handlingTask.getMessage();
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        SessionOutbox outbox = sessionId != null ? outboxes.get(sessionId) : null;
+        if (outbox == null) {
+            // 非会话消息或会话已关闭，按原方式直接交给线程池
+            workers.execute(task);
+            return;
+        }
+
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        int bytes = message.getPayload() instanceof byte[] payload ? payload.length : 0;
+        outbox.offer(task, isCoalescable(destination) ? destination : null, bytes);
+    }
+
+    /**
+     * 当前所有会话的积压情况（按积压条数倒序）
+     */
+    public List<SessionBacklogDTO> snapshot() {
+        long now = System.currentTimeMillis();
+        List<SessionBacklogDTO> result = new ArrayList<>();
+        for (SessionOutbox outbox : outboxes.values()) {
+            result.add(outbox.stats(now));
+        }
+        result.sort((a, b) -> Integer.compare(b.getQueuedMessages(), a.getQueuedMessages()));
+        return result;
+    }
+
+    public long getSlowDisconnects() {
+        return slowDisconnects.get();
+    }
+
+    @Override
+    public void destroy() {
+        workers.shutdown();
+    }
+
+    private boolean isCoalescable(String destination) {
+        if (destination == null) {
+            return false;
+        }
+        for (String pattern : properties.getCoalesceDestinations()) {
+            if (pathMatcher.match(pattern, destination)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 单条待发送消息（会话队列中的双向链表节点，合并时可 O(1) 摘除）
+     */
+    private static final class Entry {
+        final Runnable task;
+        final String coalesceKey;
+        final int bytes;
+        final long enqueuedAt;
+        Entry prev;
+        Entry next;
+
+        Entry(Runnable task, String coalesceKey, int bytes, long enqueuedAt) {
+            this.task = task;
+            this.coalesceKey = coalesceKey;
+            this.bytes = bytes;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    /**
+     * 单个会话的发送队列
+     * 所有字段都在 synchronized(this) 下访问，真正的网络发送在锁外进行
+     * 队列里只有待发送的消息：被覆盖的房间状态直接从链表摘除，head 就是最老的一条
+     */
+    private final class SessionOutbox implements Runnable {
+
+        private final WebSocketSession session;
+        private final Map<String, Entry> latestByDestination = new HashMap<>();
+
+        private Entry head;
+        private Entry tail;
+        private int liveCount;
+        private long queuedBytes;
+        private boolean scheduled;
+        private boolean closed;
+        private long inFlightSince;
+        private long sentCount;
+        private long mergedCount;
+
+        SessionOutbox(WebSocketSession session) {
+            this.session = session;
+        }
+
+        void offer(Runnable task, String coalesceKey, int bytes) {
+            long now = System.currentTimeMillis();
+            String overBudget;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                Entry entry = new Entry(task, coalesceKey, bytes, now);
+                if (coalesceKey != null) {
+                    Entry previous = latestByDestination.put(coalesceKey, entry);
+                    if (previous != null) {
+                        // 🔥 旧的房间状态还没发出去，直接摘除，新状态追加到队尾保证顺序
+                        unlink(previous);
+                        mergedCount++;
+                    }
+                }
+                append(entry);
+
+                overBudget = checkBudget(now);
+                if (overBudget == null && !scheduled) {
+                    scheduled = true;
+                    workers.execute(this);
+                }
+            }
+            if (overBudget != null) {
+                disconnect(overBudget);
+            }
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < properties.getDrainBatchSize(); i++) {
+                Entry entry;
+                String overBudget;
+                synchronized (this) {
+                    entry = poll();
+                    if (entry == null) {
+                        scheduled = false;
+                        return;
+                    }
+                    overBudget = checkAge(System.currentTimeMillis(), entry.enqueuedAt);
+                    inFlightSince = System.currentTimeMillis();
+                }
+                if (overBudget != null) {
+                    disconnect(overBudget);
+                    return;
+                }
+                try {
+                    entry.task.run();
+                } catch (Throwable ex) {
+                    log.debug("出站消息发送失败, sessionId={}: {}", session.getId(), ex.getMessage());
+                } finally {
+                    synchronized (this) {
+                        inFlightSince = 0;
+                        sentCount++;
+                    }
+                }
+            }
+            // 本轮额度用完，重新排队，让其他会话也有机会发送
+            synchronized (this) {
+                if (closed || liveCount == 0) {
+                    scheduled = false;
+                    return;
+                }
+            }
+            workers.execute(this);
+        }
+
+        private void append(Entry entry) {
+            entry.prev = tail;
+            if (tail != null) {
+                tail.next = entry;
+            } else {
+                head = entry;
+            }
+            tail = entry;
+            liveCount++;
+            queuedBytes += entry.bytes;
+        }
+
+        private void unlink(Entry entry) {
+            if (entry.prev != null) {
+                entry.prev.next = entry.next;
+            } else {
+                head = entry.next;
+            }
+            if (entry.next != null) {
+                entry.next.prev = entry.prev;
+            } else {
+                tail = entry.prev;
+            }
+            entry.prev = null;
+            entry.next = null;
+            liveCount--;
+            queuedBytes -= entry.bytes;
+        }
+
+        private Entry poll() {
+            Entry entry = head;
+            if (entry == null) {
+                return null;
+            }
+            unlink(entry);
+            if (entry.coalesceKey != null && latestByDestination.get(entry.coalesceKey) == entry) {
+                latestByDestination.remove(entry.coalesceKey);
+            }
+            return entry;
+        }
+
+        private String checkBudget(long now) {
+            if (liveCount > properties.getMaxQueuedMessages()) {
+                return "积压消息数 " + liveCount + " 超过上限";
+            }
+            if (queuedBytes > properties.getMaxBufferBytes()) {
+                return "积压字节数 " + queuedBytes + " 超过上限";
+            }
+            // 卡在底层发送上的会话队列可能一直只有一条最新状态，要看正在发送的那条耗时多久
+            if (inFlightSince > 0 && now - inFlightSince > properties.getSendTimeLimitMs()) {
+                return "消息发送已耗时 " + (now - inFlightSince) + "ms";
+            }
+            return head != null ? checkAge(now, head.enqueuedAt) : null;
+        }
+
+        private String checkAge(long now, long enqueuedAt) {
+            long waited = now - enqueuedAt;
+            if (waited > properties.getSendTimeLimitMs()) {
+                return "消息已等待 " + waited + "ms";
+            }
+            return null;
+        }
+
+        private void disconnect(String reason) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                close();
+            }
+            outboxes.remove(session.getId(), this);
+            slowDisconnects.incrementAndGet();
+            log.warn("⚠️ 慢客户端被断开, sessionId={}, playerId={}: {}",
+                    session.getId(), session.getAttributes().get("playerId"), reason);
+            // 关闭可能阻塞在底层连接上，放到线程池里做
+            workers.execute(() -> {
+                try {
+                    session.close(CloseStatus.SESSION_NOT_RELIABLE);
+                } catch (Exception e) {
+                    log.debug("关闭慢客户端失败, sessionId={}: {}", session.getId(), e.getMessage());
+                }
+            });
+        }
+
+        synchronized void close() {
+            closed = true;
+            head = null;
+            tail = null;
+            latestByDestination.clear();
+            liveCount = 0;
+            queuedBytes = 0;
+        }
+
+        synchronized SessionBacklogDTO stats(long now) {
+            Entry oldest = head;
+            Object playerId = session.getAttributes().get("playerId");
+            return SessionBacklogDTO.builder()
+                    .sessionId(session.getId())
+                    .playerId(playerId != null ? playerId.toString() : null)
+                    .queuedMessages(liveCount)
+                    .queuedBytes(queuedBytes)
+                    .oldestQueuedMs(oldest != null ? now - oldest.enqueuedAt : 0L)
+                    .inFlightMs(inFlightSince > 0 ? now - inFlightSince : 0L)
+                    .sentCount(sentCount)
+                    .mergedCount(mergedCount)
+                    .build();
+        }
+    }
+}
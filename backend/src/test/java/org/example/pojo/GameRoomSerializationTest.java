@@ -0,0 +1,58 @@
+package org.example.pojo;
+
+import org.example.config.RedisConfig;
+import org.example.dto.QuestionDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 按 RedisTemplate 实际使用的序列化器验证房间快照格式
+ */
+class GameRoomSerializationTest {
+
+    @SuppressWarnings("unchecked")
+    private final RedisSerializer<Object> serializer = (RedisSerializer<Object>)
+            new RedisConfig().redisTemplate(mock(RedisConnectionFactory.class)).getValueSerializer();
+
+    @Test
+    void snapshotStoresOnlyQuestionIds() {
+        GameRoom room = new GameRoom();
+        room.setRoomCode("ABC123");
+        room.setQuestions(List.of(question(1L), question(2L), question(2L)));
+
+        String json = new String(serializer.serialize(room), StandardCharsets.UTF_8);
+        assertFalse(json.contains("\"questions\""), json);
+        assertFalse(json.contains("题干"), json);
+
+        GameRoom restored = (GameRoom) serializer.deserialize(json.getBytes(StandardCharsets.UTF_8));
+        assertEquals(List.of(1L, 2L, 2L), restored.getQuestionIds());
+        assertTrue(restored.getQuestions() == null || restored.getQuestions().isEmpty());
+    }
+
+    @Test
+    void legacySnapshotWithFullQuestionsRestoresIds() {
+        // 升级前的快照：完整题目（含已删除的字段），没有 questionIds
+        String legacy = "{\"@class\":\"org.example.pojo.GameRoom\",\"roomCode\":\"ABC123\",\"currentIndex\":1,"
+                + "\"questions\":[\"java.util.ArrayList\",["
+                + "{\"@class\":\"org.example.dto.QuestionDTO\",\"id\":7,\"text\":\"题干\",\"removedField\":1},"
+                + "{\"@class\":\"org.example.dto.QuestionDTO\",\"id\":9,\"text\":\"题干\"}]],"
+                + "\"currentQuestion\":{\"@class\":\"org.example.dto.QuestionDTO\",\"id\":9}}";
+
+        GameRoom restored = (GameRoom) serializer.deserialize(legacy.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("ABC123", restored.getRoomCode());
+        assertEquals(List.of(7L, 9L), restored.getQuestionIds());
+        assertEquals(1, restored.getCurrentIndex());
+    }
+
+    private static QuestionDTO question(Long id) {
+        return QuestionDTO.builder().id(id).text("题干").build();
+    }
+}
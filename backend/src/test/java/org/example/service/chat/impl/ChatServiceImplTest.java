@@ -0,0 +1,108 @@
+package org.example.service.chat.impl;
+
+import org.example.dto.ChatMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ChatServiceImplTest {
+
+    private SimpMessagingTemplate messagingTemplate;
+    private ChatServiceImpl chatService;
+
+    @BeforeEach
+    void setUp() {
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+        chatService = new ChatServiceImpl(messagingTemplate);
+        ReflectionTestUtils.setField(chatService, "historySize", 3);
+        ReflectionTestUtils.setField(chatService, "batchWindowMs", 60_000L);
+        ReflectionTestUtils.setField(chatService, "bucketCapacity", 2);
+        // 测试期间几乎不回复令牌
+        ReflectionTestUtils.setField(chatService, "refillPerSecond", 0.001);
+    }
+
+    @AfterEach
+    void tearDown() {
+        chatService.shutdown();
+    }
+
+    @Test
+    void historyKeepsMostRecentMessagesInOrder() {
+        for (int i = 1; i <= 5; i++) {
+            chatService.publish("R1", ChatMessage.system("R1", "m" + i), null);
+        }
+
+        assertEquals(List.of("m3", "m4", "m5"), contents(chatService.getHistory("R1", 10)));
+        assertEquals(List.of("m4", "m5"), contents(chatService.getHistory("R1", 2)));
+        assertTrue(chatService.getHistory("R1", 0).isEmpty());
+        assertTrue(chatService.getHistory("R2", 10).isEmpty());
+
+        chatService.clearRoom("R1");
+        assertTrue(chatService.getHistory("R1", 10).isEmpty());
+    }
+
+    @Test
+    void tokenBucketLimitsEachSenderSeparately() {
+        assertTrue(chatService.publish("R1", chat("p1", "a"), "p1"));
+        assertTrue(chatService.publish("R1", chat("p1", "b"), "p1"));
+        assertFalse(chatService.publish("R1", chat("p1", "c"), "p1"));
+
+        // 其他发送者和系统消息不受影响
+        assertTrue(chatService.publish("R1", chat("p2", "d"), "p2"));
+        assertTrue(chatService.publish("R1", ChatMessage.system("R1", "e"), null));
+
+        assertEquals(List.of("b", "d", "e"), contents(chatService.getHistory("R1", 10)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushSendsOneBatchPerRoomAndDrainsPending() {
+        chatService.publish("R1", ChatMessage.system("R1", "a"), null);
+        chatService.publish("R1", ChatMessage.system("R1", "b"), null);
+        chatService.publish("R2", ChatMessage.system("R2", "c"), null);
+
+        ReflectionTestUtils.invokeMethod(chatService, "flushAll");
+
+        ArgumentCaptor<Object> batch = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate).convertAndSend(eq("/topic/room/R1/chat"), batch.capture());
+        assertEquals(List.of("a", "b"), contents((List<ChatMessage>) batch.getValue()));
+        verify(messagingTemplate).convertAndSend(eq("/topic/room/R2/chat"), batch.capture());
+        assertEquals(List.of("c"), contents((List<ChatMessage>) batch.getValue()));
+
+        // 已推送的消息不再重复推送，但仍保留在历史中
+        ReflectionTestUtils.invokeMethod(chatService, "flushAll");
+        verify(messagingTemplate, times(2)).convertAndSend(anyString(), any(Object.class));
+        assertEquals(List.of("a", "b"), contents(chatService.getHistory("R1", 10)));
+    }
+
+    @Test
+    void flushFailureOfOneRoomDoesNotBlockOthers() {
+        doThrow(new IllegalStateException("closed"))
+                .when(messagingTemplate).convertAndSend(eq("/topic/room/R1/chat"), any(Object.class));
+        chatService.publish("R1", ChatMessage.system("R1", "a"), null);
+        chatService.publish("R2", ChatMessage.system("R2", "b"), null);
+
+        ReflectionTestUtils.invokeMethod(chatService, "flushAll");
+
+        verify(messagingTemplate).convertAndSend(eq("/topic/room/R2/chat"), any(Object.class));
+    }
+
+    private static ChatMessage chat(String senderId, String content) {
+        return ChatMessage.chat("R1", senderId, "玩家" + senderId, content);
+    }
+
+    private static List<String> contents(List<ChatMessage> messages) {
+        return messages.stream().map(ChatMessage::getContent).toList();
+    }
+}
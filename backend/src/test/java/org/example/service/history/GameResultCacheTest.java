@@ -0,0 +1,146 @@
+package org.example.service.history;
+
+import org.example.dto.GameHistoryDTO;
+import org.example.dto.PlayerRankDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameResultCacheTest {
+
+    private GameResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new GameResultCache();
+        ReflectionTestUtils.setField(cache, "maxWeight", 100L);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedUntilWeightFits() {
+        cache.get(1L, () -> entry(1L, "A", 40));
+        cache.get(2L, () -> entry(2L, "B", 40));
+        // 访问 1，使 2 成为最久未用
+        assertNotNull(cache.getIfPresent(1L));
+
+        cache.get(3L, () -> entry(3L, "C", 40));
+
+        assertNotNull(cache.getIfPresent(1L));
+        assertNull(cache.getIfPresent(2L));
+        assertNotNull(cache.getIfPresent(3L));
+        assertEquals(80L, cache.stats().get("weight"));
+    }
+
+    @Test
+    void oversizedEntryIsReturnedButNotCachedAndLeavesNoRoomMapping() {
+        GameResultCache.Entry loaded = cache.get(1L, () -> entry(1L, "A", 500));
+        cache.rememberRoom("A", 1L);
+
+        assertNotNull(loaded);
+        assertNull(cache.getIfPresent(1L));
+        assertNull(cache.findGameId("A"));
+    }
+
+    @Test
+    void roomMappingFollowsEntryEviction() {
+        cache.get(1L, () -> entry(1L, "A", 60));
+        cache.rememberRoom("A", 1L);
+        assertEquals(1L, cache.findGameId("A"));
+
+        cache.get(2L, () -> entry(2L, "B", 60));
+        assertNull(cache.findGameId("A"));
+
+        cache.rememberRoom("B", 2L);
+        cache.evict(2L);
+        assertNull(cache.findGameId("B"));
+    }
+
+    @Test
+    void returnedHistoryIsACopy() {
+        cache.get(1L, () -> entry(1L, "A", 10));
+
+        GameHistoryDTO first = cache.getIfPresent(1L).getHistory();
+        first.getLeaderboard().get(0).setTotalScore(-1);
+        first.setRoomCode("X");
+
+        GameHistoryDTO second = cache.getIfPresent(1L).getHistory();
+        assertEquals("A", second.getRoomCode());
+        assertEquals(10, second.getLeaderboard().get(0).getTotalScore());
+    }
+
+    @Test
+    void concurrentMissesLoadOnce() throws Exception {
+        int threads = 8;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderEntered = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<GameResultCache.Entry>> futures = new ArrayList<>();
+            futures.add(pool.submit(() -> cache.get(1L, () -> {
+                loads.incrementAndGet();
+                loaderEntered.countDown();
+                await(releaseLoader);
+                return entry(1L, "A", 10);
+            })));
+            assertTrue(loaderEntered.await(5, TimeUnit.SECONDS));
+
+            for (int i = 1; i < threads; i++) {
+                futures.add(pool.submit(() -> cache.get(1L, () -> {
+                    loads.incrementAndGet();
+                    return entry(1L, "A", 10);
+                })));
+            }
+            // 等其余线程进入等待后再放行
+            Thread.sleep(100);
+            releaseLoader.countDown();
+
+            GameResultCache.Entry expected = futures.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<GameResultCache.Entry> future : futures) {
+                assertSame(expected, future.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            releaseLoader.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void loaderFailureIsPropagatedToWaitersAndNotCached() {
+        assertThrows(IllegalStateException.class, () -> cache.get(1L, () -> {
+            throw new IllegalStateException("db down");
+        }));
+        assertNull(cache.getIfPresent(1L));
+        assertNotNull(cache.get(1L, () -> entry(1L, "A", 10)));
+    }
+
+    private static GameResultCache.Entry entry(Long gameId, String roomCode, long weight) {
+        GameHistoryDTO history = GameHistoryDTO.builder()
+                .gameId(gameId)
+                .roomCode(roomCode)
+                .leaderboard(List.of(PlayerRankDTO.builder().playerId("p1").totalScore(10).rank(1).build()))
+                .questionDetails(List.of())
+                .build();
+        return new GameResultCache.Entry(history, "\"" + gameId + "\"", weight);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
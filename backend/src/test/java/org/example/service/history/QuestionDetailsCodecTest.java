@@ -0,0 +1,106 @@
+package org.example.service.history;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.dto.PlayerSubmissionDTO;
+import org.example.dto.QuestionDetailDTO;
+import org.example.entity.QuestionType;
+import org.example.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuestionDetailsCodecTest {
+
+    private final QuestionDetailsCodec codec = new QuestionDetailsCodec(new ObjectMapper());
+
+    @Test
+    void roundTripsAllQuestions() {
+        List<QuestionDetailDTO> details = List.of(
+                question(0, 11L, "A", "B", "A"),
+                question(1, 12L, "C", "C", "D"),
+                question(2, null, "A", null, "B"));
+
+        List<QuestionDetailDTO> decoded = codec.decodeAll(codec.encode(details));
+
+        assertEquals(details.size(), decoded.size());
+        for (int i = 0; i < details.size(); i++) {
+            QuestionDetailDTO expected = details.get(i);
+            QuestionDetailDTO actual = decoded.get(i);
+            assertEquals(expected.getQuestionIndex(), actual.getQuestionIndex());
+            assertEquals(expected.getQuestionId(), actual.getQuestionId());
+            assertEquals(expected.getStrategyId(), actual.getStrategyId());
+            assertEquals(expected.getQuestionText(), actual.getQuestionText());
+            assertEquals(expected.getOptionText(), actual.getOptionText());
+            assertEquals(expected.getQuestionType(), actual.getQuestionType());
+            assertEquals(expected.getPlayerSubmissions(), actual.getPlayerSubmissions());
+        }
+        assertEquals(Map.of("C", 2, "D", 1), decoded.get(1).getChoiceCounts());
+    }
+
+    @Test
+    void decodesSingleQuestionByIndex() {
+        byte[] blob = codec.encode(List.of(question(3, 1L, "A", "B", "A"), question(7, 2L, "B", "B", "B")));
+
+        QuestionDetailDTO detail = codec.decodeQuestion(blob, 7);
+        assertEquals(7, detail.getQuestionIndex());
+        assertEquals(Map.of("B", 3), detail.getChoiceCounts());
+        assertNull(codec.decodeQuestion(blob, 5));
+    }
+
+    @Test
+    void compressesRepeatedContentAndReportsRawSize() {
+        // 30 人 10 题：每段足够大，分段压缩才有收益
+        String[] choices = new String[30];
+        Arrays.fill(choices, "A");
+        List<QuestionDetailDTO> details = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            details.add(question(i, (long) i, choices));
+        }
+
+        byte[] blob = codec.encode(details);
+        assertTrue(blob.length < codec.rawSize(blob), "分段压缩后应小于原始大小");
+    }
+
+    @Test
+    void rejectsUnknownVersionAndBadMagic() {
+        byte[] blob = codec.encode(List.of(question(0, 1L, "A", "B", "C")));
+        assertEquals('Q', blob[0]);
+        assertEquals('D', blob[1]);
+        assertEquals(1, blob[2]);
+
+        byte[] future = Arrays.copyOf(blob, blob.length);
+        future[2] = 2;
+        assertThrows(BusinessException.class, () -> codec.decodeAll(future));
+
+        byte[] garbage = Arrays.copyOf(blob, blob.length);
+        garbage[0] = '{';
+        assertThrows(BusinessException.class, () -> codec.decodeAll(garbage));
+    }
+
+    private static QuestionDetailDTO question(int index, Long questionId, String... choices) {
+        List<PlayerSubmissionDTO> submissions = new ArrayList<>();
+        for (int i = 0; i < choices.length; i++) {
+            submissions.add(PlayerSubmissionDTO.builder()
+                    .playerId("p" + i)
+                    .playerName("玩家" + i)
+                    .choice(choices[i])
+                    .baseScore(i)
+                    .finalScore(i * 2)
+                    .build());
+        }
+        return QuestionDetailDTO.builder()
+                .questionIndex(index)
+                .questionId(questionId)
+                .strategyId("Q" + index)
+                .questionText("第 " + index + " 题：你会怎么选？这是一段会重复出现的题干文本。")
+                .optionText("A: 合作 | B: 背叛 | C: 观望 | D: 弃权")
+                .questionType(QuestionType.values()[0])
+                .playerSubmissions(submissions)
+                .build();
+    }
+}
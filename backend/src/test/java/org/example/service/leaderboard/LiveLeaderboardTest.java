@@ -0,0 +1,117 @@
+package org.example.service.leaderboard;
+
+import org.example.dto.LeaderboardUpdateDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiveLeaderboardTest {
+
+    @Test
+    void standardRanksByScoreThenJoinOrder() {
+        LiveLeaderboard board = new LiveLeaderboard(LiveLeaderboard.STANDARD, null);
+        board.put("b", 10);
+        board.put("a", 10);
+        board.put("c", 30);
+        board.put("d", -5);
+
+        assertEquals(List.of("c", "b", "a", "d"), board.orderedPlayerIds());
+        assertEquals(3, board.rankOf("a"));
+
+        // 分数变化不改变加入顺序
+        board.put("b", 0);
+        board.put("b", 10);
+        assertEquals(List.of("c", "b", "a", "d"), board.orderedPlayerIds());
+        assertNull(board.rankOf("missing"));
+    }
+
+    @Test
+    void closestToTargetPutsHigherScoreFirstOnEqualDistance() {
+        LiveLeaderboard board = new LiveLeaderboard(LiveLeaderboard.CLOSEST_TO_TARGET, 50);
+        board.put("low", 40);
+        board.put("high", 60);
+        board.put("exact", 50);
+        board.put("far", 90);
+
+        assertEquals(List.of("exact", "high", "low", "far"), board.orderedPlayerIds());
+    }
+
+    @Test
+    void closestToTargetWithoutTargetFallsBackToStandard() {
+        assertEquals(LiveLeaderboard.STANDARD, new LiveLeaderboard(LiveLeaderboard.CLOSEST_TO_TARGET, null).getRankingMode());
+    }
+
+    @Test
+    void ranksMatchFullSortInEveryMode() {
+        for (String mode : List.of(LiveLeaderboard.STANDARD, LiveLeaderboard.CLOSEST_TO_AVG, LiveLeaderboard.CLOSEST_TO_TARGET)) {
+            Random random = new Random(7);
+            LiveLeaderboard board = new LiveLeaderboard(mode, 17);
+            Map<String, Integer> scores = new LinkedHashMap<>();
+
+            for (int step = 0; step < 2000; step++) {
+                String playerId = "p" + random.nextInt(25);
+                int score = random.nextInt(61) - 20;
+                board.put(playerId, score);
+                scores.put(playerId, score);
+
+                List<String> expected = expectedOrder(mode, scores, 17);
+                assertEquals(expected, board.orderedPlayerIds(), mode + " step " + step);
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(i + 1, board.rankOf(expected.get(i)));
+                }
+            }
+        }
+    }
+
+    @Test
+    void diffReportsOnlyChangedRanks() {
+        LiveLeaderboard board = new LiveLeaderboard(LiveLeaderboard.STANDARD, null);
+        board.put("a", 10);
+        board.put("b", 5);
+        board.put("c", 1);
+
+        LeaderboardUpdateDTO first = board.diffSinceLastPublish("R1", 0);
+        assertEquals(3, first.getChanges().size());
+        assertEquals(1L, first.getVersion());
+        assertNull(first.getChanges().get(0).getPreviousRank());
+
+        assertNull(board.diffSinceLastPublish("R1", 1));
+
+        board.put("c", 20);
+        LeaderboardUpdateDTO second = board.diffSinceLastPublish("R1", 2);
+        assertEquals(2L, second.getVersion());
+        assertEquals(3, second.getChanges().size());
+        LeaderboardUpdateDTO.RankChange top = second.getChanges().get(0);
+        assertEquals("c", top.getPlayerId());
+        assertEquals(1, top.getRank());
+        assertEquals(3, top.getPreviousRank());
+        assertEquals(20, top.getTotalScore());
+
+        board.put("c", 20);
+        assertNull(board.diffSinceLastPublish("R1", 3));
+    }
+
+    /**
+     * 直接全量排序的参考实现（scores 按加入顺序迭代，稳定排序保留同分玩家的加入顺序）
+     */
+    private static List<String> expectedOrder(String mode, Map<String, Integer> scores, int target) {
+        long total = scores.values().stream().mapToLong(Integer::longValue).sum();
+        long n = scores.size();
+        Comparator<String> byScoreDesc = Comparator.comparing((String id) -> scores.get(id)).reversed();
+        Comparator<String> comparator = switch (mode) {
+            case LiveLeaderboard.CLOSEST_TO_AVG -> Comparator.comparingLong((String id) -> Math.abs(scores.get(id) * n - total));
+            case LiveLeaderboard.CLOSEST_TO_TARGET -> Comparator.comparingLong((String id) -> Math.abs((long) scores.get(id) - target));
+            default -> (a, b) -> 0;
+        };
+        List<String> ordered = new ArrayList<>(scores.keySet());
+        ordered.sort(comparator.thenComparing(byScoreDesc));
+        return ordered;
+    }
+}
@@ -0,0 +1,183 @@
+package org.example.service.question;
+
+import org.example.entity.QuestionEntity;
+import org.example.entity.QuestionMetadata;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuestionSamplerTest {
+
+    private static final Logger log = LoggerFactory.getLogger(QuestionSamplerTest.class);
+    private static final int DRAW_SIZE = 20;
+
+    @Test
+    void sameSeedGivesSameSelection() {
+        List<QuestionCatalog.CatalogQuestion> catalog = catalog(500);
+        QuestionSampler sampler = new QuestionSampler(catalog);
+        BitSet all = allOf(catalog);
+
+        for (long seed = 0; seed < 20; seed++) {
+            List<Long> first = ids(sampler.sample(all, DRAW_SIZE, new Random(seed)));
+            List<Long> second = ids(sampler.sample(all, DRAW_SIZE, new Random(seed)));
+            assertEquals(first, second, "seed " + seed);
+        }
+        assertNotEquals(ids(sampler.sample(all, DRAW_SIZE, new Random(1))),
+                ids(sampler.sample(all, DRAW_SIZE, new Random(2))));
+    }
+
+    @Test
+    void keepsSequencesContiguousAndRepeatsConsecutive() {
+        List<QuestionCatalog.CatalogQuestion> catalog = catalog(500);
+        QuestionSampler sampler = new QuestionSampler(catalog);
+        BitSet all = allOf(catalog);
+
+        for (long seed = 0; seed < 200; seed++) {
+            List<QuestionCatalog.CatalogQuestion> selected = sampler.sample(all, DRAW_SIZE, new Random(seed));
+            assertEquals(DRAW_SIZE, selected.size());
+
+            Set<Long> seen = new HashSet<>();
+            int i = 0;
+            while (i < selected.size()) {
+                QuestionCatalog.CatalogQuestion q = selected.get(i);
+                assertTrue(seen.add(q.getId()), "不放回抽取，题目 " + q.getId() + " 重复出现");
+                if (q.getSequenceGroupId() != null) {
+                    for (int k = 0; k < q.getTotalSequenceCount(); k++) {
+                        QuestionCatalog.CatalogQuestion member = selected.get(i + k);
+                        assertEquals(q.getSequenceGroupId(), member.getSequenceGroupId());
+                        assertEquals(k + 1, member.getSequenceOrder());
+                        if (k > 0) {
+                            assertTrue(seen.add(member.getId()));
+                        }
+                    }
+                    i += q.getTotalSequenceCount();
+                } else if (q.isRepeatable()) {
+                    for (int k = 0; k < q.getRepeatTimes(); k++) {
+                        assertSame(q, selected.get(i + k));
+                    }
+                    i += q.getRepeatTimes();
+                } else {
+                    i++;
+                }
+            }
+        }
+    }
+
+    @Test
+    void onlyDrawsSuitableQuestionsAndTreatsBrokenSequencesAsNormal() {
+        List<QuestionCatalog.CatalogQuestion> catalog = catalog(500);
+        QuestionSampler sampler = new QuestionSampler(catalog);
+        // 只开放每组序列的第 1 题：序列不完整，按普通题抽取
+        BitSet suitable = new BitSet();
+        for (QuestionCatalog.CatalogQuestion q : catalog) {
+            if (q.getSequenceGroupId() == null ? q.getOrdinal() % 2 == 0 : q.getSequenceOrder() == 1) {
+                suitable.set(q.getOrdinal());
+            }
+        }
+
+        for (long seed = 0; seed < 100; seed++) {
+            for (QuestionCatalog.CatalogQuestion q : sampler.sample(suitable, DRAW_SIZE, new Random(seed))) {
+                assertTrue(suitable.get(q.getOrdinal()));
+            }
+        }
+    }
+
+    @Test
+    void stopsWhenCandidatesRunOut() {
+        List<QuestionCatalog.CatalogQuestion> catalog = catalog(500);
+        QuestionSampler sampler = new QuestionSampler(catalog);
+        BitSet suitable = new BitSet();
+        suitable.set(10);
+        suitable.set(11);
+
+        assertEquals(2, sampler.sample(suitable, DRAW_SIZE, new Random(0)).size());
+    }
+
+    /**
+     * 大题库抽题耗时（只在显式指定 benchmark 分组时运行，见 pom.xml）
+     */
+    @Test
+    @Tag("benchmark")
+    void benchmarkLargeCatalogs() {
+        for (int size : new int[]{10_000, 100_000}) {
+            long buildStart = System.nanoTime();
+            List<QuestionCatalog.CatalogQuestion> catalog = catalog(size);
+            QuestionSampler sampler = new QuestionSampler(catalog);
+            long buildMs = (System.nanoTime() - buildStart) / 1_000_000;
+            BitSet all = allOf(catalog);
+
+            Random random = new Random(42);
+            for (int i = 0; i < 50; i++) {
+                sampler.sample(all, DRAW_SIZE, random);
+            }
+            int draws = 500;
+            long start = System.nanoTime();
+            for (int i = 0; i < draws; i++) {
+                assertEquals(DRAW_SIZE, sampler.sample(all, DRAW_SIZE, random).size());
+            }
+            double perDrawMs = (System.nanoTime() - start) / 1_000_000.0 / draws;
+            log.info("QuestionSampler {} 道题: 构建 {} ms, 每局抽 {} 题 {} ms",
+                    size, buildMs, DRAW_SIZE, String.format("%.3f", perDrawMs));
+
+            // 宽松上限，只防止退化为每局逐题扫描 / 重建候选池
+            assertTrue(perDrawMs < 20, "每局抽题耗时 " + perDrawMs + " ms");
+        }
+    }
+
+    // ==================== 测试数据 ====================
+
+    /**
+     * 每 50 题：3 题一组的完整序列 + 1 道重复题（2~4 轮）+ 46 道普通题
+     */
+    private static List<QuestionCatalog.CatalogQuestion> catalog(int size) {
+        List<QuestionCatalog.CatalogQuestion> questions = new ArrayList<>(size);
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            long id = ordinal + 1L;
+            int block = ordinal / 50;
+            int offset = ordinal % 50;
+            QuestionMetadata metadata = null;
+            if (offset < 3) {
+                metadata = QuestionMetadata.builder()
+                        .questionId(id)
+                        .sequenceGroupId("SEQ_" + block)
+                        .sequenceOrder(offset + 1)
+                        .totalSequenceCount(3)
+                        .build();
+            } else if (offset == 3) {
+                metadata = QuestionMetadata.builder()
+                        .questionId(id)
+                        .isRepeatable(true)
+                        .repeatTimes(2 + block % 3)
+                        .build();
+            }
+            QuestionEntity entity = QuestionEntity.builder()
+                    .id(id)
+                    .strategyId("Q" + id)
+                    .minPlayers(2)
+                    .maxPlayers(10)
+                    .build();
+            questions.add(new QuestionCatalog.CatalogQuestion(ordinal, entity, metadata, Set.of(), null));
+        }
+        return questions;
+    }
+
+    private static BitSet allOf(List<QuestionCatalog.CatalogQuestion> catalog) {
+        BitSet bits = new BitSet(catalog.size());
+        bits.set(0, catalog.size());
+        return bits;
+    }
+
+    private static List<Long> ids(List<QuestionCatalog.CatalogQuestion> selected) {
+        return selected.stream().map(QuestionCatalog.CatalogQuestion::getId).toList();
+    }
+}
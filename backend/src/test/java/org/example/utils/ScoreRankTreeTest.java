@@ -0,0 +1,73 @@
+package org.example.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ScoreRankTreeTest {
+
+    private record Key(int score, int order) {
+    }
+
+    @Test
+    void emptyTreeCountsNothing() {
+        ScoreRankTree tree = new ScoreRankTree();
+        assertEquals(0, tree.size());
+        assertEquals(0, tree.countLess(10, 0));
+        assertEquals(0, tree.countScoreBetween(Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    @Test
+    void countsMatchBruteForceUnderRandomUpdates() {
+        Random random = new Random(42);
+        ScoreRankTree tree = new ScoreRankTree();
+        List<Key> keys = new ArrayList<>();
+
+        for (int step = 0; step < 5000; step++) {
+            if (keys.isEmpty() || random.nextInt(3) > 0) {
+                Key key = new Key(random.nextInt(41) - 20, random.nextInt(1000));
+                if (!keys.contains(key)) {
+                    keys.add(key);
+                    tree.insert(key.score(), key.order());
+                }
+            } else {
+                Key key = keys.remove(random.nextInt(keys.size()));
+                tree.remove(key.score(), key.order());
+            }
+
+            assertEquals(keys.size(), tree.size());
+            int score = random.nextInt(45) - 22;
+            int order = random.nextInt(1000);
+            assertEquals(countLess(keys, score, order), tree.countLess(score, order));
+            assertEquals(keys.stream().filter(k -> k.score() < score).count(), tree.countScoreLess(score));
+
+            long low = random.nextInt(50) - 25;
+            long high = low + random.nextInt(20) - 5;
+            assertEquals(keys.stream().filter(k -> k.score() >= low && k.score() <= high).count(),
+                    tree.countScoreBetween(low, high));
+        }
+    }
+
+    @Test
+    void scoreRangeBoundsBeyondIntRange() {
+        ScoreRankTree tree = new ScoreRankTree();
+        tree.insert(Integer.MAX_VALUE, 0);
+        tree.insert(Integer.MIN_VALUE, 1);
+        tree.insert(0, 2);
+
+        assertEquals(3, tree.countScoreBetween(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(1, tree.countScoreBetween((long) Integer.MAX_VALUE, (long) Integer.MAX_VALUE + 10));
+        assertEquals(1, tree.countScoreBetween((long) Integer.MIN_VALUE - 10, (long) Integer.MIN_VALUE));
+        assertEquals(0, tree.countScoreBetween(5, 4));
+    }
+
+    private static long countLess(List<Key> keys, int score, int order) {
+        return keys.stream()
+                .filter(k -> k.score() < score || (k.score() == score && k.order() < order))
+                .count();
+    }
+}
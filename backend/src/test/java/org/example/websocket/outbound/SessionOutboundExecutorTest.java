@@ -0,0 +1,143 @@
+package org.example.websocket.outbound;
+
+import org.example.config.WebSocketOutboundProperties;
+import org.example.dto.SessionBacklogDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SessionOutboundExecutorTest {
+
+    private static final String SESSION_ID = "s1";
+
+    private SessionOutboundExecutor executor;
+    private WebSocketSession session;
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch blocked = new CountDownLatch(1);
+
+    private void start(WebSocketOutboundProperties properties) {
+        properties.setWorkerPoolSize(2);
+        executor = new SessionOutboundExecutor(properties);
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(SESSION_ID);
+        when(session.getAttributes()).thenReturn(new HashMap<>());
+        executor.register(session);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.destroy();
+    }
+
+    @Test
+    void coalescedRoomSnapshotsKeepOnlyLatestWhileSessionIsBusy() throws Exception {
+        start(new WebSocketOutboundProperties());
+
+        executor.execute(task("/user/queue/blocker", "blocker", true));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 1000; i++) {
+            executor.execute(task("/topic/room/ABC", "room-" + i, false));
+        }
+        executor.execute(task("/topic/room/ABC/question", "question", false));
+
+        SessionBacklogDTO stats = executor.snapshot().get(0);
+        assertEquals(2, stats.getQueuedMessages());
+        assertEquals(999L, stats.getMergedCount());
+        assertEquals(2 * 8L, stats.getQueuedBytes());
+
+        release.countDown();
+        waitUntil(() -> sent.size() == 3);
+        assertEquals(List.of("blocker", "room-999", "question"), sent);
+    }
+
+    @Test
+    void disconnectsWhenMessageCountExceedsBudget() throws Exception {
+        WebSocketOutboundProperties properties = new WebSocketOutboundProperties();
+        properties.setMaxQueuedMessages(3);
+        start(properties);
+
+        executor.execute(task("/user/queue/blocker", "blocker", true));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 4; i++) {
+            executor.execute(task("/user/queue/private", "p" + i, false));
+        }
+
+        verify(session, timeout(5000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertEquals(1, executor.getSlowDisconnects());
+        assertTrue(executor.snapshot().isEmpty());
+    }
+
+    @Test
+    void disconnectsSessionStuckInFlightEvenIfOnlySnapshotsAreQueued() throws Exception {
+        WebSocketOutboundProperties properties = new WebSocketOutboundProperties();
+        properties.setSendTimeLimitMs(50);
+        start(properties);
+
+        executor.execute(task("/topic/room/ABC", "stuck", true));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        executor.execute(task("/topic/room/ABC", "next", false));
+
+        verify(session, timeout(5000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertEquals(1, executor.getSlowDisconnects());
+    }
+
+    private MessageHandlingRunnable task(String destination, String label, boolean block) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+        accessor.setSessionId(SESSION_ID);
+        accessor.setDestination(destination);
+        accessor.setLeaveMutable(true);
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[8], accessor.getMessageHeaders());
+        return new MessageHandlingRunnable() {
+            @Override
+            public Message<?> getMessage() {
+                return message;
+            }
+
+            @Override
+            public MessageHandler getMessageHandler() {
+                return m -> { };
+            }
+
+            @Override
+            public void run() {
+                if (block) {
+                    blocked.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                sent.add(label);
+            }
+        };
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -169,18 +169,45 @@ export const setPlayerReady = (roomCode, playerId, ready) =>
 export const getRoomStatus = (roomCode, silentError = false) =>
   api.get(`/rooms/${roomCode}`, { silentError });
 
+export const getRoomQuestion = (roomCode, questionIndex) =>
+  api.get(`/rooms/${roomCode}/questions/${questionIndex}`);
+
+export const getRoomLeaderboard = (roomCode) =>
+  api.get(`/rooms/${roomCode}/leaderboard`);
+
+export const getChatHistory = (roomCode, limit = 50) =>
+  api.get(`/rooms/${roomCode}/chat`, { params: { limit } });
+
 export const getGameResults = (roomCode) =>
   api.get(`/rooms/${roomCode}/results`);
 
 export const deleteRoom = (roomCode) =>
   api.delete(`/rooms/${roomCode}`);
 
-export const getAllActiveRooms = () =>
-  api.get(`/rooms`);
+// 大厅房间摘要（游标分页），params: { status, joinable, hasPassword, tagId, codePrefix, cursor, limit }
+export const getAllActiveRooms = (params = {}) =>
+  api.get(`/rooms`, { params });
 
 export const updateRoomSettings = (roomCode, settings) =>
   api.put(`/rooms/${roomCode}/settings`, settings);
 
+// 全局排行榜，metric: score / games / winrate，season: 不传为总榜，'current' 为当前赛季
+export const getGlobalLeaderboard = (metric, season, limit = 20) =>
+  api.get(`/leaderboard/${metric}`, { params: { season, limit } });
+
+export const getGlobalRankAround = (metric, playerId, season, radius = 5) =>
+  api.get(`/leaderboard/${metric}/around/${playerId}`, { params: { season, radius } });
+
+export const getGlobalPlayerRank = (metric, playerId, season) =>
+  api.get(`/leaderboard/${metric}/players/${playerId}`, { params: { season } });
+
+// 选项分布分析，playerCount 不传时返回所有人数分桶
+export const getChoiceStrategies = () =>
+  api.get(`/analytics/choices`);
+
+export const getChoiceHistogram = (strategyId, playerCount) =>
+  api.get(`/analytics/choices/${strategyId}`, { params: { playerCount } });
+
 export const loadTags = () =>
   api.get(`/tags`);
 
@@ -190,6 +217,9 @@ export const listPlayers = () =>
 export const getPlayer = (playerId) =>
   api.get(`/players/${playerId}`);
 
+export const getPlayerStats = (playerId) =>
+  api.get(`/players/${playerId}/stats`);
+
 export const updatePlayerReady = (playerId, ready) =>
   api.put(`/players/${playerId}/ready`, null, {
     params: { ready }
@@ -228,6 +258,10 @@ export const getHistoryList = (playerId, days) => {
   return api.get('/games/history', { params });
 };
 
+// 个人历史（游标分页），params: { days, cursor, limit }
+export const getPlayerHistoryPage = (playerId, params = {}) =>
+  api.get(`/games/history/players/${playerId}`, { params });
+
 export const getHistoryDetail = (gameId) => 
   api.get(`/games/history/${gameId}`);
 
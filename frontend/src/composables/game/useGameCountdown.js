@@ -1,7 +1,8 @@
 import { ref } from 'vue'
+import { serverNow } from '@/websocket/ws'
 
 export function useGameCountdown(handleAutoSubmit) {
-  const questionStartTime = ref(null)
+  const questionDeadline = ref(null) // 🔥 服务端截止时间（epoch 毫秒），结合时钟同步本地倒计时
   const timeLimit = ref(30)
   const countdown = ref(30)
   const countdownTimer = ref(null)
@@ -19,14 +20,12 @@ export function useGameCountdown(handleAutoSubmit) {
   }
 
   const updateCountdown = () => {
-    if (!questionStartTime.value) {
+    if (!questionDeadline.value) {
       countdown.value = timeLimit.value
       return
     }
     
-    const now = new Date()
-    const elapsed = Math.floor((now - questionStartTime.value) / 1000)
-    const remaining = Math.max(0, timeLimit.value - elapsed)
+    const remaining = Math.max(0, Math.ceil((questionDeadline.value - serverNow()) / 1000))
     
     countdown.value = remaining
     
@@ -44,7 +43,7 @@ export function useGameCountdown(handleAutoSubmit) {
   }
 
   return {
-    questionStartTime,
+    questionDeadline,
     timeLimit,
     countdown,
     resetCountdown,
@@ -1,7 +1,7 @@
 import { logger } from '@/utils/logger'
 import { ref, onMounted, onUnmounted } from 'vue'
 import { connect, isConnected, subscribeRoom, unsubscribeAll } from '@/websocket/ws'
-import { getRoomStatus } from '@/api'
+import { getRoomQuestion, getRoomStatus } from '@/api'
 
 export function useGameWebSocket(
   roomCode,
@@ -10,7 +10,7 @@ export function useGameWebSocket(
   router,
   room,
   question,
-  questionStartTime,
+  questionDeadline,
   timeLimit,
   resetCountdown,
   clearCountdown,
@@ -21,6 +21,31 @@ export function useGameWebSocket(
 ) {
   const subscriptions = ref([])
   const wsConnected = ref(false) // 🔥 新增：连接状态
+  const questionVersion = ref(null) // 🔥 当前已加载题目的版本
+
+  // 🔥 收到题目推送（或接口返回）时更新题目，旧索引的推送直接忽略
+  const applyQuestion = (frame) => {
+    if (!frame || !frame.question) return
+    const currentIndex = room.value?.currentIndex
+    if (currentIndex !== undefined && frame.questionIndex < currentIndex) return
+    questionVersion.value = frame.version
+    question.value = frame.question
+  }
+
+  // 🔥 房间更新里的题目版本和本地不一致时（错过推送、刷新页面），从接口补拉
+  const ensureQuestion = async (roomData) => {
+    if (!roomData || !roomData.questionVersion) {
+      if (roomData && roomData.status !== 'PLAYING') question.value = null
+      return
+    }
+    if (roomData.questionVersion === questionVersion.value) return
+    try {
+      const response = await getRoomQuestion(roomCode.value, roomData.currentIndex)
+      applyQuestion(response.data)
+    } catch (error) {
+      logger.error('❌ GameView: 获取题目失败:', error)
+    }
+  }
 
   const handleReconnecting = (event) => {
     wsConnected.value = false // 🔥 更新连接状态
@@ -60,7 +85,7 @@ export function useGameWebSocket(
       
       
       room.value = updatedRoom
-      question.value = updatedRoom.currentQuestion
+      await ensureQuestion(updatedRoom)
       playerStore.setRoom(updatedRoom)
 
       // 🔥 P1-1: 刷新时也验证提交状态
@@ -68,8 +93,8 @@ export function useGameWebSocket(
         verifySubmissionState(updatedRoom.submittedPlayerIds)
       }
 
-      if (updatedRoom.questionStartTime) {
-        questionStartTime.value = new Date(updatedRoom.questionStartTime)
+      if (updatedRoom.questionDeadline) {
+        questionDeadline.value = updatedRoom.questionDeadline
         timeLimit.value = updatedRoom.timeLimit || 30
         resetCountdown()
       }
@@ -125,7 +150,7 @@ export function useGameWebSocket(
           clearCountdown()
           
           resetSubmitState()
-          question.value = update.currentQuestion
+          ensureQuestion(update)
           
           const newSubmissionKey = `submission_${roomCode.value}_${newIndex}`
           const savedSubmission = localStorage.getItem(newSubmissionKey)
@@ -134,13 +159,13 @@ export function useGameWebSocket(
           } else {
           }
           
-          if (update.questionStartTime) {
-            questionStartTime.value = new Date(update.questionStartTime)
+          if (update.questionDeadline) {
+            questionDeadline.value = update.questionDeadline
             timeLimit.value = update.timeLimit || 30
             resetCountdown()
           }
         } else {
-          question.value = update.currentQuestion
+          ensureQuestion(update)
         }
         
         playerStore.setRoom(update)
@@ -184,7 +209,9 @@ export function useGameWebSocket(
             life: 3000
           })
         }
-      }
+      },
+      null,
+      applyQuestion
     )
     
     subscriptions.value = subs
@@ -103,6 +103,7 @@ export function connect(playerId, onConnect, onError) {
         }
 
         subscribeToPersonalMessages(playerId);
+        syncClock();
 
         if (onConnect) onConnect(stompClient);
         resolve(stompClient);
@@ -203,6 +204,53 @@ function subscribeToPersonalMessages(playerId) {
   });
 }
 
+// ============ 时钟同步（NTP 风格） ============
+
+const CLOCK_SYNC_SAMPLES = 5;
+const CLOCK_SYNC_INTERVAL = 200;
+let clockOffset = 0;      // 服务端时间 - 本地时间（毫秒）
+let bestClockRtt = Infinity;
+
+/**
+ * 估计本地与服务端的时钟偏差：发送若干次，取往返时间最短的一次
+ * offset = ((t1 - t0) + (t2 - t3)) / 2
+ */
+function syncClock() {
+  if (!ensureConnected("syncClock")) return;
+
+  bestClockRtt = Infinity;
+  stompClient.subscribe('/user/queue/time', (msg) => {
+    const t3 = Date.now();
+    try {
+      const { t0, t1, t2 } = JSON.parse(msg.body);
+      const rtt = (t3 - t0) - (t2 - t1);
+      if (rtt < bestClockRtt) {
+        bestClockRtt = rtt;
+        clockOffset = ((t1 - t0) + (t2 - t3)) / 2;
+      }
+    } catch (e) {
+      logger.error("时钟同步解析失败:", e);
+    }
+  });
+
+  for (let i = 0; i < CLOCK_SYNC_SAMPLES; i++) {
+    setTimeout(() => {
+      if (!isConnected()) return;
+      stompClient.publish({
+        destination: "/app/time/sync",
+        body: JSON.stringify({ t0: Date.now() }),
+      });
+    }, i * CLOCK_SYNC_INTERVAL);
+  }
+}
+
+/**
+ * 当前服务端时间（epoch 毫秒），用于根据 questionDeadline 本地倒计时
+ */
+export function serverNow() {
+  return Date.now() + clockOffset;
+}
+
 /**
  * 恢复重连后的订阅
  */
@@ -314,8 +362,9 @@ export function safeSubscribe(destination, onMessage) {
  * @param {function} onRoomUpdate - 房间更新回调
  * @param {function} onRoomError - 房间错误回调
  * @param {string} playerId - 玩家ID（可选，用于订阅被踢事件）
+ * @param {function} onQuestion - 题目推送回调（可选，每个题目索引推送一次）
  */
-export function subscribeRoom(roomCode, onRoomUpdate, onRoomError, playerId = null) {
+export function subscribeRoom(roomCode, onRoomUpdate, onRoomError, playerId = null, onQuestion = null) {
   const subscriptions = [];
 
   const roomUpdateSub = safeSubscribe(`/topic/room/${roomCode}`, (data) => {
@@ -335,6 +384,14 @@ export function subscribeRoom(roomCode, onRoomUpdate, onRoomError, playerId = nu
     window.dispatchEvent(new CustomEvent('room-deleted', { detail: data }));
   });
 
+  // 🔥 题目内容单独推送，房间更新里只有 currentQuestionId / questionVersion
+  let questionSub = null;
+  if (onQuestion) {
+    questionSub = safeSubscribe(`/topic/room/${roomCode}/question`, (data) => {
+      if (data) onQuestion(data);
+    });
+  }
+
   // 🔥 订阅被踢事件（使用 topic 而不是 user queue）
   let kickedSub = null;
   if (playerId) {
@@ -348,10 +405,22 @@ export function subscribeRoom(roomCode, onRoomUpdate, onRoomError, playerId = nu
   if (roomErrorSub) subscriptions.push(roomErrorSub);
   if (roomDeletedSub) subscriptions.push(roomDeletedSub);
   if (kickedSub) subscriptions.push(kickedSub);
+  if (questionSub) subscriptions.push(questionSub);
 
   return subscriptions;
 }
 
+/**
+ * 订阅实时排行榜（只推送名次变化的玩家）
+ * 回调参数: { roomCode, rankingMode, questionIndex, version, changes: [{ playerId, rank, previousRank, totalScore }] }
+ * version 跳号时应通过 getRoomLeaderboard 重新拉取完整榜单
+ */
+export function subscribeLeaderboard(roomCode, onUpdate) {
+  return safeSubscribe(`/topic/room/${roomCode}/leaderboard`, (data) => {
+    if (data && onUpdate) onUpdate(data);
+  });
+}
+
 /**
  * 取消订阅（修改：增加错误处理）
  */
@@ -501,6 +570,7 @@ export default {
   disconnect,
   reconnect,
   subscribeRoom,
+  subscribeLeaderboard,
   unsubscribe,
   unsubscribeAll,
   sendJoin,